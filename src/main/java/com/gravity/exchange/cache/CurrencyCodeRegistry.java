@@ -0,0 +1,123 @@
+package com.gravity.exchange.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Registry that assigns each 3-letter currency code a small, dense int index.
+ * Codes are packed case-insensitively into 15 bits (5 bits per letter), so a lookup
+ * is an array read and never allocates.
+ */
+@Slf4j
+@Component
+public class CurrencyCodeRegistry {
+
+    /**
+     * Index returned for codes that are not registered or not valid 3-letter codes.
+     */
+    public static final int UNKNOWN = -1;
+
+    private static final int BITS_PER_LETTER = 5;
+    private static final int PACKED_SPACE = 1 << (BITS_PER_LETTER * 3);
+
+    private final AtomicIntegerArray indexByPackedCode = new AtomicIntegerArray(PACKED_SPACE);
+    private volatile String[] codes = new String[0];
+
+    public CurrencyCodeRegistry() {
+        for (int i = 0; i < PACKED_SPACE; i++) {
+            indexByPackedCode.set(i, UNKNOWN);
+        }
+    }
+
+    /**
+     * Returns the index of a currency code without registering it.
+     *
+     * @param code currency code, any letter case
+     * @return the index, or {@link #UNKNOWN} if the code is not registered
+     */
+    public int indexOf(String code) {
+        int packed = pack(code);
+        return packed < 0 ? UNKNOWN : indexByPackedCode.get(packed);
+    }
+
+    /**
+     * Returns the index of a currency code, registering it first if needed.
+     *
+     * @param code currency code, any letter case
+     * @return the index, or {@link #UNKNOWN} if the code is not a valid 3-letter code
+     */
+    public int register(String code) {
+        int packed = pack(code);
+        if (packed < 0) {
+            return UNKNOWN;
+        }
+        int existing = indexByPackedCode.get(packed);
+        return existing != UNKNOWN ? existing : registerPacked(packed, code);
+    }
+
+    /**
+     * Returns the currency code registered at the given index.
+     *
+     * @param index the currency index
+     * @return the upper-case currency code
+     */
+    public String codeAt(int index) {
+        return codes[index];
+    }
+
+    /**
+     * Returns the number of registered currency codes.
+     *
+     * @return registered code count
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * Returns all registered codes in index order.
+     *
+     * @return registered currency codes
+     */
+    public List<String> getCodes() {
+        return List.of(codes);
+    }
+
+    private synchronized int registerPacked(int packed, String code) {
+        int existing = indexByPackedCode.get(packed);
+        if (existing != UNKNOWN) {
+            return existing;
+        }
+        String[] current = codes;
+        int index = current.length;
+        String[] grown = Arrays.copyOf(current, index + 1);
+        grown[index] = code.toUpperCase();
+        codes = grown;
+        indexByPackedCode.set(packed, index);
+        log.debug("Registered currency {} at index {}", grown[index], index);
+        return index;
+    }
+
+    /**
+     * Packs a 3-letter code into 15 bits. Upper- and lower-case letters share a value
+     * because {@code c & 0x1F} maps both 'A' and 'a' to 1.
+     */
+    static int pack(String code) {
+        if (code == null || code.length() != 3) {
+            return UNKNOWN;
+        }
+        int packed = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = code.charAt(i);
+            if (!(c >= 'A' && c <= 'Z') && !(c >= 'a' && c <= 'z')) {
+                return UNKNOWN;
+            }
+            packed = (packed << BITS_PER_LETTER) | (c & 0x1F);
+        }
+        return packed;
+    }
+}
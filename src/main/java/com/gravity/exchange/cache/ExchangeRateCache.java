@@ -4,20 +4,29 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * In-memory cache for the best (most recent) exchange rates.
- * Key format: "BASE_TARGET" (e.g., "USD_EUR").
+ * Currency codes are mapped to dense indexes by {@link CurrencyCodeRegistry} and rates
+ * live in an immutable {@link RateSnapshot}. Writers stage a complete snapshot off to the
+ * side and publish it with a single reference swap, so readers always see one consistent
+ * fetch cycle without taking a lock.
  */
 @Slf4j
 @Component
 public class ExchangeRateCache {
 
-    private final ConcurrentHashMap<String, BigDecimal> rateCache = new ConcurrentHashMap<>();
+    private final CurrencyCodeRegistry registry;
+    private volatile RateSnapshot snapshot = RateSnapshot.empty();
+
+    public ExchangeRateCache(CurrencyCodeRegistry registry) {
+        this.registry = registry;
+    }
 
     /**
      * Gets the best rate for a given currency pair.
@@ -27,7 +36,102 @@ public class ExchangeRateCache {
      * @return the cached rate, or empty if not found
      */
     public Optional<BigDecimal> getBestRate(String from, String to) {
-        return Optional.ofNullable(rateCache.get(buildKey(from, to)));
+        return Optional.ofNullable(snapshot.get(registry.indexOf(from), registry.indexOf(to)));
+    }
+
+    /**
+     * Gets the best rate for a given currency pair together with its derivation path.
+     *
+     * @param from source currency code
+     * @param to   target currency code
+     * @return the cached entry, or empty if not found
+     */
+    public Optional<RateEntry> getRateEntry(String from, String to) {
+        return Optional.ofNullable(snapshot.getEntry(registry.indexOf(from), registry.indexOf(to)));
+    }
+
+    /**
+     * Returns the currently published snapshot.
+     *
+     * @return the current snapshot
+     */
+    public RateSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns a builder seeded with the current rates. Pairs that are not overwritten
+     * keep their previous value when the builder is published, including pairs another
+     * publication changed while the builder was being filled.
+     *
+     * @return a new snapshot builder
+     */
+    public RateSnapshot.Builder newSnapshotBuilder() {
+        return snapshot.toBuilder(registry);
+    }
+
+    /**
+     * Publishes the staged rates as the next snapshot version.
+     *
+     * @param builder the staged rates
+     * @return the published snapshot
+     */
+    public synchronized RateSnapshot publish(RateSnapshot.Builder builder) {
+        RateSnapshot next = rebased(builder).build(snapshot.getVersion() + 1, LocalDateTime.now(), false);
+        snapshot = next;
+        log.debug("Published rate snapshot v{}", next.getVersion());
+        return next;
+    }
+
+    /**
+     * Publishes rates restored from the snapshot file. The restored snapshot keeps its
+     * persisted version if that is ahead of the current one and is flagged as restored
+     * until the next live publication.
+     *
+     * @param builder         the restored rates
+     * @param restoredVersion the version stored in the file
+     * @param publishedAt     the publish time stored in the file
+     * @return the published snapshot
+     */
+    public synchronized RateSnapshot publishRestored(RateSnapshot.Builder builder, long restoredVersion,
+                                                     LocalDateTime publishedAt) {
+        RateSnapshot next = builder.build(Math.max(snapshot.getVersion() + 1, restoredVersion), publishedAt, true);
+        snapshot = next;
+        log.info("Restored rate snapshot v{} published at {}", next.getVersion(), publishedAt);
+        return next;
+    }
+
+    /**
+     * Publishes rates reloaded after another node announced a fetch cycle. The local version
+     * jumps to the announced one if that is ahead, so versions converge across nodes.
+     *
+     * @param builder     the staged rates
+     * @param peerVersion the snapshot version announced by the other node
+     * @return the published snapshot
+     */
+    public synchronized RateSnapshot publishPeer(RateSnapshot.Builder builder, long peerVersion) {
+        RateSnapshot next = rebased(builder)
+                .build(Math.max(snapshot.getVersion() + 1, peerVersion), LocalDateTime.now(), false);
+        snapshot = next;
+        log.debug("Published rate snapshot v{} from peer", next.getVersion());
+        return next;
+    }
+
+    private RateSnapshot.Builder rebased(RateSnapshot.Builder builder) {
+        if (builder.isBasedOn(snapshot.getVersion())) {
+            return builder;
+        }
+        log.debug("Rebasing staged rates onto snapshot v{}", snapshot.getVersion());
+        return builder.rebaseOnto(snapshot);
+    }
+
+    /**
+     * Returns whether the current snapshot was restored from disk and no live fetch has completed since.
+     *
+     * @return true while serving restored rates
+     */
+    public boolean isServingRestoredSnapshot() {
+        return snapshot.isRestored();
     }
 
     /**
@@ -37,10 +141,13 @@ public class ExchangeRateCache {
      * @param to   target currency code
      * @param rate the exchange rate
      */
-    public void putRate(String from, String to, BigDecimal rate) {
-        String key = buildKey(from, to);
-        rateCache.put(key, rate);
-        log.debug("Cache updated: {} = {}", key, rate);
+    public synchronized void putRate(String from, String to, BigDecimal rate) {
+        RateSnapshot.Builder builder = newSnapshotBuilder();
+        if (!builder.putRate(from, to, rate)) {
+            log.warn("Ignoring rate for invalid currency pair {} -> {}", from, to);
+            return;
+        }
+        publish(builder);
     }
 
     /**
@@ -49,28 +156,67 @@ public class ExchangeRateCache {
      * @param baseCurrency the base currency code
      * @param rates        map of target currency to rate
      */
-    public void updateRates(String baseCurrency, Map<String, BigDecimal> rates) {
-        rates.forEach((target, rate) -> putRate(baseCurrency, target, rate));
+    public synchronized void updateRates(String baseCurrency, Map<String, BigDecimal> rates) {
+        publish(newSnapshotBuilder().putRates(baseCurrency, rates));
     }
 
     /**
-     * Returns an unmodifiable view of all cached rates.
+     * Registers a currency code and grows the rate matrix so the code has a slot
+     * before any rate for it arrives.
+     *
+     * @param code the currency code
+     */
+    public synchronized void registerCurrency(String code) {
+        int index = registry.register(code);
+        if (index != CurrencyCodeRegistry.UNKNOWN && index >= snapshot.dimension()) {
+            RateSnapshot.Builder builder = newSnapshotBuilder();
+            builder.ensureCapacity(index + 1);
+            publish(builder);
+            log.info("Exchange rate matrix grown to fit {} currencies", index + 1);
+        }
+    }
+
+    /**
+     * Returns a builder that starts without any rates. Publishing it replaces every rate,
+     * whatever was published in the meantime.
+     *
+     * @return an empty snapshot builder
+     */
+    public RateSnapshot.Builder newEmptySnapshotBuilder() {
+        RateSnapshot.Builder builder = RateSnapshot.replacingBuilder(registry);
+        builder.ensureCapacity(registry.size());
+        return builder;
+    }
+
+    CurrencyCodeRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * Returns an unmodifiable copy of all cached rates keyed by "BASE_TARGET".
      *
      * @return all cached rates
      */
     public Map<String, BigDecimal> getAllRates() {
-        return Collections.unmodifiableMap(rateCache);
+        RateSnapshot current = snapshot;
+        int count = Math.min(registry.size(), current.dimension());
+        Map<String, BigDecimal> all = new LinkedHashMap<>();
+        for (int from = 0; from < count; from++) {
+            for (int to = 0; to < count; to++) {
+                BigDecimal rate = current.get(from, to);
+                if (rate != null) {
+                    all.put(registry.codeAt(from) + "_" + registry.codeAt(to), rate);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(all);
     }
 
     /**
-     * Clears all cached rates.
+     * Clears all cached rates by publishing an empty snapshot.
      */
-    public void clear() {
-        rateCache.clear();
+    public synchronized void clear() {
+        publish(newEmptySnapshotBuilder());
         log.info("Exchange rate cache cleared");
     }
-
-    private String buildKey(String from, String to) {
-        return from.toUpperCase() + "_" + to.toUpperCase();
-    }
 }
@@ -0,0 +1,107 @@
+package com.gravity.exchange.cache;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic for rates stored as longs in 1e-8 units, matching the
+ * {@code NUMERIC(18, 8)} rate column. {@link #multiply(BigDecimal, BigDecimal, long)} returns
+ * exactly what {@code amount.multiply(rate).setScale(8, HALF_UP)} returns, using primitive
+ * arithmetic when the product fits in a long and BigDecimal otherwise.
+ */
+public final class FixedPoint {
+
+    /**
+     * Number of decimal places of a scaled rate.
+     */
+    public static final int SCALE = 8;
+
+    /**
+     * Marker for a rate that has no exact scaled-long representation.
+     */
+    public static final long NOT_REPRESENTABLE = Long.MIN_VALUE;
+
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_LONG_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i <= MAX_LONG_DIGITS; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Converts a rate to a long in 1e-8 units.
+     *
+     * @param rate the rate
+     * @return the scaled rate, or {@link #NOT_REPRESENTABLE} if the rate has more than
+     *         8 significant decimal places or does not fit in a long
+     */
+    public static long toScaled(BigDecimal rate) {
+        if (rate == null || rate.stripTrailingZeros().scale() > SCALE) {
+            return NOT_REPRESENTABLE;
+        }
+        BigDecimal scaled = rate.setScale(SCALE, RoundingMode.UNNECESSARY);
+        if (scaled.precision() > MAX_LONG_DIGITS) {
+            return NOT_REPRESENTABLE;
+        }
+        return unscaledLong(scaled);
+    }
+
+    /**
+     * Multiplies an amount by a rate and rounds the result to 8 decimal places, HALF_UP.
+     *
+     * @param amount     the amount
+     * @param rate       the rate, used when the fast path cannot be taken
+     * @param scaledRate the same rate in 1e-8 units, or {@link #NOT_REPRESENTABLE}
+     * @return the converted amount with scale 8
+     */
+    public static BigDecimal multiply(BigDecimal amount, BigDecimal rate, long scaledRate) {
+        int amountScale = amount.scale();
+        if (scaledRate == NOT_REPRESENTABLE || amountScale < 0 || amountScale > MAX_LONG_DIGITS
+                || amount.precision() > MAX_LONG_DIGITS) {
+            return multiplyExact(amount, rate);
+        }
+        long unscaledAmount = unscaledLong(amount);
+        long product = unscaledAmount * scaledRate;
+        if (Math.multiplyHigh(unscaledAmount, scaledRate) != (product >> 63)) {
+            return multiplyExact(amount, rate);
+        }
+        // product carries amountScale + 8 decimal places; drop amountScale of them
+        return BigDecimal.valueOf(divideHalfUp(product, POWERS_OF_TEN[amountScale]), SCALE);
+    }
+
+    /**
+     * Reference BigDecimal implementation used as the fallback.
+     *
+     * @param amount the amount
+     * @param rate   the rate
+     * @return the converted amount with scale 8
+     */
+    public static BigDecimal multiplyExact(BigDecimal amount, BigDecimal rate) {
+        return amount.multiply(rate).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Returns the unscaled value of a non-negative-scale decimal of at most 18 digits.
+     * {@code unscaledValue()} would allocate a BigInteger for every call; at scale 0 a compact
+     * BigDecimal hands back its long directly.
+     */
+    static long unscaledLong(BigDecimal value) {
+        return value.movePointRight(value.scale()).longValueExact();
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        // remainder < divisor <= 1e18, so doubling it cannot overflow
+        if (remainder * 2 >= divisor) {
+            quotient += dividend < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
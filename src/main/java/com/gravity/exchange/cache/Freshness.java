@@ -0,0 +1,13 @@
+package com.gravity.exchange.cache;
+
+/**
+ * Age class of a cached rate relative to the configured max age and stale-while-revalidate window.
+ */
+public enum Freshness {
+    /** Younger than the max age; served as is. */
+    FRESH,
+    /** Older than the max age but inside the stale-while-revalidate window; served, and a refresh is triggered. */
+    STALE,
+    /** Older than max age plus the stale-while-revalidate window; rejected. */
+    EXPIRED
+}
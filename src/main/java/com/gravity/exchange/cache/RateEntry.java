@@ -0,0 +1,70 @@
+package com.gravity.exchange.cache;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * A single cached rate together with how and when it was obtained.
+ *
+ * @param rate       the exchange rate
+ * @param derivation null for a rate fetched directly from a provider, otherwise the
+ *                   path used to derive it, e.g. {@code "1/(USD->EUR)"} for an inverse
+ *                   or {@code "EUR->USD->JPY"} for a cross rate via USD
+ * @param scaledRate the rate in 1e-8 units, or {@link FixedPoint#NOT_REPRESENTABLE}
+ * @param source     the provider that supplied the winning rate (for derived rates, the
+ *                   providers of its legs), or null if unknown
+ * @param fetchedAt  when the rate was fetched (for derived rates, when its oldest leg was
+ *                   fetched), or null if unknown
+ */
+public record RateEntry(BigDecimal rate, String derivation, long scaledRate,
+                        String source, LocalDateTime fetchedAt) {
+
+    public RateEntry(BigDecimal rate, String derivation) {
+        this(rate, derivation, null, null);
+    }
+
+    public RateEntry(BigDecimal rate, String derivation, String source, LocalDateTime fetchedAt) {
+        this(rate, derivation, FixedPoint.toScaled(rate), source, fetchedAt);
+    }
+
+    /**
+     * Creates an entry for a rate fetched directly from a provider.
+     *
+     * @param rate      the exchange rate
+     * @param source    the provider name
+     * @param fetchedAt when the rate was fetched
+     * @return the entry
+     */
+    public static RateEntry fetched(BigDecimal rate, String source, LocalDateTime fetchedAt) {
+        return new RateEntry(rate, null, source, fetchedAt);
+    }
+
+    /**
+     * Returns whether this rate was derived rather than fetched directly.
+     *
+     * @return true for inverse or cross rates
+     */
+    public boolean isDerived() {
+        return derivation != null;
+    }
+
+    /**
+     * Classifies this entry's age. Entries without a fetch time are always fresh.
+     *
+     * @param now                  the current time
+     * @param maxAge               how long an entry stays fresh
+     * @param staleWhileRevalidate how long after max age a stale entry may still be served
+     * @return the freshness of this entry
+     */
+    public Freshness freshnessAt(LocalDateTime now, Duration maxAge, Duration staleWhileRevalidate) {
+        if (fetchedAt == null) {
+            return Freshness.FRESH;
+        }
+        LocalDateTime staleAfter = fetchedAt.plus(maxAge);
+        if (!now.isAfter(staleAfter)) {
+            return Freshness.FRESH;
+        }
+        return now.isAfter(staleAfter.plus(staleWhileRevalidate)) ? Freshness.EXPIRED : Freshness.STALE;
+    }
+}
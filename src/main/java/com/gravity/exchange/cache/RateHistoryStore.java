@@ -0,0 +1,410 @@
+package com.gravity.exchange.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Recent rate history held in process, one series per pair and source, so trends over the
+ * retained horizon are answered without a database round trip. Each series is a list of
+ * day-aligned {@link TickBlock}s compressed with delta-of-delta times and XOR values.
+ *
+ * <p>The store holds exactly the rows of the {@code exchange_rate} table since
+ * {@link #getCoveredFrom()}: it is seeded from the database, then fed with every batch the
+ * write-behind queue persists and every peer cycle reloaded through coherence. Blocks that
+ * end before the horizon are evicted, keeping only their last tick as the rate carried into the
+ * horizon. A tick older than the last one of its series, e.g. a peer row announced late, is
+ * merged into the block of its day, which is re-encoded with it.
+ */
+@Slf4j
+@Component
+public class RateHistoryStore {
+
+    /**
+     * Receives the rows of a reload.
+     */
+    public interface Loader {
+
+        /**
+         * Sets the last rate a series had before the covered range.
+         */
+        void carry(String base, String target, String source, LocalDateTime timestamp, BigDecimal rate);
+
+        /**
+         * Adds a row inside the covered range; rows of one series must come in time order.
+         */
+        void tick(String base, String target, String source, LocalDateTime timestamp, BigDecimal rate);
+    }
+
+    private final boolean enabled;
+    private final int days;
+    private volatile Map<String, Map<String, Series>> seriesByPair = new ConcurrentHashMap<>();
+    private volatile LocalDateTime coveredFrom;
+
+    public RateHistoryStore(@Value("${exchange.history.memory.enabled:true}") boolean enabled,
+                            @Value("${exchange.history.memory.days:8}") int days) {
+        this.enabled = enabled;
+        this.days = days;
+    }
+
+    /**
+     * Returns whether the store is enabled.
+     *
+     * @return true if recent history is kept in memory
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the start of the horizon to load: midnight, the configured number of days ago.
+     *
+     * @param now the current time
+     * @return the first instant the store should cover
+     */
+    public LocalDateTime horizonStart(LocalDateTime now) {
+        return now.minusDays(days).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    /**
+     * Returns the first instant the store answers for, or null before the first reload.
+     *
+     * @return the start of the covered range
+     */
+    public LocalDateTime getCoveredFrom() {
+        return coveredFrom;
+    }
+
+    /**
+     * Replaces the whole content with the rows pushed by the given load. Lookups keep answering
+     * from the previous content until the load completes; appends wait for it.
+     *
+     * @param from the start of the covered range
+     * @param load pushes the carried-in rates and the rows since {@code from}
+     */
+    public synchronized void reload(LocalDateTime from, Consumer<Loader> load) {
+        Map<String, Map<String, Series>> loaded = new ConcurrentHashMap<>();
+        load.accept(new Loader() {
+            @Override
+            public void carry(String base, String target, String source, LocalDateTime timestamp, BigDecimal rate) {
+                series(loaded, base, target, source).carry(toMillis(timestamp), toScaled(rate));
+            }
+
+            @Override
+            public void tick(String base, String target, String source, LocalDateTime timestamp, BigDecimal rate) {
+                series(loaded, base, target, source).append(toMillis(timestamp), toScaled(rate));
+            }
+        });
+        seriesByPair = loaded;
+        coveredFrom = from;
+    }
+
+    /**
+     * Appends a persisted row and evicts days that fell out of the horizon.
+     *
+     * @param base      the base currency code
+     * @param target    the target currency code
+     * @param source    the provider that supplied the rate
+     * @param timestamp the row timestamp
+     * @param rate      the rate
+     */
+    public synchronized void append(String base, String target, String source, LocalDateTime timestamp,
+                                    BigDecimal rate) {
+        if (!enabled || coveredFrom == null) {
+            return;
+        }
+        LocalDateTime horizon = horizonStart(LocalDateTime.now());
+        if (horizon.isAfter(coveredFrom)) {
+            long horizonMillis = toMillis(horizon);
+            allSeries().forEach(series -> series.evictBefore(horizonMillis));
+            coveredFrom = horizon;
+        }
+        if (timestamp.isBefore(coveredFrom)) {
+            return;
+        }
+        Series series = series(seriesByPair, base, target, source);
+        if (!series.append(toMillis(timestamp), toScaled(rate))) {
+            log.info("Merged out-of-order rate {}/{} from {} at {} into its day block",
+                    base, target, source, timestamp);
+        }
+    }
+
+    /**
+     * Returns whether the store can answer for the pair from the given time on: the time lies in
+     * the covered range and the pair has a series.
+     *
+     * @param base   the base currency code
+     * @param target the target currency code
+     * @param since  the earliest time the caller needs
+     * @return true if the store holds every row of the pair that the answer depends on
+     */
+    public boolean covers(String base, String target, LocalDateTime since) {
+        LocalDateTime from = coveredFrom;
+        if (!enabled || from == null || since.isBefore(from)) {
+            return false;
+        }
+        Map<String, Series> bySource = seriesByPair.get(pairKey(base, target));
+        return bySource != null && !bySource.isEmpty();
+    }
+
+    /**
+     * Returns the last rate written at or before the given time, across sources.
+     *
+     * @param base   the base currency code
+     * @param target the target currency code
+     * @param at     the time
+     * @return the rate in effect at that time
+     */
+    public Optional<BigDecimal> findRateAtOrBefore(String base, String target, LocalDateTime at) {
+        long atMillis = toMillis(at);
+        return best(base, target, s -> s.lastAtOrBefore(atMillis), true);
+    }
+
+    /**
+     * Returns the first rate written at or after the given time, across sources.
+     *
+     * @param base   the base currency code
+     * @param target the target currency code
+     * @param since  the time
+     * @return the first rate since that time
+     */
+    public Optional<BigDecimal> findFirstRateSince(String base, String target, LocalDateTime since) {
+        long sinceMillis = toMillis(since);
+        return best(base, target, s -> s.firstAtOrAfter(sinceMillis), false);
+    }
+
+    /**
+     * Returns the last rate written for the pair, across sources.
+     *
+     * @param base   the base currency code
+     * @param target the target currency code
+     * @return the latest rate
+     */
+    public Optional<BigDecimal> findLatestRate(String base, String target) {
+        return best(base, target, Series::latest, true);
+    }
+
+    /**
+     * Returns the number of ticks held, carried-in rates included.
+     *
+     * @return the tick count
+     */
+    public long getTickCount() {
+        return allSeries().stream().mapToLong(Series::tickCount).sum();
+    }
+
+    /**
+     * Returns the heap taken by the compressed blocks.
+     *
+     * @return size in bytes
+     */
+    public long getSizeInBytes() {
+        return allSeries().stream().mapToLong(Series::sizeInBytes).sum();
+    }
+
+    private Optional<BigDecimal> best(String base, String target, Function<Series, Tick> lookup,
+                                      boolean latest) {
+        Map<String, Series> bySource = seriesByPair.get(pairKey(base, target));
+        if (bySource == null) {
+            return Optional.empty();
+        }
+        Tick best = null;
+        for (Series series : bySource.values()) {
+            Tick tick = lookup.apply(series);
+            if (tick != null && (best == null || (latest ? tick.time() > best.time() : tick.time() < best.time()))) {
+                best = tick;
+            }
+        }
+        return Optional.ofNullable(best).map(tick -> BigDecimal.valueOf(tick.value(), FixedPoint.SCALE));
+    }
+
+    private static Series series(Map<String, Map<String, Series>> seriesByPair, String base, String target,
+                                 String source) {
+        return seriesByPair.computeIfAbsent(pairKey(base, target), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(source, s -> new Series());
+    }
+
+    private Collection<Series> allSeries() {
+        List<Series> all = new ArrayList<>();
+        seriesByPair.values().forEach(bySource -> all.addAll(bySource.values()));
+        return all;
+    }
+
+    private static String pairKey(String base, String target) {
+        return base + "/" + target;
+    }
+
+    static long toMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Rounds like the {@code NUMERIC(18, 8)} column the rate was written to.
+     */
+    private static long toScaled(BigDecimal rate) {
+        return rate.setScale(FixedPoint.SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private record Tick(long time, long value) {
+    }
+
+    /**
+     * Ticks of one pair and source. Blocks are day-aligned and the last one is open for appends.
+     */
+    private static final class Series {
+
+        private static final long DAY_MILLIS = 86_400_000L;
+
+        private final List<TickBlock> blocks = new ArrayList<>();
+        private Tick carried;
+
+        synchronized void carry(long time, long value) {
+            carried = new Tick(time, value);
+        }
+
+        /**
+         * @return false if the tick was older than the last one and had to be merged into its day
+         */
+        synchronized boolean append(long time, long value) {
+            TickBlock open = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+            if (open != null && time <= open.lastTime()) {
+                // A row seen twice, e.g. loaded at startup or announced by overlapping peer cycles
+                if (contains(time, value)) {
+                    return true;
+                }
+                merge(time, value);
+                return false;
+            }
+            if (open == null || dayOf(time) != dayOf(open.firstTime())) {
+                open = new TickBlock();
+                blocks.add(open);
+            }
+            open.append(time, value);
+            return true;
+        }
+
+        /**
+         * Re-encodes the block of the tick's day with the tick in place, after any tick of the
+         * same time, or adds a block for the day if there is none yet.
+         */
+        private void merge(long time, long value) {
+            long day = dayOf(time);
+            int index = 0;
+            while (index < blocks.size() && dayOf(blocks.get(index).firstTime()) < day) {
+                index++;
+            }
+            TickBlock merged = new TickBlock();
+            if (index == blocks.size() || dayOf(blocks.get(index).firstTime()) != day) {
+                merged.append(time, value);
+                blocks.add(index, merged);
+                return;
+            }
+            boolean[] pending = {true};
+            blocks.get(index).decode((t, v) -> {
+                if (pending[0] && t > time) {
+                    merged.append(time, value);
+                    pending[0] = false;
+                }
+                merged.append(t, v);
+                return true;
+            });
+            if (pending[0]) {
+                merged.append(time, value);
+            }
+            blocks.set(index, merged);
+        }
+
+        private static long dayOf(long time) {
+            return Math.floorDiv(time, DAY_MILLIS);
+        }
+
+        private boolean contains(long time, long value) {
+            for (TickBlock block : blocks) {
+                if (block.firstTime() <= time && time <= block.lastTime()) {
+                    boolean[] found = new boolean[1];
+                    block.decode((t, v) -> {
+                        found[0] = t == time && v == value;
+                        return !found[0] && t <= time;
+                    });
+                    if (found[0]) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        synchronized void evictBefore(long horizon) {
+            while (!blocks.isEmpty() && blocks.get(0).lastTime() < horizon) {
+                TickBlock evicted = blocks.remove(0);
+                carried = new Tick(evicted.lastTime(), evicted.lastValue());
+            }
+        }
+
+        synchronized Tick lastAtOrBefore(long at) {
+            for (int i = blocks.size() - 1; i >= 0; i--) {
+                TickBlock block = blocks.get(i);
+                if (block.firstTime() <= at) {
+                    long[] last = new long[2];
+                    block.decode((time, value) -> {
+                        if (time > at) {
+                            return false;
+                        }
+                        last[0] = time;
+                        last[1] = value;
+                        return true;
+                    });
+                    return new Tick(last[0], last[1]);
+                }
+            }
+            return carried;
+        }
+
+        synchronized Tick firstAtOrAfter(long since) {
+            for (TickBlock block : blocks) {
+                if (block.lastTime() >= since) {
+                    Tick[] first = new Tick[1];
+                    block.decode((time, value) -> {
+                        if (time < since) {
+                            return true;
+                        }
+                        first[0] = new Tick(time, value);
+                        return false;
+                    });
+                    return first[0];
+                }
+            }
+            return null;
+        }
+
+        synchronized Tick latest() {
+            if (blocks.isEmpty()) {
+                return carried;
+            }
+            TickBlock last = blocks.get(blocks.size() - 1);
+            return new Tick(last.lastTime(), last.lastValue());
+        }
+
+        synchronized long tickCount() {
+            return blocks.stream().mapToLong(TickBlock::count).sum() + (carried == null ? 0 : 1);
+        }
+
+        synchronized long sizeInBytes() {
+            return blocks.stream().mapToLong(TickBlock::sizeInBytes).sum();
+        }
+    }
+}
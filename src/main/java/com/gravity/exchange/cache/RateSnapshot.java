@@ -0,0 +1,256 @@
+package com.gravity.exchange.cache;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable, versioned set of best rates. Rates are stored in a dense square array
+ * indexed by {@code from * dimension + to}, where both indexes come from
+ * {@link CurrencyCodeRegistry}. A snapshot is never modified after publication,
+ * so readers can use it without locks.
+ */
+public final class RateSnapshot {
+
+    static final int MIN_DIMENSION = 64;
+
+    private static final RateSnapshot EMPTY = new RateSnapshot(0L, null, false, MIN_DIMENSION,
+            new RateEntry[MIN_DIMENSION * MIN_DIMENSION]);
+
+    private final long version;
+    private final LocalDateTime publishedAt;
+    private final boolean restored;
+    private final int dimension;
+    private final RateEntry[] entries;
+
+    private RateSnapshot(long version, LocalDateTime publishedAt, boolean restored, int dimension,
+                         RateEntry[] entries) {
+        this.version = version;
+        this.publishedAt = publishedAt;
+        this.restored = restored;
+        this.dimension = dimension;
+        this.entries = entries;
+    }
+
+    static RateSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the monotonically increasing version of this snapshot; 0 means nothing was published yet.
+     *
+     * @return the snapshot version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns when this snapshot was published, or null for the initial empty snapshot.
+     *
+     * @return the publish timestamp
+     */
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+
+    /**
+     * Returns whether this snapshot was restored from the snapshot file at boot rather than
+     * built from a live fetch. Restored rates are reported as stale.
+     *
+     * @return true for a restored snapshot
+     */
+    public boolean isRestored() {
+        return restored;
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    BigDecimal get(int from, int to) {
+        RateEntry entry = getEntry(from, to);
+        return entry == null ? null : entry.rate();
+    }
+
+    RateEntry getEntry(int from, int to) {
+        if (from < 0 || to < 0 || from >= dimension || to >= dimension) {
+            return null;
+        }
+        return entries[from * dimension + to];
+    }
+
+    Builder toBuilder(CurrencyCodeRegistry registry) {
+        return new Builder(registry, version, dimension, entries);
+    }
+
+    static Builder replacingBuilder(CurrencyCodeRegistry registry) {
+        return new Builder(registry, Builder.REPLACES, EMPTY.dimension, EMPTY.entries);
+    }
+
+    static int dimensionFor(int currencyCount) {
+        int dimension = MIN_DIMENSION;
+        while (dimension < currencyCount) {
+            dimension <<= 1;
+        }
+        return dimension;
+    }
+
+    /**
+     * Mutable staging area for the next snapshot. A builder is confined to the thread
+     * that fills it and is turned into a snapshot by {@link ExchangeRateCache#publish(Builder)}.
+     *
+     * <p>A builder remembers the version it was seeded from and the rates staged on it. If
+     * another snapshot was published in the meantime, the staged rates are replayed onto that
+     * snapshot, and the derivation registered with {@link #deriveWith} is run again, so the
+     * intervening publication is not lost.
+     */
+    public static final class Builder {
+
+        static final long REPLACES = -1L;
+
+        private final CurrencyCodeRegistry registry;
+        private final long baseVersion;
+        private final Map<Long, RateEntry> staged = new LinkedHashMap<>();
+        private ToIntFunction<Builder> derivation;
+        private int dimension;
+        private RateEntry[] entries;
+
+        private Builder(CurrencyCodeRegistry registry, long baseVersion, int dimension, RateEntry[] source) {
+            this.registry = registry;
+            this.baseVersion = baseVersion;
+            this.dimension = dimension;
+            this.entries = Arrays.copyOf(source, source.length);
+        }
+
+        /**
+         * Stages a single rate.
+         *
+         * @param from source currency code
+         * @param to   target currency code
+         * @param rate the exchange rate
+         * @return false if either code is not a valid 3-letter code
+         */
+        public boolean putRate(String from, String to, BigDecimal rate) {
+            int fromIndex = registry.register(from);
+            int toIndex = registry.register(to);
+            if (fromIndex == CurrencyCodeRegistry.UNKNOWN || toIndex == CurrencyCodeRegistry.UNKNOWN) {
+                return false;
+            }
+            stage(fromIndex, toIndex, RateEntry.fetched(rate, null, LocalDateTime.now()));
+            return true;
+        }
+
+        /**
+         * Stages fetched entries for one base currency.
+         *
+         * @param baseCurrency the base currency code
+         * @param entries      map of target currency to entry
+         * @return this builder
+         */
+        public Builder putEntries(String baseCurrency, Map<String, RateEntry> entries) {
+            int fromIndex = registry.register(baseCurrency);
+            if (fromIndex == CurrencyCodeRegistry.UNKNOWN) {
+                return this;
+            }
+            entries.forEach((target, entry) -> {
+                int toIndex = registry.register(target);
+                if (toIndex != CurrencyCodeRegistry.UNKNOWN) {
+                    stage(fromIndex, toIndex, entry);
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Stages all rates for one base currency.
+         *
+         * @param baseCurrency the base currency code
+         * @param rates        map of target currency to rate
+         * @return this builder
+         */
+        public Builder putRates(String baseCurrency, Map<String, BigDecimal> rates) {
+            rates.forEach((target, rate) -> putRate(baseCurrency, target, rate));
+            return this;
+        }
+
+        /**
+         * Runs a derivation over the staged rates, such as {@link RateTriangulator#fill}, and
+         * remembers it so it runs again if the builder has to be rebased at publication.
+         *
+         * @param derivation the derivation, returning the number of rates it wrote
+         * @return the number of rates the derivation wrote
+         */
+        public int deriveWith(ToIntFunction<Builder> derivation) {
+            this.derivation = derivation;
+            return derivation.applyAsInt(this);
+        }
+
+        private void stage(int from, int to, RateEntry entry) {
+            set(from, to, entry);
+            staged.put((long) from << 32 | to, entry);
+        }
+
+        void set(int from, int to, RateEntry entry) {
+            ensureCapacity(Math.max(from, to) + 1);
+            entries[from * dimension + to] = entry;
+        }
+
+        RateEntry get(int from, int to) {
+            if (from < 0 || to < 0 || from >= dimension || to >= dimension) {
+                return null;
+            }
+            return entries[from * dimension + to];
+        }
+
+        int currencyCount() {
+            return Math.min(registry.size(), dimension);
+        }
+
+        CurrencyCodeRegistry registry() {
+            return registry;
+        }
+
+        void ensureCapacity(int currencyCount) {
+            if (currencyCount <= dimension) {
+                return;
+            }
+            int grownDimension = dimensionFor(currencyCount);
+            RateEntry[] grown = new RateEntry[grownDimension * grownDimension];
+            for (int from = 0; from < dimension; from++) {
+                System.arraycopy(entries, from * dimension, grown, from * grownDimension, dimension);
+            }
+            dimension = grownDimension;
+            entries = grown;
+        }
+
+        /**
+         * Returns whether the builder can be published on top of the given version as it is:
+         * it was seeded from that version, or it replaces every rate anyway.
+         */
+        boolean isBasedOn(long version) {
+            return baseVersion == REPLACES || baseVersion == version;
+        }
+
+        /**
+         * Returns a builder seeded from the given snapshot with the rates staged here replayed
+         * on top and the registered derivation run again.
+         */
+        Builder rebaseOnto(RateSnapshot current) {
+            Builder rebased = new Builder(registry, current.version, current.dimension, current.entries);
+            rebased.ensureCapacity(dimension);
+            staged.forEach((cell, entry) -> rebased.stage((int) (cell >>> 32), (int) (long) cell, entry));
+            if (derivation != null) {
+                rebased.deriveWith(derivation);
+            }
+            return rebased;
+        }
+
+        RateSnapshot build(long version, LocalDateTime publishedAt, boolean restored) {
+            return new RateSnapshot(version, publishedAt, restored, dimension, Arrays.copyOf(entries, entries.length));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.gravity.exchange.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists the fetched rates of the current snapshot to a binary file after each fetch cycle and
+ * maps it back in at boot, so conversions can be answered before the first live fetch completes.
+ */
+@Slf4j
+@Component
+public class RateSnapshotStore {
+
+    // Big-endian: header, currency codes, source names, then one entry per fetched rate.
+    // Derived rates are not stored; the RateTriangulator rebuilds them on restore.
+    private static final int MAGIC = 0x47525853; // "GRXS"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8;
+    private static final int ENTRY_BYTES = 2 + 2 + 8 + 1 + 2 + 8;
+    private static final short NO_SOURCE = -1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final ExchangeRateCache exchangeRateCache;
+    private final RateTriangulator rateTriangulator;
+    private final boolean enabled;
+    private final Path path;
+
+    public RateSnapshotStore(ExchangeRateCache exchangeRateCache,
+                             RateTriangulator rateTriangulator,
+                             @Value("${exchange.cache.snapshot-file.enabled:false}") boolean enabled,
+                             @Value("${exchange.cache.snapshot-file.path:data/rate-snapshot.bin}") String path) {
+        this.exchangeRateCache = exchangeRateCache;
+        this.rateTriangulator = rateTriangulator;
+        this.enabled = enabled;
+        this.path = Path.of(path);
+    }
+
+    /**
+     * Restores the last persisted snapshot into the cache during startup, before the
+     * web server accepts requests.
+     */
+    @PostConstruct
+    void restoreOnStartup() {
+        if (enabled) {
+            restore();
+        }
+    }
+
+    /**
+     * Maps the snapshot file and publishes its rates as a restored snapshot.
+     *
+     * @return true if a snapshot was restored
+     */
+    public boolean restore() {
+        if (!Files.isRegularFile(path)) {
+            log.info("No rate snapshot file at {}, starting cold", path);
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                log.warn("Ignoring rate snapshot file {} with unknown format", path);
+                return false;
+            }
+            long version = buffer.getLong();
+            LocalDateTime publishedAt = fromMillis(buffer.getLong());
+
+            CurrencyCodeRegistry registry = exchangeRateCache.registry();
+            int[] indexes = new int[buffer.getInt()];
+            byte[] code = new byte[3];
+            for (int i = 0; i < indexes.length; i++) {
+                buffer.get(code);
+                indexes[i] = registry.register(new String(code, StandardCharsets.US_ASCII));
+            }
+
+            String[] sources = new String[buffer.getInt()];
+            for (int i = 0; i < sources.length; i++) {
+                byte[] bytes = new byte[buffer.getShort()];
+                buffer.get(bytes);
+                sources[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            RateSnapshot.Builder builder = exchangeRateCache.newEmptySnapshotBuilder();
+            int entryCount = buffer.getInt();
+            for (int i = 0; i < entryCount; i++) {
+                int from = indexes[buffer.getShort()];
+                int to = indexes[buffer.getShort()];
+                BigDecimal rate = BigDecimal.valueOf(buffer.getLong(), buffer.get());
+                short sourceIndex = buffer.getShort();
+                LocalDateTime fetchedAt = fromMillis(buffer.getLong());
+                if (from == CurrencyCodeRegistry.UNKNOWN || to == CurrencyCodeRegistry.UNKNOWN) {
+                    continue;
+                }
+                builder.set(from, to, RateEntry.fetched(rate,
+                        sourceIndex == NO_SOURCE ? null : sources[sourceIndex], fetchedAt));
+            }
+            rateTriangulator.fill(builder);
+            exchangeRateCache.publishRestored(builder, version, publishedAt);
+            log.info("Restored {} rates from {}", entryCount, path);
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Failed to restore rate snapshot from {}: {}", path, ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes the fetched rates of a snapshot to the snapshot file. The file is written next to
+     * the target and moved into place, so a crash never leaves a half-written snapshot behind.
+     *
+     * @param snapshot the snapshot to persist
+     */
+    public void save(RateSnapshot snapshot) {
+        if (!enabled) {
+            return;
+        }
+        CurrencyCodeRegistry registry = exchangeRateCache.registry();
+        int count = Math.min(registry.size(), snapshot.dimension());
+        Map<String, Short> sourceIndexes = new LinkedHashMap<>();
+        List<int[]> pairs = new ArrayList<>();
+        for (int from = 0; from < count; from++) {
+            for (int to = 0; to < count; to++) {
+                RateEntry entry = snapshot.getEntry(from, to);
+                if (entry != null && !entry.isDerived() && fitsLong(entry.rate())) {
+                    pairs.add(new int[]{from, to});
+                    if (entry.source() != null) {
+                        sourceIndexes.putIfAbsent(entry.source(), (short) sourceIndexes.size());
+                    }
+                }
+            }
+        }
+
+        byte[][] sourceBytes = sourceIndexes.keySet().stream()
+                .map(s -> s.getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+        long size = HEADER_BYTES + 4 + 3L * count + 4 + 4 + (long) ENTRY_BYTES * pairs.size();
+        for (byte[] bytes : sourceBytes) {
+            size += 2 + bytes.length;
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC).putInt(FORMAT)
+                        .putLong(snapshot.getVersion())
+                        .putLong(toMillis(snapshot.getPublishedAt()));
+                buffer.putInt(count);
+                for (int i = 0; i < count; i++) {
+                    buffer.put(registry.codeAt(i).getBytes(StandardCharsets.US_ASCII));
+                }
+                buffer.putInt(sourceBytes.length);
+                for (byte[] bytes : sourceBytes) {
+                    buffer.putShort((short) bytes.length).put(bytes);
+                }
+                buffer.putInt(pairs.size());
+                for (int[] pair : pairs) {
+                    writeEntry(buffer, pair[0], pair[1], snapshot.getEntry(pair[0], pair[1]), sourceIndexes);
+                }
+                buffer.force();
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Saved {} rates of snapshot v{} to {}", pairs.size(), snapshot.getVersion(), path);
+        } catch (IOException ex) {
+            log.warn("Failed to save rate snapshot to {}: {}", path, ex.getMessage());
+        }
+    }
+
+    private void writeEntry(ByteBuffer buffer, int from, int to, RateEntry entry, Map<String, Short> sourceIndexes) {
+        buffer.putShort((short) from)
+                .putShort((short) to)
+                .putLong(entry.rate().unscaledValue().longValue())
+                .put((byte) entry.rate().scale())
+                .putShort(entry.source() == null ? NO_SOURCE : sourceIndexes.get(entry.source()))
+                .putLong(toMillis(entry.fetchedAt()));
+    }
+
+    private boolean fitsLong(BigDecimal rate) {
+        return rate.unscaledValue().bitLength() < Long.SIZE
+                && rate.scale() >= Byte.MIN_VALUE && rate.scale() <= Byte.MAX_VALUE;
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private LocalDateTime fromMillis(long millis) {
+        return millis == NO_TIME ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,187 @@
+package com.gravity.exchange.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Fills gaps in a staged {@link RateSnapshot} with derived rates: the inverse of a fetched
+ * pair (EUR->USD as 1/(USD->EUR)) or a cross rate through one of the configured pivot
+ * currencies (EUR->JPY via USD). Only directly fetched rates are used as legs, so a derived
+ * rate is never built on top of another derived rate.
+ */
+@Slf4j
+@Component
+public class RateTriangulator {
+
+    private static final int SCALE = 8;
+
+    private final boolean enabled;
+    private final boolean fetchPivotsOnly;
+    private final List<String> pivots;
+
+    public RateTriangulator(@Value("${exchange.triangulation.enabled:true}") boolean enabled,
+                            @Value("${exchange.triangulation.fetch-pivots-only:false}") boolean fetchPivotsOnly,
+                            @Value("${exchange.triangulation.pivots:USD,EUR}") List<String> pivots) {
+        this.enabled = enabled;
+        this.fetchPivotsOnly = enabled && fetchPivotsOnly;
+        this.pivots = pivots.stream()
+                .map(p -> p.trim().toUpperCase())
+                .filter(p -> !p.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns whether triangulation is enabled.
+     *
+     * @return true if derived rates are filled in
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the configured pivot currencies, in order of preference.
+     *
+     * @return pivot currency codes
+     */
+    public List<String> getPivots() {
+        return pivots;
+    }
+
+    /**
+     * Selects the base currencies the scheduler has to fetch. In pivot-only mode these are
+     * the active pivots, and every other pair is derived; otherwise all active currencies.
+     *
+     * @param activeCurrencies the active currency codes
+     * @return the base currencies to fetch
+     */
+    public List<String> selectFetchBases(List<String> activeCurrencies) {
+        if (!fetchPivotsOnly) {
+            return activeCurrencies;
+        }
+        List<String> activePivots = activeCurrencies.stream()
+                .filter(pivots::contains)
+                .collect(Collectors.toList());
+        return activePivots.isEmpty() ? activeCurrencies : activePivots;
+    }
+
+    /**
+     * Replaces every derived entry in the builder with a freshly derived one and fills
+     * every pair that has no fetched rate, where a derivation exists.
+     *
+     * @param builder the staged snapshot
+     * @return the number of derived rates written
+     */
+    public int fill(RateSnapshot.Builder builder) {
+        if (!enabled) {
+            return 0;
+        }
+        CurrencyCodeRegistry registry = builder.registry();
+        int count = builder.currencyCount();
+        int[] pivotIndexes = pivots.stream()
+                .mapToInt(registry::indexOf)
+                .filter(i -> i != CurrencyCodeRegistry.UNKNOWN && i < count)
+                .toArray();
+
+        clearDerived(builder, count);
+
+        int derived = 0;
+        for (int from = 0; from < count; from++) {
+            for (int to = 0; to < count; to++) {
+                if (from == to || builder.get(from, to) != null) {
+                    continue;
+                }
+                RateEntry entry = derive(builder, registry, pivotIndexes, from, to);
+                if (entry != null) {
+                    builder.set(from, to, entry);
+                    derived++;
+                }
+            }
+        }
+        log.debug("Derived {} rates via pivots {}", derived, pivots);
+        return derived;
+    }
+
+    private RateEntry derive(RateSnapshot.Builder builder, CurrencyCodeRegistry registry,
+                             int[] pivotIndexes, int from, int to) {
+        RateEntry reverse = fetched(builder, to, from);
+        if (reverse != null && reverse.rate().signum() != 0) {
+            return new RateEntry(invert(reverse.rate()),
+                    "1/(" + registry.codeAt(to) + "->" + registry.codeAt(from) + ")",
+                    reverse.source(), reverse.fetchedAt());
+        }
+        for (int pivot : pivotIndexes) {
+            if (pivot == from || pivot == to) {
+                continue;
+            }
+            RateEntry firstLeg = fetchedOrInverse(builder, from, pivot);
+            RateEntry secondLeg = fetchedOrInverse(builder, pivot, to);
+            if (firstLeg != null && secondLeg != null) {
+                BigDecimal cross = firstLeg.rate().multiply(secondLeg.rate()).setScale(SCALE, RoundingMode.HALF_UP);
+                return new RateEntry(cross,
+                        registry.codeAt(from) + "->" + registry.codeAt(pivot) + "->" + registry.codeAt(to),
+                        combineSources(firstLeg.source(), secondLeg.source()),
+                        oldest(firstLeg.fetchedAt(), secondLeg.fetchedAt()));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the fetched rate for the pair, or the inverse of the fetched reverse pair,
+     * carrying over the source and fetch time of the fetched entry.
+     */
+    private RateEntry fetchedOrInverse(RateSnapshot.Builder builder, int from, int to) {
+        RateEntry direct = fetched(builder, from, to);
+        if (direct != null) {
+            return direct;
+        }
+        RateEntry reverse = fetched(builder, to, from);
+        if (reverse == null || reverse.rate().signum() == 0) {
+            return null;
+        }
+        return new RateEntry(invert(reverse.rate()), null, reverse.source(), reverse.fetchedAt());
+    }
+
+    private RateEntry fetched(RateSnapshot.Builder builder, int from, int to) {
+        RateEntry entry = builder.get(from, to);
+        return entry == null || entry.isDerived() ? null : entry;
+    }
+
+    private BigDecimal invert(BigDecimal rate) {
+        return BigDecimal.ONE.divide(rate, SCALE, RoundingMode.HALF_UP);
+    }
+
+    private String combineSources(String first, String second) {
+        if (first == null || first.equals(second)) {
+            return second;
+        }
+        return second == null ? first : first + "+" + second;
+    }
+
+    private LocalDateTime oldest(LocalDateTime first, LocalDateTime second) {
+        if (first == null || second == null) {
+            return first == null ? second : first;
+        }
+        return first.isBefore(second) ? first : second;
+    }
+
+    private void clearDerived(RateSnapshot.Builder builder, int count) {
+        for (int from = 0; from < count; from++) {
+            for (int to = 0; to < count; to++) {
+                RateEntry entry = builder.get(from, to);
+                if (entry != null && entry.isDerived()) {
+                    builder.set(from, to, null);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.gravity.exchange.cache;
+
+import java.util.Arrays;
+
+/**
+ * Append-only block of (time, value) ticks compressed as in Facebook's Gorilla paper. Times are
+ * epoch milliseconds stored as delta-of-delta, values are rates in 1e-8 units stored as the XOR
+ * with the previous value. Regular fetch cadences and rates that rarely change take a bit or two
+ * per field, instead of the sixteen bytes of a plain (long, long) pair.
+ *
+ * <p>Delta-of-delta control codes: {@code 0} none, {@code 10} 7 bits, {@code 110} 9 bits,
+ * {@code 1110} 12 bits, {@code 11110} 32 bits, {@code 11111} 64 bits. Value codes: {@code 0}
+ * same value, {@code 10} XOR inside the previous meaningful-bit window, {@code 11} 6 bits of
+ * leading zeros, 6 bits of window length minus one, then the window.
+ *
+ * <p>Not thread-safe; callers synchronise appends and reads.
+ */
+final class TickBlock {
+
+    /**
+     * Receives decoded ticks in time order.
+     */
+    @FunctionalInterface
+    interface TickVisitor {
+
+        /**
+         * @return false to stop decoding
+         */
+        boolean visit(long time, long value);
+    }
+
+    private static final int[] DOD_BITS = {0, 7, 9, 12, 32, 64};
+    private static final int MAX_CONTROL_ONES = DOD_BITS.length - 1;
+
+    private long[] words = new long[4];
+    private int bitLength;
+    private int count;
+
+    private long firstTime;
+    private long lastTime;
+    private long lastValue;
+    private long lastDelta;
+    private int lastLeading = -1;
+    private int lastTrailing;
+
+    /**
+     * Appends a tick. Times must not decrease.
+     */
+    void append(long time, long value) {
+        if (count == 0) {
+            firstTime = time;
+            writeBits(time, 64);
+            writeBits(value, 64);
+        } else {
+            long delta = time - lastTime;
+            writeDeltaOfDelta(delta - lastDelta);
+            writeValue(value ^ lastValue);
+            lastDelta = delta;
+        }
+        lastTime = time;
+        lastValue = value;
+        count++;
+    }
+
+    /**
+     * Decodes the ticks in time order until the visitor asks to stop.
+     */
+    void decode(TickVisitor visitor) {
+        if (count == 0) {
+            return;
+        }
+        Reader reader = new Reader();
+        long time = reader.read(64);
+        long value = reader.read(64);
+        if (!visitor.visit(time, value)) {
+            return;
+        }
+        long delta = 0;
+        int leading = 0;
+        int meaningful = 0;
+        for (int i = 1; i < count; i++) {
+            int ones = 0;
+            while (ones < MAX_CONTROL_ONES && reader.read(1) == 1) {
+                ones++;
+            }
+            int bits = DOD_BITS[ones];
+            if (bits > 0) {
+                long raw = reader.read(bits);
+                delta += bits == 64 ? raw : (raw << (64 - bits)) >> (64 - bits);
+            }
+            time += delta;
+
+            if (reader.read(1) == 1) {
+                if (reader.read(1) == 1) {
+                    leading = (int) reader.read(6);
+                    meaningful = (int) reader.read(6) + 1;
+                }
+                value ^= reader.read(meaningful) << (64 - leading - meaningful);
+            }
+            if (!visitor.visit(time, value)) {
+                return;
+            }
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    long firstTime() {
+        return firstTime;
+    }
+
+    long lastTime() {
+        return lastTime;
+    }
+
+    long lastValue() {
+        return lastValue;
+    }
+
+    /**
+     * Returns the heap taken by the encoded bits.
+     */
+    int sizeInBytes() {
+        return words.length * Long.BYTES;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        for (int ones = 0; ones < MAX_CONTROL_ONES; ones++) {
+            int bits = DOD_BITS[ones];
+            if (bits == 0 ? dod == 0 : fitsSigned(dod, bits)) {
+                // ones 1-bits followed by a terminating 0
+                writeBits(((1L << ones) - 1) << 1, ones + 1);
+                writeBits(dod, bits);
+                return;
+            }
+        }
+        writeBits((1L << MAX_CONTROL_ONES) - 1, MAX_CONTROL_ONES);
+        writeBits(dod, 64);
+    }
+
+    private void writeValue(long xor) {
+        if (xor == 0) {
+            writeBits(0, 1);
+            return;
+        }
+        int leading = Long.numberOfLeadingZeros(xor);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (lastLeading >= 0 && leading >= lastLeading && trailing >= lastTrailing) {
+            writeBits(0b10, 2);
+            writeBits(xor >>> lastTrailing, 64 - lastLeading - lastTrailing);
+            return;
+        }
+        int meaningful = 64 - leading - trailing;
+        writeBits(0b11, 2);
+        writeBits(leading, 6);
+        writeBits(meaningful - 1, 6);
+        writeBits(xor >>> trailing, meaningful);
+        lastLeading = leading;
+        lastTrailing = trailing;
+    }
+
+    private static boolean fitsSigned(long value, int bits) {
+        long limit = 1L << (bits - 1);
+        return value >= -limit && value < limit;
+    }
+
+    /**
+     * Writes the low {@code bits} bits of the value, most significant first.
+     */
+    private void writeBits(long value, int bits) {
+        if (bits == 0) {
+            return;
+        }
+        if (bitLength + bits > words.length * 64L) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        long masked = bits == 64 ? value : value & ((1L << bits) - 1);
+        int index = bitLength >>> 6;
+        int free = 64 - (bitLength & 63);
+        if (bits <= free) {
+            words[index] |= masked << (free - bits);
+        } else {
+            int spill = bits - free;
+            words[index] |= masked >>> spill;
+            words[index + 1] |= masked << (64 - spill);
+        }
+        bitLength += bits;
+    }
+
+    private final class Reader {
+
+        private int position;
+
+        long read(int bits) {
+            int index = position >>> 6;
+            int offset = position & 63;
+            int available = 64 - offset;
+            long result;
+            if (bits <= available) {
+                result = (words[index] << offset) >>> (64 - bits);
+            } else {
+                int spill = bits - available;
+                long high = (words[index] << offset) >>> offset;
+                result = (high << spill) | (words[index + 1] >>> (64 - spill));
+            }
+            position += bits;
+            return result;
+        }
+    }
+}
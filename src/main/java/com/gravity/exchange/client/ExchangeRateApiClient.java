@@ -1,13 +1,16 @@
 package com.gravity.exchange.client;
 
 import com.gravity.exchange.client.dto.ErApiResponse;
+import com.gravity.exchange.config.ProviderHttpClients;
 import com.gravity.exchange.exception.ExternalApiException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
@@ -19,33 +22,71 @@ import java.util.stream.Collectors;
 public class ExchangeRateApiClient implements ExchangeRateProvider {
 
     private static final String PROVIDER_NAME = "EXCHANGERATE_API";
+    private static final ProviderCapabilities CAPABILITIES = new ProviderCapabilities(true, Set.of());
     private final RestClient restClient;
+    private final Duration refreshInterval;
+    private final boolean streamingParse;
+    private final HttpValidators validators = new HttpValidators();
 
     public ExchangeRateApiClient(@Value("${exchange.providers.exchangerate-api.url}") String baseUrl,
-                                  RestClient.Builder restClientBuilder) {
-        this.restClient = restClientBuilder.baseUrl(baseUrl).build();
+                                  @Value("${exchange.providers.exchangerate-api.refresh-interval:PT1H}")
+                                  Duration refreshInterval,
+                                  @Value("${exchange.fetch.streaming-parse:true}") boolean streamingParse,
+                                  ProviderHttpClients httpClients) {
+        this.restClient = httpClients.builder("exchangerate-api", PROVIDER_NAME, baseUrl).build();
+        this.refreshInterval = refreshInterval;
+        this.streamingParse = streamingParse;
     }
 
     @Override
     public Map<String, BigDecimal> fetchRates(String baseCurrency, Set<String> targetCurrencies) {
+        return fetch(baseCurrency, targetCurrencies, false).rates();
+    }
+
+    @Override
+    public ProviderResponse fetchRatesIfModified(String baseCurrency, Set<String> targetCurrencies) {
+        return fetch(baseCurrency, targetCurrencies, true);
+    }
+
+    private ProviderResponse fetch(String baseCurrency, Set<String> targetCurrencies, boolean conditional) {
         if (targetCurrencies.isEmpty()) {
-            return Collections.emptyMap();
+            return ProviderResponse.of(Collections.emptyMap());
         }
 
+        // The targets are filtered locally, so they are part of what a validator was issued for
+        String key = baseCurrency + ":" + targetCurrencies.stream().sorted().collect(Collectors.joining(","));
         try {
             log.info("Fetching rates from ExchangeRate-API: base={}", baseCurrency);
-            ErApiResponse response = restClient.get()
+            RestClient.RequestHeadersSpec<?> request = restClient.get()
                     .uri("/v6/latest/{base}", baseCurrency)
-                    .retrieve()
-                    .body(ErApiResponse.class);
+                    .headers(conditional ? validators.conditionalHeaders(key) : headers -> { });
+            if (streamingParse) {
+                return request.exchange((req, response) -> {
+                    if (validators.isNotModified(key, response.getStatusCode())) {
+                        log.info("ExchangeRate-API rates unchanged: base={}", baseCurrency);
+                        return ProviderResponse.unchanged();
+                    }
+                    Map<String, BigDecimal> rates = StreamingRatesParser.parse(response, baseCurrency,
+                            targetCurrencies);
+                    validators.remember(key, response.getHeaders());
+                    return ProviderResponse.of(rates);
+                });
+            }
+
+            ResponseEntity<ErApiResponse> response = request.retrieve().toEntity(ErApiResponse.class);
+            if (validators.isNotModified(key, response.getStatusCode())) {
+                log.info("ExchangeRate-API rates unchanged: base={}", baseCurrency);
+                return ProviderResponse.unchanged();
+            }
+            validators.remember(key, response.getHeaders());
 
-            return Optional.ofNullable(response)
+            return ProviderResponse.of(Optional.ofNullable(response.getBody())
                     .map(ErApiResponse::getRates)
                     .map(rates -> rates.entrySet().stream()
                             .filter(e -> targetCurrencies.contains(e.getKey()))
                             .filter(e -> !e.getKey().equals(baseCurrency))
                             .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
-                    .orElse(Collections.emptyMap());
+                    .orElse(Collections.emptyMap()));
         } catch (Exception ex) {
             log.error("Failed to fetch rates from ExchangeRate-API: {}", ex.getMessage());
             throw new ExternalApiException(PROVIDER_NAME, ex.getMessage(), ex);
@@ -56,4 +97,17 @@ public class ExchangeRateApiClient implements ExchangeRateProvider {
     public String getProviderName() {
         return PROVIDER_NAME;
     }
+
+    /**
+     * The open endpoint returns the full table for a base and updates it once a day.
+     */
+    @Override
+    public ProviderCapabilities getCapabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
 }
@@ -1,6 +1,7 @@
 package com.gravity.exchange.client;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
 
@@ -18,10 +19,40 @@ public interface ExchangeRateProvider {
      */
     Map<String, BigDecimal> fetchRates(String baseCurrency, Set<String> targetCurrencies);
 
+    /**
+     * Fetches exchange rates, sending the validators of the previous response for the same
+     * request so that unchanged upstream data is answered with 304 Not Modified.
+     *
+     * @param baseCurrency     the base currency code (e.g., "USD")
+     * @param targetCurrencies the set of target currency codes
+     * @return the fetched rates, or a not-modified response
+     */
+    default ProviderResponse fetchRatesIfModified(String baseCurrency, Set<String> targetCurrencies) {
+        return ProviderResponse.of(fetchRates(baseCurrency, targetCurrencies));
+    }
+
     /**
      * Returns the name of this provider for identification and logging.
      *
      * @return the provider name
      */
     String getProviderName();
+
+    /**
+     * Returns what this provider supports, used to plan the requests of a fetch cycle.
+     *
+     * @return the provider capabilities
+     */
+    default ProviderCapabilities getCapabilities() {
+        return ProviderCapabilities.DEFAULT;
+    }
+
+    /**
+     * Returns how often scheduled cycles should call this provider.
+     *
+     * @return the refresh interval; zero means every scheduled cycle
+     */
+    default Duration getRefreshInterval() {
+        return Duration.ZERO;
+    }
 }
@@ -1,13 +1,16 @@
 package com.gravity.exchange.client;
 
 import com.gravity.exchange.client.dto.FrankfurterResponse;
+import com.gravity.exchange.config.ProviderHttpClients;
 import com.gravity.exchange.exception.ExternalApiException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
@@ -19,37 +22,63 @@ import java.util.stream.Collectors;
 public class FrankfurterClient implements ExchangeRateProvider {
 
     private static final String PROVIDER_NAME = "FRANKFURTER";
+    private static final ProviderCapabilities CAPABILITIES = new ProviderCapabilities(true, Set.of(
+            "AUD", "BGN", "BRL", "CAD", "CHF", "CNY", "CZK", "DKK", "EUR", "GBP",
+            "HKD", "HUF", "IDR", "ILS", "INR", "ISK", "JPY", "KRW", "MXN", "MYR", "NOK", "NZD", "PHP", "PLN",
+            "RON", "SEK", "SGD", "THB", "TRY", "USD", "ZAR"));
     private final RestClient restClient;
+    private final Duration refreshInterval;
+    private final HttpValidators validators = new HttpValidators();
 
     public FrankfurterClient(@Value("${exchange.providers.frankfurter.url}") String baseUrl,
-                             RestClient.Builder restClientBuilder) {
-        this.restClient = restClientBuilder.baseUrl(baseUrl).build();
+                             @Value("${exchange.providers.frankfurter.refresh-interval:PT1H}") Duration refreshInterval,
+                             ProviderHttpClients httpClients) {
+        this.restClient = httpClients.builder("frankfurter", PROVIDER_NAME, baseUrl).build();
+        this.refreshInterval = refreshInterval;
     }
 
     @Override
     public Map<String, BigDecimal> fetchRates(String baseCurrency, Set<String> targetCurrencies) {
+        return fetch(baseCurrency, targetCurrencies, false).rates();
+    }
+
+    @Override
+    public ProviderResponse fetchRatesIfModified(String baseCurrency, Set<String> targetCurrencies) {
+        return fetch(baseCurrency, targetCurrencies, true);
+    }
+
+    private ProviderResponse fetch(String baseCurrency, Set<String> targetCurrencies, boolean conditional) {
         if (targetCurrencies.isEmpty()) {
-            return Collections.emptyMap();
+            return ProviderResponse.of(Collections.emptyMap());
         }
 
         String symbols = targetCurrencies.stream()
                 .filter(c -> !c.equals(baseCurrency))
+                .sorted()
                 .collect(Collectors.joining(","));
 
         if (symbols.isEmpty()) {
-            return Collections.emptyMap();
+            return ProviderResponse.of(Collections.emptyMap());
         }
 
+        String key = baseCurrency + ":" + symbols;
         try {
             log.info("Fetching rates from Frankfurter: base={}, symbols={}", baseCurrency, symbols);
-            FrankfurterResponse response = restClient.get()
+            ResponseEntity<FrankfurterResponse> response = restClient.get()
                     .uri("/v1/latest?base={base}&symbols={symbols}", baseCurrency, symbols)
+                    .headers(conditional ? validators.conditionalHeaders(key) : headers -> { })
                     .retrieve()
-                    .body(FrankfurterResponse.class);
+                    .toEntity(FrankfurterResponse.class);
+
+            if (validators.isNotModified(key, response.getStatusCode())) {
+                log.info("Frankfurter rates unchanged: base={}", baseCurrency);
+                return ProviderResponse.unchanged();
+            }
+            validators.remember(key, response.getHeaders());
 
-            return Optional.ofNullable(response)
+            return ProviderResponse.of(Optional.ofNullable(response.getBody())
                     .map(FrankfurterResponse::getRates)
-                    .orElse(Collections.emptyMap());
+                    .orElse(Collections.emptyMap()));
         } catch (Exception ex) {
             log.error("Failed to fetch rates from Frankfurter: {}", ex.getMessage());
             throw new ExternalApiException(PROVIDER_NAME, ex.getMessage(), ex);
@@ -60,4 +89,17 @@ public class FrankfurterClient implements ExchangeRateProvider {
     public String getProviderName() {
         return PROVIDER_NAME;
     }
+
+    /**
+     * Frankfurter serves ECB reference rates, published once per working day.
+     */
+    @Override
+    public ProviderCapabilities getCapabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
 }
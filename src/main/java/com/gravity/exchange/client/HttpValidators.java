@@ -0,0 +1,60 @@
+package com.gravity.exchange.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Remembers the ETag and Last-Modified validators of the last response per request key and
+ * turns them into If-None-Match / If-Modified-Since headers for the next request, so an
+ * unchanged upstream resource costs a 304 without a body.
+ */
+class HttpValidators {
+
+    private final Map<String, Validator> byKey = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a header customiser that adds the conditional headers for the key, if any.
+     */
+    Consumer<HttpHeaders> conditionalHeaders(String key) {
+        Validator validator = byKey.get(key);
+        return headers -> {
+            if (validator == null) {
+                return;
+            }
+            if (validator.etag() != null) {
+                headers.setIfNoneMatch(validator.etag());
+            }
+            if (validator.lastModified() != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, validator.lastModified());
+            }
+        };
+    }
+
+    /**
+     * Returns whether the response is a 304 for a request that carried validators.
+     */
+    boolean isNotModified(String key, HttpStatusCode status) {
+        return status.isSameCodeAs(HttpStatus.NOT_MODIFIED) && byKey.containsKey(key);
+    }
+
+    /**
+     * Stores the validators of a full response; forgets them if the response has none.
+     */
+    void remember(String key, HttpHeaders responseHeaders) {
+        String etag = responseHeaders.getETag();
+        String lastModified = responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED);
+        if (etag == null && lastModified == null) {
+            byKey.remove(key);
+        } else {
+            byKey.put(key, new Validator(etag, lastModified));
+        }
+    }
+
+    private record Validator(String etag, String lastModified) {
+    }
+}
@@ -1,11 +1,14 @@
 package com.gravity.exchange.client;
 
 import com.gravity.exchange.client.dto.MockProviderResponse;
+import com.gravity.exchange.config.ProviderHttpClients;
 import com.gravity.exchange.exception.ExternalApiException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClient;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
@@ -15,34 +18,71 @@ import java.util.stream.Collectors;
 @Slf4j
 public class MockProviderClient implements ExchangeRateProvider {
 
+    private static final ProviderCapabilities CAPABILITIES = new ProviderCapabilities(true, Set.of());
+
     private final String providerName;
     private final RestClient restClient;
+    private final Duration refreshInterval;
+    private final boolean streamingParse;
+    private final HttpValidators validators = new HttpValidators();
 
-    public MockProviderClient(String providerName, String baseUrl, RestClient.Builder restClientBuilder) {
+    public MockProviderClient(String providerName, String configKey, String baseUrl, Duration refreshInterval,
+                              boolean streamingParse, ProviderHttpClients httpClients) {
         this.providerName = providerName;
-        this.restClient = restClientBuilder.baseUrl(baseUrl).build();
+        this.restClient = httpClients.builder(configKey, providerName, baseUrl).build();
+        this.refreshInterval = refreshInterval;
+        this.streamingParse = streamingParse;
     }
 
     @Override
     public Map<String, BigDecimal> fetchRates(String baseCurrency, Set<String> targetCurrencies) {
+        return fetch(baseCurrency, targetCurrencies, false).rates();
+    }
+
+    @Override
+    public ProviderResponse fetchRatesIfModified(String baseCurrency, Set<String> targetCurrencies) {
+        return fetch(baseCurrency, targetCurrencies, true);
+    }
+
+    private ProviderResponse fetch(String baseCurrency, Set<String> targetCurrencies, boolean conditional) {
         if (targetCurrencies.isEmpty()) {
-            return Collections.emptyMap();
+            return ProviderResponse.of(Collections.emptyMap());
         }
 
+        // The targets are filtered locally, so they are part of what a validator was issued for
+        String key = baseCurrency + ":" + targetCurrencies.stream().sorted().collect(Collectors.joining(","));
         try {
             log.info("Fetching rates from {}: base={}", providerName, baseCurrency);
-            MockProviderResponse response = restClient.get()
+            RestClient.RequestHeadersSpec<?> request = restClient.get()
                     .uri("/api/rates?base={base}", baseCurrency)
-                    .retrieve()
-                    .body(MockProviderResponse.class);
+                    .headers(conditional ? validators.conditionalHeaders(key) : headers -> { });
+            if (streamingParse) {
+                return request.exchange((req, response) -> {
+                    if (validators.isNotModified(key, response.getStatusCode())) {
+                        log.info("{} rates unchanged: base={}", providerName, baseCurrency);
+                        return ProviderResponse.unchanged();
+                    }
+                    Map<String, BigDecimal> rates = StreamingRatesParser.parse(response, baseCurrency,
+                            targetCurrencies);
+                    validators.remember(key, response.getHeaders());
+                    return ProviderResponse.of(rates);
+                });
+            }
+
+            ResponseEntity<MockProviderResponse> response = request.retrieve().toEntity(MockProviderResponse.class);
+            if (validators.isNotModified(key, response.getStatusCode())) {
+                log.info("{} rates unchanged: base={}", providerName, baseCurrency);
+                return ProviderResponse.unchanged();
+            }
+            validators.remember(key, response.getHeaders());
 
-            return Optional.ofNullable(response)
+            return ProviderResponse.of(Optional.ofNullable(response.getBody())
                     .map(MockProviderResponse::getRates)
                     .map(rates -> rates.entrySet().stream()
                             .filter(e -> targetCurrencies.contains(e.getKey()))
                             .filter(e -> !e.getKey().equals(baseCurrency))
                             .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
-                    .orElse(Collections.emptyMap());
+                    .orElse(Collections.emptyMap()));
         } catch (Exception ex) {
             log.error("Failed to fetch rates from {}: {}", providerName, ex.getMessage());
             throw new ExternalApiException(providerName, ex.getMessage(), ex);
@@ -53,4 +93,17 @@ public class MockProviderClient implements ExchangeRateProvider {
     public String getProviderName() {
         return providerName;
     }
+
+    /**
+     * The mock providers return their whole rate table for a base and take no filter.
+     */
+    @Override
+    public ProviderCapabilities getCapabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
 }
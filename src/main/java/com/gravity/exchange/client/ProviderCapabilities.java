@@ -0,0 +1,37 @@
+package com.gravity.exchange.client;
+
+import java.util.Set;
+
+/**
+ * Declares what an {@link ExchangeRateProvider} can do, so the fetch planner can issue as
+ * few requests per cycle as possible.
+ *
+ * <p>How often a provider is called is set per provider with
+ * {@link ExchangeRateProvider#getRefreshInterval()}.
+ *
+ * @param returnsAllForBase   whether one request returns the rates of a base against every
+ *                            currency the provider supports
+ * @param supportedCurrencies currencies the provider quotes; empty if it quotes any code
+ */
+public record ProviderCapabilities(boolean returnsAllForBase, Set<String> supportedCurrencies) {
+
+    /**
+     * Capabilities assumed for providers that do not declare any: one request per base,
+     * any currency.
+     */
+    public static final ProviderCapabilities DEFAULT = new ProviderCapabilities(false, Set.of());
+
+    public ProviderCapabilities {
+        supportedCurrencies = Set.copyOf(supportedCurrencies);
+    }
+
+    /**
+     * Returns whether the provider quotes the given currency.
+     *
+     * @param code currency code
+     * @return true if the code is supported
+     */
+    public boolean supports(String code) {
+        return supportedCurrencies.isEmpty() || supportedCurrencies.contains(code);
+    }
+}
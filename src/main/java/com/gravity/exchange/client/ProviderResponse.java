@@ -0,0 +1,34 @@
+package com.gravity.exchange.client;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Result of a conditional provider request.
+ *
+ * @param rates       the fetched rates by target currency; empty when not modified
+ * @param notModified whether the provider answered 304 Not Modified
+ */
+public record ProviderResponse(Map<String, BigDecimal> rates, boolean notModified) {
+
+    private static final ProviderResponse NOT_MODIFIED = new ProviderResponse(Map.of(), true);
+
+    /**
+     * Wraps freshly fetched rates.
+     *
+     * @param rates the rates by target currency
+     * @return a modified response
+     */
+    public static ProviderResponse of(Map<String, BigDecimal> rates) {
+        return new ProviderResponse(rates, false);
+    }
+
+    /**
+     * Returns the response for an unchanged upstream resource.
+     *
+     * @return a not-modified response
+     */
+    public static ProviderResponse unchanged() {
+        return NOT_MODIFIED;
+    }
+}
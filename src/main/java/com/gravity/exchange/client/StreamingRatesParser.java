@@ -0,0 +1,97 @@
+package com.gravity.exchange.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.ResponseErrorHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads a provider payload of the form {@code {..., "rates": {"EUR": 0.92, ...}, ...}} token by
+ * token and keeps only the requested target currencies. Jackson holds each number as text until
+ * it is asked for a value, so the rates of unwanted currencies are skipped without ever being
+ * converted to {@link BigDecimal}, and no intermediate map of the whole table is built.
+ */
+final class StreamingRatesParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ResponseErrorHandler ERROR_HANDLER = new DefaultResponseErrorHandler();
+    private static final String RATES_FIELD = "rates";
+
+    private StreamingRatesParser() {
+    }
+
+    /**
+     * Parses the body of a successful response; error statuses are raised the same way
+     * {@code retrieve()} raises them. A 304 has no body and yields no rates, as an empty body
+     * does when the response is mapped to a DTO.
+     *
+     * @param response     the provider response
+     * @param baseCurrency the requested base, never returned as a target
+     * @param targets      the target currencies to keep
+     * @return the requested rates by target currency
+     * @throws IOException if the body cannot be read or is not a JSON object
+     */
+    static Map<String, BigDecimal> parse(ClientHttpResponse response, String baseCurrency, Set<String> targets)
+            throws IOException {
+        if (ERROR_HANDLER.hasError(response)) {
+            ERROR_HANDLER.handleError(response);
+        }
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return new HashMap<>();
+        }
+        return parse(response.getBody(), baseCurrency, targets);
+    }
+
+    /**
+     * Parses a provider payload.
+     *
+     * @param body         the JSON payload
+     * @param baseCurrency the requested base, never returned as a target
+     * @param targets      the target currencies to keep
+     * @return the requested rates by target currency
+     * @throws IOException if the body cannot be read or is not a JSON object
+     */
+    static Map<String, BigDecimal> parse(InputStream body, String baseCurrency, Set<String> targets)
+            throws IOException {
+        Map<String, BigDecimal> rates = new HashMap<>(Math.max(targets.size() * 4 / 3 + 1, 16));
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (RATES_FIELD.equals(field) && value == JsonToken.START_OBJECT) {
+                    readRates(parser, baseCurrency, targets, rates);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return rates;
+    }
+
+    private static void readRates(JsonParser parser, String baseCurrency, Set<String> targets,
+                                  Map<String, BigDecimal> rates) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String code = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value.isNumeric() && targets.contains(code) && !code.equals(baseCurrency)) {
+                rates.put(code, parser.getDecimalValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.gravity.exchange.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Builds the outbound HTTP clients of the rate providers, one pooled JDK {@link HttpClient} per
+ * provider with settings from {@code exchange.http.*}, overridable under {@code exchange.providers.<key>}.
+ */
+@Slf4j
+@Component
+public class ProviderHttpClients {
+
+    private static final String DEFAULTS = "exchange.http.";
+    private static final String PROVIDERS = "exchange.providers.";
+
+    private final RestClient.Builder restClientBuilder;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final List<HttpClient> clients = new CopyOnWriteArrayList<>();
+
+    public ProviderHttpClients(RestClient.Builder restClientBuilder, MeterRegistry meterRegistry,
+                               Environment environment) {
+        this.restClientBuilder = restClientBuilder;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
+    /**
+     * Returns a rest client builder for one provider, backed by its own pooled HTTP client.
+     *
+     * @param configKey    the provider key under {@code exchange.providers}
+     * @param providerName the provider name used as metric tag
+     * @param baseUrl      the provider base URL
+     * @return a builder with the base URL, request factory and pool accounting set
+     */
+    public RestClient.Builder builder(String configKey, String providerName, String baseUrl) {
+        Duration connectTimeout = setting(configKey, "connect-timeout", Duration.class, Duration.ofSeconds(2));
+        Duration readTimeout = setting(configKey, "read-timeout", Duration.class, Duration.ofSeconds(5));
+        int maxConnections = setting(configKey, "max-connections", Integer.class, 10);
+        boolean http2 = setting(null, "http2", Boolean.class, true);
+        boolean compression = setting(null, "compression", Boolean.class, true);
+
+        // Plain-HTTP providers would be asked for an h2c upgrade, which many servers mishandle
+        HttpClient.Version version = http2 && baseUrl.startsWith("https:")
+                ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1;
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        clients.add(httpClient);
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+
+        ConnectionPool pool = new ConnectionPool(providerName, maxConnections, connectTimeout, compression);
+        if (setting(null, "prewarm", Boolean.class, true)) {
+            prewarm(httpClient, providerName, baseUrl, connectTimeout);
+        }
+        log.info("HTTP client for {}: {}, connect timeout {}, read timeout {}, {} connections",
+                providerName, version, connectTimeout, readTimeout, maxConnections);
+
+        return restClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .requestInterceptor(pool);
+    }
+
+    @PreDestroy
+    void close() {
+        clients.forEach(HttpClient::shutdownNow);
+    }
+
+    private <T> T setting(String configKey, String name, Class<T> type, T defaultValue) {
+        Binder binder = Binder.get(environment);
+        T fallback = binder.bind(DEFAULTS + name, type).orElse(defaultValue);
+        if (configKey == null) {
+            return fallback;
+        }
+        return binder.bind(PROVIDERS + configKey + "." + name, type).orElse(fallback);
+    }
+
+    // Opens the first connection in the background so the startup fetch does not pay for the handshake
+    private void prewarm(HttpClient httpClient, String providerName, String baseUrl, Duration timeout) {
+        java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder(URI.create(baseUrl))
+                .method("HEAD", java.net.http.HttpRequest.BodyPublishers.noBody())
+                .timeout(timeout)
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, ex) -> {
+                    if (ex != null) {
+                        log.warn("Pre-warming the connection to {} failed: {}", providerName, ex.getMessage());
+                    } else {
+                        log.debug("Pre-warmed the connection to {} over {}", providerName, response.version());
+                    }
+                });
+    }
+
+    /**
+     * Bounds the concurrent requests to one provider and measures them. A slot is held until the
+     * response is closed, since streamed bodies keep the connection busy after the call returns.
+     */
+    private final class ConnectionPool implements ClientHttpRequestInterceptor {
+
+        private final int maxConnections;
+        private final Duration acquireTimeout;
+        private final boolean compression;
+        private final Semaphore slots;
+        private final String providerName;
+
+        ConnectionPool(String providerName, int maxConnections, Duration acquireTimeout, boolean compression) {
+            this.maxConnections = maxConnections;
+            this.acquireTimeout = acquireTimeout;
+            this.compression = compression;
+            this.slots = new Semaphore(maxConnections, true);
+            this.providerName = providerName;
+            Gauge.builder("exchange.http.pool.active", this, p -> p.maxConnections - p.slots.availablePermits())
+                    .description("Provider connections in use")
+                    .tag("provider", providerName)
+                    .register(meterRegistry);
+            Gauge.builder("exchange.http.pool.pending", slots, Semaphore::getQueueLength)
+                    .description("Provider requests waiting for a free connection")
+                    .tag("provider", providerName)
+                    .register(meterRegistry);
+            Gauge.builder("exchange.http.pool.max", this, p -> p.maxConnections)
+                    .description("Provider connection limit")
+                    .tag("provider", providerName)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+                throws IOException {
+            long start = System.nanoTime();
+            acquire();
+            if (compression) {
+                request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            }
+            try {
+                return new PooledResponse(execution.execute(request, body), start);
+            } catch (IOException | RuntimeException ex) {
+                slots.release();
+                record(start, "IO_ERROR");
+                throw ex;
+            }
+        }
+
+        private void acquire() throws IOException {
+            try {
+                if (!slots.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    throw new IOException("No free connection within " + acquireTimeout);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a free connection");
+            }
+        }
+
+        private void record(long start, String status) {
+            Timer.builder("exchange.http.client.requests")
+                    .description("Provider requests, including the wait for a free connection")
+                    .tag("provider", providerName)
+                    .tag("status", status)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        private final class PooledResponse implements ClientHttpResponse {
+
+            private final ClientHttpResponse delegate;
+            private final long start;
+            private final AtomicBoolean closed = new AtomicBoolean();
+            private InputStream body;
+
+            PooledResponse(ClientHttpResponse delegate, long start) {
+                this.delegate = delegate;
+                this.start = start;
+            }
+
+            @Override
+            public HttpStatusCode getStatusCode() throws IOException {
+                return delegate.getStatusCode();
+            }
+
+            @Override
+            public String getStatusText() throws IOException {
+                return delegate.getStatusText();
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return delegate.getHeaders();
+            }
+
+            @Override
+            public InputStream getBody() throws IOException {
+                if (body == null) {
+                    body = decode(delegate.getBody());
+                }
+                return body;
+            }
+
+            @Override
+            public void close() {
+                if (!closed.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    delegate.close();
+                } finally {
+                    slots.release();
+                    String status;
+                    try {
+                        status = String.valueOf(delegate.getStatusCode().value());
+                    } catch (IOException ex) {
+                        status = "IO_ERROR";
+                    }
+                    record(start, status);
+                }
+            }
+
+            private InputStream decode(InputStream raw) throws IOException {
+                if (!"gzip".equalsIgnoreCase(getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+                    return raw;
+                }
+                // Bodiless responses such as a 304 may still carry the encoding header
+                PushbackInputStream stream = new PushbackInputStream(raw, 1);
+                int first = stream.read();
+                if (first == -1) {
+                    return InputStream.nullInputStream();
+                }
+                stream.unread(first);
+                return new GZIPInputStream(stream);
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -20,15 +21,21 @@ public class RestClientConfig {
     @Bean("mockProvider1")
     public ExchangeRateProvider mockProvider1(
             @Value("${exchange.providers.mock-provider-1.url}") String baseUrl,
-            RestClient.Builder restClientBuilder) {
-        return new MockProviderClient("MOCK_PROVIDER_1", baseUrl, restClientBuilder);
+            @Value("${exchange.providers.mock-provider-1.refresh-interval:PT5M}") Duration refreshInterval,
+            @Value("${exchange.fetch.streaming-parse:true}") boolean streamingParse,
+            ProviderHttpClients httpClients) {
+        return new MockProviderClient("MOCK_PROVIDER_1", "mock-provider-1", baseUrl, refreshInterval,
+                streamingParse, httpClients);
     }
 
     @Bean("mockProvider2")
     public ExchangeRateProvider mockProvider2(
             @Value("${exchange.providers.mock-provider-2.url}") String baseUrl,
-            RestClient.Builder restClientBuilder) {
-        return new MockProviderClient("MOCK_PROVIDER_2", baseUrl, restClientBuilder);
+            @Value("${exchange.providers.mock-provider-2.refresh-interval:PT5M}") Duration refreshInterval,
+            @Value("${exchange.fetch.streaming-parse:true}") boolean streamingParse,
+            ProviderHttpClients httpClients) {
+        return new MockProviderClient("MOCK_PROVIDER_2", "mock-provider-2", baseUrl, refreshInterval,
+                streamingParse, httpClients);
     }
 
     @Bean
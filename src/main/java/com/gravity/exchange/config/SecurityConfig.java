@@ -37,11 +37,18 @@ public class SecurityConfig {
                         // Admin-only endpoints
                         .requestMatchers(HttpMethod.POST, "/api/v1/currencies").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/v1/currencies/refresh").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/v1/currencies/refresh/**").hasRole("ADMIN")
+                        .requestMatchers("/api/v1/admin/**").hasRole("ADMIN")
 
                         // Admin and Premium User endpoints
-                        .requestMatchers(HttpMethod.GET, "/api/v1/currencies/trends")
+                        .requestMatchers(HttpMethod.GET, "/api/v1/currencies/trends",
+                                "/api/v1/currencies/trends/batch", "/api/v1/currencies/series")
                                 .hasAnyRole("ADMIN", "PREMIUM_USER")
 
+                        // Actuator: health is public, metrics are for operators
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         // Swagger/OpenAPI docs
                         .requestMatchers(
                                 "/swagger-ui/**",
@@ -0,0 +1,85 @@
+package com.gravity.exchange.controller;
+
+import com.gravity.exchange.dto.ErrorResponse;
+import com.gravity.exchange.dto.ProviderCircuitStatus;
+import com.gravity.exchange.service.ProviderCircuitBreakerRegistry;
+import com.gravity.exchange.service.RateExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Administration", description = "Operational state of the exchange service")
+public class AdminController {
+
+    private final ProviderCircuitBreakerRegistry circuitBreakerRegistry;
+    private final RateExportService rateExportService;
+
+    @Operation(summary = "Get provider circuit breakers",
+            description = "Returns the circuit breaker state, failure rate and latency of every provider "
+                    + "called so far. Available to ADMIN only.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Circuit breaker states"),
+            @ApiResponse(responseCode = "403", description = "Access denied",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+    })
+    @GetMapping("/providers")
+    public ResponseEntity<List<ProviderCircuitStatus>> getProviderCircuits() {
+        return ResponseEntity.ok(circuitBreakerRegistry.getStatuses());
+    }
+
+    @Operation(summary = "Export rate history",
+            description = "Streams the raw rate history of the given pairs in [from, to) as NDJSON or CSV, "
+                    + "ordered by pair and time. Rows are written as they are read, so any range can be "
+                    + "exported. Available to ADMIN only.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The exported rows"),
+            @ApiResponse(responseCode = "400", description = "Invalid pair, range or format",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Access denied",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+    })
+    @GetMapping("/exports/rates")
+    public void exportRates(
+            @Parameter(description = "Currency pairs", example = "USD/EUR,USD/GBP")
+            @RequestParam @NotEmpty(message = "Pairs must not be empty")
+            @Size(max = 1000, message = "At most 1000 pairs per export") List<String> pairs,
+            @Parameter(description = "Start of the range, inclusive", example = "2026-01-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the range, exclusive", example = "2026-07-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Output format: ndjson or csv", example = "ndjson")
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        RateExportService.ExportRequest request = rateExportService.prepare(pairs, from, to, format);
+        response.setContentType(request.format().getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(request.filename()).build().toString());
+        rateExportService.write(request, response.getOutputStream());
+    }
+}
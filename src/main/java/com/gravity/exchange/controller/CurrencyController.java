@@ -1,12 +1,18 @@
 package com.gravity.exchange.controller;
 
+import com.gravity.exchange.dto.BatchTrendResponse;
 import com.gravity.exchange.dto.ConversionResponse;
 import com.gravity.exchange.dto.CurrencyDto;
 import com.gravity.exchange.dto.ErrorResponse;
+import com.gravity.exchange.dto.RateSeriesResponse;
+import com.gravity.exchange.dto.RefreshJobStatus;
 import com.gravity.exchange.dto.TrendResponse;
+import com.gravity.exchange.exception.RefreshJobNotFoundException;
 import com.gravity.exchange.service.CurrencyService;
 import com.gravity.exchange.service.ExchangeRateFetchScheduler;
 import com.gravity.exchange.service.ExchangeRateService;
+import com.gravity.exchange.service.RateSeriesService;
+import com.gravity.exchange.service.RefreshJob;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,20 +20,28 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -40,6 +54,7 @@ public class CurrencyController {
     private final CurrencyService currencyService;
     private final ExchangeRateService exchangeRateService;
     private final ExchangeRateFetchScheduler fetchScheduler;
+    private final RateSeriesService rateSeriesService;
 
     @Operation(summary = "Get all currencies",
             description = "Returns a list of all active currencies used in the project. Available to everyone.")
@@ -92,16 +107,38 @@ public class CurrencyController {
     }
 
     @Operation(summary = "Refresh exchange rates",
-            description = "Triggers a manual refresh of exchange rates from all providers. Available to ADMIN only.")
+            description = "Starts a refresh of exchange rates from all providers in the background, or joins the "
+                    + "refresh already running, and returns its job. Available to ADMIN only.")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Rates refreshed successfully"),
+            @ApiResponse(responseCode = "202", description = "Refresh started or already running"),
             @ApiResponse(responseCode = "403", description = "Access denied",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
     })
     @PostMapping("/refresh")
-    public ResponseEntity<String> refreshRates() {
-        fetchScheduler.refreshRates();
-        return ResponseEntity.ok("Exchange rates refreshed successfully");
+    public ResponseEntity<RefreshJobStatus> refreshRates() {
+        RefreshJob job = fetchScheduler.requestRefresh();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/currencies/refresh/" + job.getId()))
+                .body(job.toStatus());
+    }
+
+    @Operation(summary = "Get refresh job status",
+            description = "Returns the state of a refresh job with per-provider progress and timings. "
+                    + "Available to ADMIN only.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Job status"),
+            @ApiResponse(responseCode = "404", description = "Job not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Access denied",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+    })
+    @GetMapping("/refresh/{jobId}")
+    public ResponseEntity<RefreshJobStatus> getRefreshJob(
+            @Parameter(description = "Job id returned by the refresh request")
+            @PathVariable String jobId) {
+        return fetchScheduler.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElseThrow(() -> new RefreshJobNotFoundException(jobId));
     }
 
     @Operation(summary = "Get exchange rate trends",
@@ -126,4 +163,59 @@ public class CurrencyController {
             @RequestParam @NotBlank(message = "Period must not be blank") String period) {
         return ResponseEntity.ok(exchangeRateService.getTrend(from, to, period));
     }
+
+    @Operation(summary = "Get exchange rate trends in batch",
+            description = "Returns the percentage change of one base currency against many targets over several "
+                    + "periods in one compact response; without targets, every active currency is used. "
+                    + "Available only to ADMIN and PREMIUM_USER.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Trends by target, one value per period"),
+            @ApiResponse(responseCode = "400", description = "Invalid period format",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Access denied",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+    })
+    @GetMapping("/trends/batch")
+    public ResponseEntity<BatchTrendResponse> getTrendsBatch(
+            @Parameter(description = "Base currency code", example = "USD")
+            @RequestParam @NotBlank(message = "Base currency must not be blank") String base,
+            @Parameter(description = "Target currency codes; all active currencies if omitted", example = "EUR,GBP")
+            @RequestParam(required = false)
+            @Size(max = 200, message = "At most 200 targets per request") List<String> targets,
+            @Parameter(description = "Time periods (e.g., 12H, 10D, 3M, 1Y)", example = "12H,7D,1Y")
+            @RequestParam @NotEmpty(message = "Periods must not be empty")
+            @Size(max = 20, message = "At most 20 periods per request") List<String> periods) {
+        List<String> resolvedTargets = targets == null || targets.isEmpty()
+                ? currencyService.getActiveCurrencyCodes()
+                : targets;
+        return ResponseEntity.ok(exchangeRateService.getTrends(base, resolvedTargets, periods));
+    }
+
+    @Operation(summary = "Get exchange rate series",
+            description = "Returns the rate history of a pair in [start, end) downsampled to at most the requested "
+                    + "number of points with Largest-Triangle-Three-Buckets, for charting. The end defaults to now. "
+                    + "Available only to ADMIN and PREMIUM_USER.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The downsampled series"),
+            @ApiResponse(responseCode = "400", description = "Invalid range or point count",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Access denied",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+    })
+    @GetMapping("/series")
+    public ResponseEntity<RateSeriesResponse> getSeries(
+            @Parameter(description = "Source currency code", example = "USD")
+            @RequestParam @NotBlank(message = "Source currency must not be blank") String from,
+            @Parameter(description = "Target currency code", example = "EUR")
+            @RequestParam @NotBlank(message = "Target currency must not be blank") String to,
+            @Parameter(description = "Start of the range, inclusive", example = "2025-10-16T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @Parameter(description = "End of the range, exclusive; now if omitted", example = "2026-10-16T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @Parameter(description = "Maximum number of points to return", example = "500")
+            @RequestParam(defaultValue = "500") @Min(value = 3, message = "Points must be at least 3")
+            @Max(value = 10_000, message = "Points must be at most 10000") int points) {
+        LocalDateTime resolvedEnd = end != null ? end : LocalDateTime.now();
+        return ResponseEntity.ok(rateSeriesService.getSeries(from, to, start, resolvedEnd, points));
+    }
 }
@@ -0,0 +1,27 @@
+package com.gravity.exchange.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Exchange rate trends of one base currency against many targets")
+public class BatchTrendResponse {
+
+    @Schema(description = "Base currency code", example = "USD")
+    private String base;
+
+    @Schema(description = "Periods, in the order of the values of every target", example = "[\"12H\", \"7D\", \"1Y\"]")
+    private List<String> periods;
+
+    @Schema(description = "Trends by target currency; targets without rate history are left out")
+    private Map<String, TargetTrends> trends;
+}
@@ -33,4 +33,10 @@ public class ConversionResponse {
 
     @Schema(description = "Timestamp of the rate used")
     private LocalDateTime timestamp;
+
+    @Schema(description = "Provider that supplied the rate used", example = "FRANKFURTER")
+    private String source;
+
+    @Schema(description = "Whether the rate is past its max age and is being refreshed", example = "false")
+    private boolean stale;
 }
@@ -0,0 +1,38 @@
+package com.gravity.exchange.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Circuit breaker state of an exchange rate provider")
+public class ProviderCircuitStatus {
+
+    @Schema(description = "Provider name", example = "FRANKFURTER")
+    private String provider;
+
+    @Schema(description = "Circuit state: CLOSED, OPEN or HALF_OPEN", example = "CLOSED")
+    private String state;
+
+    @Schema(description = "Number of calls in the sliding window", example = "10")
+    private int recordedCalls;
+
+    @Schema(description = "Share of failed or slow calls in the sliding window", example = "0.1")
+    private double failureRate;
+
+    @Schema(description = "Average call latency in the sliding window, in milliseconds", example = "240")
+    private long averageLatencyMs;
+
+    @Schema(description = "When the next half-open probe is allowed, if the circuit is not closed")
+    private LocalDateTime openUntil;
+
+    @Schema(description = "Current open period in seconds, doubled after every failed probe", example = "30")
+    private long openDurationSeconds;
+}
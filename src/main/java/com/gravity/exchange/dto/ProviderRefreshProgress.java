@@ -0,0 +1,42 @@
+package com.gravity.exchange.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Calls made to one provider during a refresh job")
+public class ProviderRefreshProgress {
+
+    @Schema(description = "Provider name", example = "FRANKFURTER")
+    private String provider;
+
+    @Schema(description = "Calls planned for this cycle", example = "2")
+    private int plannedCalls;
+
+    @Schema(description = "Calls still running; after the job ends, calls cancelled at their deadline", example = "0")
+    private int pendingCalls;
+
+    @Schema(description = "Calls that returned new rates", example = "1")
+    private int fetchedCalls;
+
+    @Schema(description = "Calls answered with 304 Not Modified", example = "1")
+    private int notModifiedCalls;
+
+    @Schema(description = "Calls that failed", example = "0")
+    private int failedCalls;
+
+    @Schema(description = "Calls skipped because the provider's circuit was open", example = "0")
+    private int skippedCalls;
+
+    @Schema(description = "Average latency of the answered and failed calls, in milliseconds", example = "240")
+    private long averageLatencyMs;
+
+    @Schema(description = "Slowest call, in milliseconds", example = "410")
+    private long maxLatencyMs;
+}
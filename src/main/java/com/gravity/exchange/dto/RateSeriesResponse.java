@@ -0,0 +1,40 @@
+package com.gravity.exchange.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Rate history of a currency pair downsampled for charting")
+public class RateSeriesResponse {
+
+    @Schema(description = "Source currency code", example = "USD")
+    private String from;
+
+    @Schema(description = "Target currency code", example = "EUR")
+    private String to;
+
+    @Schema(description = "Start of the range, inclusive", example = "2025-10-16T00:00:00")
+    private LocalDateTime start;
+
+    @Schema(description = "End of the range, exclusive", example = "2026-10-16T00:00:00")
+    private LocalDateTime end;
+
+    @Schema(description = "Number of stored rates in the range", example = "52560")
+    private long sourcePoints;
+
+    @Schema(description = "Timestamps of the returned points, ascending")
+    private List<LocalDateTime> timestamps;
+
+    @Schema(description = "Exchange rate at each timestamp", example = "[0.9100, 0.9020, 0.9235]")
+    private List<BigDecimal> rates;
+}
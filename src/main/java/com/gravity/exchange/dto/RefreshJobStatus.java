@@ -0,0 +1,42 @@
+package com.gravity.exchange.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Progress of an exchange rate refresh job")
+public class RefreshJobStatus {
+
+    @Schema(description = "Job identifier", example = "3f1c2b9e-8d4a-4c51-9a57-0e2f5c7d9b10")
+    private String jobId;
+
+    @Schema(description = "What started the cycle: STARTUP, SCHEDULED, MANUAL or REVALIDATION", example = "MANUAL")
+    private String trigger;
+
+    @Schema(description = "Job state: RUNNING, SUCCEEDED or FAILED", example = "RUNNING")
+    private String state;
+
+    @Schema(description = "When the cycle started")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "When the cycle finished, if it has")
+    private LocalDateTime finishedAt;
+
+    @Schema(description = "Time spent so far, or in total once finished, in milliseconds", example = "850")
+    private long durationMs;
+
+    @Schema(description = "Why the cycle failed, if it did")
+    private String error;
+
+    @Schema(description = "Progress per provider")
+    private List<ProviderRefreshProgress> providers;
+}
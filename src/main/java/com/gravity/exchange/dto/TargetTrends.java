@@ -0,0 +1,27 @@
+package com.gravity.exchange.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Trends of one target currency over every requested period")
+public class TargetTrends {
+
+    @Schema(description = "Current exchange rate", example = "0.9235")
+    private BigDecimal currentRate;
+
+    @Schema(description = "Exchange rate at the start of each period", example = "[0.9100, 0.9020, 0.8650]")
+    private List<BigDecimal> ratesAtStart;
+
+    @Schema(description = "Percentage change over each period", example = "[1.48, 2.38, 6.76]")
+    private List<BigDecimal> percentageChanges;
+}
@@ -41,4 +41,8 @@ public class ExchangeRate {
     @Column(nullable = false)
     @Builder.Default
     private LocalDateTime timestamp = LocalDateTime.now();
+
+    /** Null for a fetched rate, otherwise how it was derived from the rates the source returned. */
+    @Column(length = 32)
+    private String derivation;
 }
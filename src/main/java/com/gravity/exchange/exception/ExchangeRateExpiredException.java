@@ -0,0 +1,10 @@
+package com.gravity.exchange.exception;
+
+import java.time.LocalDateTime;
+
+public class ExchangeRateExpiredException extends RuntimeException {
+
+    public ExchangeRateExpiredException(String from, String to, LocalDateTime fetchedAt) {
+        super("Exchange rate for " + from + " -> " + to + " expired (last fetched at " + fetchedAt + ")");
+    }
+}
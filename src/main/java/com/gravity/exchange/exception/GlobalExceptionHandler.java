@@ -35,6 +35,20 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.NOT_FOUND, ex.getMessage(), request);
     }
 
+    @ExceptionHandler(RefreshJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleRefreshJobNotFound(RefreshJobNotFoundException ex,
+                                                                   HttpServletRequest request) {
+        log.warn("Refresh job not found: {}", ex.getMessage());
+        return buildResponse(HttpStatus.NOT_FOUND, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(ExchangeRateExpiredException.class)
+    public ResponseEntity<ErrorResponse> handleExchangeRateExpired(ExchangeRateExpiredException ex,
+                                                                    HttpServletRequest request) {
+        log.warn("Exchange rate expired: {}", ex.getMessage());
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), request);
+    }
+
     @ExceptionHandler(CurrencyAlreadyExistsException.class)
     public ResponseEntity<ErrorResponse> handleCurrencyAlreadyExists(CurrencyAlreadyExistsException ex,
                                                                       HttpServletRequest request) {
@@ -49,6 +63,13 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
     }
 
+    @ExceptionHandler(InvalidHistoryQueryException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidHistoryQuery(InvalidHistoryQueryException ex,
+                                                                    HttpServletRequest request) {
+        log.warn("Invalid history query: {}", ex.getMessage());
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
+    }
+
     @ExceptionHandler(ExternalApiException.class)
     public ResponseEntity<ErrorResponse> handleExternalApi(ExternalApiException ex,
                                                             HttpServletRequest request) {
@@ -0,0 +1,8 @@
+package com.gravity.exchange.exception;
+
+public class InvalidHistoryQueryException extends RuntimeException {
+
+    public InvalidHistoryQueryException(String message) {
+        super(message);
+    }
+}
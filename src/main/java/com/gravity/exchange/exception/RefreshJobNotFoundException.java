@@ -0,0 +1,8 @@
+package com.gravity.exchange.exception;
+
+public class RefreshJobNotFoundException extends RuntimeException {
+
+    public RefreshJobNotFoundException(String jobId) {
+        super("Refresh job not found: " + jobId);
+    }
+}
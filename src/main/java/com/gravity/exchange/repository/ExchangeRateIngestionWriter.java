@@ -0,0 +1,164 @@
+package com.gravity.exchange.repository;
+
+import com.gravity.exchange.entity.ExchangeRate;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Appends fetched rates to the {@code exchange_rate} table without going through the JPA
+ * persistence context. {@link ExchangeRate} uses IDENTITY keys, which disables Hibernate
+ * batching, so {@code saveAll} costs one INSERT round trip per row. In {@code copy} mode rows
+ * are streamed through the pgJDBC {@code CopyManager}; {@code multi-row} sends batched
+ * multi-row INSERTs and is also the fallback when COPY is unavailable; {@code jpa} keeps the
+ * old {@code saveAll} path. Every mode writes a batch atomically, so a retried batch never
+ * duplicates the rows of a partly written attempt.
+ */
+@Slf4j
+@Repository
+public class ExchangeRateIngestionWriter {
+
+    /**
+     * How rows are written.
+     */
+    public enum Mode {
+        COPY, MULTI_ROW, JPA
+    }
+
+    static final String COLUMNS = "base_currency, target_currency, rate, source, timestamp, derivation";
+    private static final String COPY_SQL = "COPY exchange_rate (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+    private static final int COLUMN_COUNT = 6;
+    private static final int MULTI_ROW_CHUNK = 1_000;
+    private static final String FEATURE_NOT_SUPPORTED = "0A000";
+
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Mode mode;
+
+    public ExchangeRateIngestionWriter(ExchangeRateRepository exchangeRateRepository,
+                                       JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${exchange.ingestion.mode:copy}") Mode mode) {
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.mode = mode;
+    }
+
+    /**
+     * Appends the given rates to the rate history.
+     *
+     * @param rates the rates to write
+     * @return the number of rows written
+     */
+    public long write(List<ExchangeRate> rates) {
+        if (rates.isEmpty()) {
+            return 0;
+        }
+        long startedAt = System.nanoTime();
+        long written = switch (mode) {
+            case COPY -> copyWithFallback(rates);
+            case MULTI_ROW -> insertMultiRow(rates);
+            case JPA -> exchangeRateRepository.saveAll(rates).size();
+        };
+        long micros = Math.max((System.nanoTime() - startedAt) / 1_000, 1);
+        log.debug("Wrote {} rates via {} in {} us ({} rows/s)", written, mode, micros, written * 1_000_000 / micros);
+        return written;
+    }
+
+    /**
+     * Streams the rows through COPY, falling back to multi-row inserts only when the connection
+     * cannot do COPY: it is not a pgJDBC connection or the server rejects COPY as unsupported.
+     * Any other failure is the batch's own and propagates to the caller's retry.
+     */
+    private long copyWithFallback(List<ExchangeRate> rates) {
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            if (!connection.isWrapperFor(PGConnection.class)) {
+                return null;
+            }
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_SQL, new StringReader(toCsv(rates)));
+            } catch (SQLException ex) {
+                if (FEATURE_NOT_SUPPORTED.equals(ex.getSQLState())) {
+                    return null;
+                }
+                throw ex;
+            } catch (IOException ex) {
+                throw new SQLException("COPY into exchange_rate failed", ex);
+            }
+        });
+        if (copied != null) {
+            return copied;
+        }
+        log.warn("COPY is unavailable on this connection, falling back to multi-row inserts");
+        return insertMultiRow(rates);
+    }
+
+    /**
+     * Inserts the rows in chunks within one transaction: a failing chunk rolls back the chunks
+     * before it, which the rollup trigger would otherwise count again when the batch is retried.
+     */
+    private long insertMultiRow(List<ExchangeRate> rates) {
+        Long written = transaction.execute(status -> insertChunks(rates));
+        return written == null ? 0 : written;
+    }
+
+    private long insertChunks(List<ExchangeRate> rates) {
+        long written = 0;
+        for (int from = 0; from < rates.size(); from += MULTI_ROW_CHUNK) {
+            List<ExchangeRate> chunk = rates.subList(from, Math.min(from + MULTI_ROW_CHUNK, rates.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * COLUMN_COUNT);
+            for (ExchangeRate rate : chunk) {
+                args.add(rate.getBaseCurrency());
+                args.add(rate.getTargetCurrency());
+                args.add(rate.getRate());
+                args.add(rate.getSource());
+                args.add(Timestamp.valueOf(rate.getTimestamp()));
+                args.add(rate.getDerivation());
+            }
+            written += jdbcTemplate.update(multiRowInsertSql(chunk.size()), args.toArray());
+        }
+        return written;
+    }
+
+    static String multiRowInsertSql(int rows) {
+        return "INSERT INTO exchange_rate (" + COLUMNS + ") VALUES "
+                + String.join(", ", Collections.nCopies(rows, "(?, ?, ?, ?, ?, ?)"));
+    }
+
+    /**
+     * Encodes rows in the CSV format COPY expects. Only the source and the derivation are free
+     * text, so they are the only fields that are quoted; a missing derivation is left unquoted
+     * and empty, which COPY reads as null.
+     */
+    static String toCsv(List<ExchangeRate> rates) {
+        StringBuilder csv = new StringBuilder(rates.size() * 64);
+        for (ExchangeRate rate : rates) {
+            csv.append(rate.getBaseCurrency()).append(',')
+                    .append(rate.getTargetCurrency()).append(',')
+                    .append(rate.getRate().toPlainString()).append(',')
+                    .append('"').append(rate.getSource().replace("\"", "\"\"")).append('"').append(',')
+                    .append(rate.getTimestamp()).append(',');
+            if (rate.getDerivation() != null) {
+                csv.append('"').append(rate.getDerivation().replace("\"", "\"\"")).append('"');
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,9 +15,10 @@ import java.util.Optional;
 public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long> {
 
     @Query("SELECT e FROM ExchangeRate e WHERE e.baseCurrency = :base AND e.targetCurrency = :target "
-            + "ORDER BY e.timestamp DESC LIMIT 1")
-    Optional<ExchangeRate> findLatestRate(@Param("base") String baseCurrency,
-                                         @Param("target") String targetCurrency);
+            + "AND e.timestamp >= :since ORDER BY e.timestamp DESC LIMIT 1")
+    Optional<ExchangeRate> findLatestRateSince(@Param("base") String baseCurrency,
+                                              @Param("target") String targetCurrency,
+                                              @Param("since") LocalDateTime since);
 
     @Query("SELECT e FROM ExchangeRate e WHERE e.baseCurrency = :base AND e.targetCurrency = :target "
             + "AND e.timestamp >= :since ORDER BY e.timestamp ASC")
@@ -29,4 +31,22 @@ public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long
     Optional<ExchangeRate> findOldestRateSince(@Param("base") String baseCurrency,
                                               @Param("target") String targetCurrency,
                                               @Param("since") LocalDateTime since);
+
+    @Query("SELECT e FROM ExchangeRate e WHERE e.baseCurrency = :base AND e.targetCurrency = :target "
+            + "AND e.timestamp >= :from AND e.timestamp <= :to ORDER BY e.timestamp DESC LIMIT 1")
+    Optional<ExchangeRate> findLatestRateBetween(@Param("base") String baseCurrency,
+                                                 @Param("target") String targetCurrency,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
+
+    @Query("SELECT e FROM ExchangeRate e WHERE e.baseCurrency = :base AND e.targetCurrency = :target "
+            + "AND e.timestamp >= :from AND e.timestamp < :to ORDER BY e.timestamp ASC LIMIT 1")
+    Optional<ExchangeRate> findOldestRateBetween(@Param("base") String baseCurrency,
+                                                 @Param("target") String targetCurrency,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
+
+    @Query("SELECT e FROM ExchangeRate e WHERE e.baseCurrency IN :bases AND e.timestamp >= :since")
+    List<ExchangeRate> findRatesFetchedSince(@Param("bases") Collection<String> baseCurrencies,
+                                             @Param("since") LocalDateTime since);
 }
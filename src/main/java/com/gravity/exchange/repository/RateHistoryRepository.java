@@ -0,0 +1,96 @@
+package com.gravity.exchange.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams raw rows of the {@code exchange_rate} table for bulk reads. Rows are fetched through a
+ * server-side cursor in batches of {@link #FETCH_SIZE} and handed to the caller one at a time,
+ * so memory does not grow with the size of the range. Unlike the JPA repository, nothing is
+ * materialised as managed entities.
+ */
+@Repository
+public class RateHistoryRepository {
+
+    /**
+     * A currency pair to read.
+     *
+     * @param base   the base currency code
+     * @param target the target currency code
+     */
+    public record CurrencyPair(String base, String target) {
+
+        @Override
+        public String toString() {
+            return base + "/" + target;
+        }
+    }
+
+    /**
+     * One row of the rate history.
+     */
+    public record RateRow(String baseCurrency, String targetCurrency, String source, BigDecimal rate,
+                          LocalDateTime timestamp) {
+    }
+
+    private static final int FETCH_SIZE = 5_000;
+
+    private static final String PAIR_RANGE_SQL = "SELECT base_currency, target_currency, source, rate, timestamp "
+            + "FROM exchange_rate WHERE base_currency = ? AND target_currency = ? "
+            + "AND timestamp >= ? AND timestamp < ? ORDER BY timestamp, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public RateHistoryRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        // pgJDBC only honours the fetch size inside a transaction
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Streams the rows of each pair in {@code [from, to)}, pair by pair in the given order and
+     * by time within a pair. All pairs are read in one read-only transaction.
+     *
+     * @param pairs   the pairs to read
+     * @param from    start of the range, inclusive
+     * @param to      end of the range, exclusive
+     * @param handler receives every row; runtime exceptions it throws abort the read
+     * @return the number of rows read
+     */
+    public long streamRates(List<CurrencyPair> pairs, LocalDateTime from, LocalDateTime to,
+                            Consumer<RateRow> handler) {
+        Timestamp fromTimestamp = Timestamp.valueOf(from);
+        Timestamp toTimestamp = Timestamp.valueOf(to);
+        long[] rows = new long[1];
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (CurrencyPair pair : pairs) {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(PAIR_RANGE_SQL);
+                    statement.setFetchSize(FETCH_SIZE);
+                    statement.setString(1, pair.base());
+                    statement.setString(2, pair.target());
+                    statement.setTimestamp(3, fromTimestamp);
+                    statement.setTimestamp(4, toTimestamp);
+                    return statement;
+                }, (RowCallbackHandler) rs -> {
+                    handler.accept(new RateRow(rs.getString(1), rs.getString(2), rs.getString(3),
+                            rs.getBigDecimal(4), rs.getTimestamp(5).toLocalDateTime()));
+                    rows[0]++;
+                });
+            }
+        });
+        return rows[0];
+    }
+}
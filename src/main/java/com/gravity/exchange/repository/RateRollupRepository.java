@@ -0,0 +1,91 @@
+package com.gravity.exchange.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads the hourly and daily OHLC rollups of the {@code exchange_rate} table. The rollups are
+ * maintained by the {@code exchange_rate_rollup} trigger, so every INSERT or COPY into the rate
+ * history is folded into them in the same transaction, whatever ingestion mode wrote it.
+ * Each bucket holds one row per pair and source; lookups that ignore the source order by
+ * {@code open_at} or {@code close_at} to pick the first or last rate across sources.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RateRollupRepository {
+
+    /**
+     * Bucket width of a rollup table.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Granularity {
+        HOUR("exchange_rate_hourly", ChronoUnit.HOURS),
+        DAY("exchange_rate_daily", ChronoUnit.DAYS);
+
+        private final String table;
+        private final ChronoUnit unit;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns the close of the latest bucket starting in {@code [from, to)}, across sources.
+     *
+     * @param baseCurrency   the base currency code
+     * @param targetCurrency the target currency code
+     * @param granularity    the rollup to read
+     * @param from           first bucket start, inclusive; null for no lower bound
+     * @param to             last bucket start, exclusive; null for no upper bound
+     * @return the last rate written in that range
+     */
+    public Optional<BigDecimal> findLastClose(String baseCurrency, String targetCurrency, Granularity granularity,
+                                              LocalDateTime from, LocalDateTime to) {
+        return queryRate("close_rate", "bucket_start DESC, close_at DESC",
+                baseCurrency, targetCurrency, granularity, from, to);
+    }
+
+    /**
+     * Returns the open of the earliest bucket starting in {@code [from, to)}, across sources.
+     *
+     * @param baseCurrency   the base currency code
+     * @param targetCurrency the target currency code
+     * @param granularity    the rollup to read
+     * @param from           first bucket start, inclusive; null for no lower bound
+     * @param to             last bucket start, exclusive; null for no upper bound
+     * @return the first rate written in that range
+     */
+    public Optional<BigDecimal> findFirstOpen(String baseCurrency, String targetCurrency, Granularity granularity,
+                                              LocalDateTime from, LocalDateTime to) {
+        return queryRate("open_rate", "bucket_start ASC, open_at ASC",
+                baseCurrency, targetCurrency, granularity, from, to);
+    }
+
+    private Optional<BigDecimal> queryRate(String column, String order, String baseCurrency, String targetCurrency,
+                                           Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(column).append(" FROM ")
+                .append(granularity.getTable())
+                .append(" WHERE base_currency = ? AND target_currency = ?");
+        List<Object> args = new ArrayList<>(List.of(baseCurrency, targetCurrency));
+        if (from != null) {
+            sql.append(" AND bucket_start >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND bucket_start < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY ").append(order).append(" LIMIT 1");
+        return jdbcTemplate.queryForList(sql.toString(), BigDecimal.class, args.toArray()).stream().findFirst();
+    }
+}
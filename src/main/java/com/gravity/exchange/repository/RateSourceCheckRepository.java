@@ -0,0 +1,96 @@
+package com.gravity.exchange.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records in {@code rate_source_check} when each source last answered for a base currency,
+ * whether with new rates or with a 304. Unchanged rates write no {@code exchange_rate} row, so
+ * nodes that load rates from the database take a rate's fetch time from the later of its row and
+ * the last check of its source and base, just as the fetching node re-stamps the rates it holds.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RateSourceCheckRepository {
+
+    private static final String UPSERT_SQL = "INSERT INTO rate_source_check (source, base_currency, checked_at) "
+            + "VALUES (?, ?, ?) ON CONFLICT (source, base_currency) "
+            + "DO UPDATE SET checked_at = GREATEST(rate_source_check.checked_at, EXCLUDED.checked_at)";
+
+    /**
+     * One answer of a source for a base currency.
+     *
+     * @param source       the provider name
+     * @param baseCurrency the base currency requested
+     * @param checkedAt    when the answer arrived
+     */
+    public record SourceCheck(String source, String baseCurrency, LocalDateTime checkedAt) {
+    }
+
+    /**
+     * The latest fetched rate of a pair from one source.
+     *
+     * @param baseCurrency   the base currency code
+     * @param targetCurrency the target currency code
+     * @param source         the provider name
+     * @param rate           the rate of the latest row
+     * @param fetchedAt      the later of the row timestamp and the last check of its source and base
+     */
+    public record LatestRate(String baseCurrency, String targetCurrency, String source, BigDecimal rate,
+                             LocalDateTime fetchedAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Records the given checks, keeping the later time where a check is already recorded.
+     *
+     * @param checks the checks to record
+     */
+    public void recordChecks(Collection<SourceCheck> checks) {
+        if (checks.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(checks.size());
+        for (SourceCheck check : checks) {
+            args.add(new Object[]{check.source(), check.baseCurrency(), Timestamp.valueOf(check.checkedAt())});
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+    }
+
+    /**
+     * Returns the latest fetched row per pair and source for the given bases. Rows rebased from
+     * another base's table are skipped.
+     *
+     * @param baseCurrencies the base currencies to load
+     * @param rowsSince      the oldest row to consider; an unchanged rate is rewritten at least
+     *                       once per delta heartbeat, so this can stay close to the freshness bound
+     * @return the latest rate per pair and source
+     */
+    public List<LatestRate> findLatestRates(Collection<String> baseCurrencies, LocalDateTime rowsSince) {
+        if (baseCurrencies.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT DISTINCT ON (e.base_currency, e.target_currency, e.source) "
+                + "e.base_currency, e.target_currency, e.source, e.rate, "
+                + "GREATEST(e.timestamp, c.checked_at) AS fetched_at "
+                + "FROM exchange_rate e "
+                + "LEFT JOIN rate_source_check c ON c.source = e.source AND c.base_currency = e.base_currency "
+                + "WHERE e.base_currency IN (" + String.join(", ", Collections.nCopies(baseCurrencies.size(), "?"))
+                + ") AND e.timestamp >= ? AND e.derivation IS NULL "
+                + "ORDER BY e.base_currency, e.target_currency, e.source, e.timestamp DESC";
+        List<Object> args = new ArrayList<>(baseCurrencies);
+        args.add(Timestamp.valueOf(rowsSince));
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new LatestRate(rs.getString(1), rs.getString(2),
+                rs.getString(3), rs.getBigDecimal(4), rs.getTimestamp(5).toLocalDateTime()), args.toArray());
+    }
+}
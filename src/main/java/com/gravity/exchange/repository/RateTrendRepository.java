@@ -0,0 +1,148 @@
+package com.gravity.exchange.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rates trends are computed from for many pairs and periods in one statement. Every
+ * rate is a top-1 probe of the {@code (base_currency, target_currency, timestamp)} index, joined
+ * laterally over the requested targets and period starts, so the cost grows with the number of
+ * (target, period) combinations and not with the length of the history. With
+ * {@code exchange.history.rollups} enabled the rates are resolved like single-pair trends: raw
+ * rows within the hour of the start, then the hourly and daily rollups.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RateTrendRepository {
+
+    /**
+     * The latest rate of a pair and the rate at the start of each requested period.
+     *
+     * @param currentRate  the last rate written for the pair
+     * @param ratesAtStart the rate in effect at each period start, in the order of the starts
+     */
+    public record TrendRates(BigDecimal currentRate, List<BigDecimal> ratesAtStart) {
+    }
+
+    // The start rate is the last row at or before the start or, if the history begins later,
+    // the first row after it; the second probe only runs when the first found nothing
+    private static final String TREND_RATES_SQL = "SELECT t.target_currency, s.idx, cur.rate, "
+            + "COALESCE(before_start.rate, after_start.rate) "
+            + "FROM unnest(?::varchar[]) WITH ORDINALITY AS t(target_currency, target_idx) "
+            + "CROSS JOIN LATERAL (SELECT e.rate FROM exchange_rate e "
+            + "WHERE e.base_currency = ? AND e.target_currency = t.target_currency "
+            + "ORDER BY e.timestamp DESC LIMIT 1) cur "
+            + "CROSS JOIN unnest(?::timestamp[]) WITH ORDINALITY AS s(since, idx) "
+            + "LEFT JOIN LATERAL (SELECT e.rate FROM exchange_rate e "
+            + "WHERE e.base_currency = ? AND e.target_currency = t.target_currency AND e.timestamp <= s.since "
+            + "ORDER BY e.timestamp DESC LIMIT 1) before_start ON true "
+            + "LEFT JOIN LATERAL (SELECT e.rate FROM exchange_rate e "
+            + "WHERE before_start.rate IS NULL "
+            + "AND e.base_currency = ? AND e.target_currency = t.target_currency AND e.timestamp >= s.since "
+            + "ORDER BY e.timestamp ASC LIMIT 1) after_start ON true "
+            + "ORDER BY t.target_idx, s.idx";
+
+    // Same resolution as ExchangeRateService.getTrend: the current rate is the close of the latest
+    // daily bucket; the start rate is the last raw row of its hour, else the last hourly close of its
+    // day, else the last daily close before it. If the history begins later, the first raw row up to
+    // the next full hour, else the first hourly open up to the next full day, else the first daily open.
+    private static final String ROLLUP_TREND_RATES_SQL = "SELECT t.target_currency, s.idx, cur.rate, "
+            + "COALESCE(raw_before.rate, hour_before.rate, day_before.rate, "
+            + "raw_after.rate, hour_after.rate, day_after.rate) "
+            + "FROM unnest(?::varchar[]) WITH ORDINALITY AS t(target_currency, target_idx) "
+            + "CROSS JOIN (SELECT ?::varchar AS base_currency) p "
+            + "CROSS JOIN LATERAL (SELECT d.close_rate AS rate FROM exchange_rate_daily d "
+            + "WHERE d.base_currency = p.base_currency AND d.target_currency = t.target_currency "
+            + "ORDER BY d.bucket_start DESC, d.close_at DESC LIMIT 1) cur "
+            + "CROSS JOIN unnest(?::timestamp[]) WITH ORDINALITY AS s(since, idx) "
+            + "CROSS JOIN LATERAL (SELECT date_trunc('hour', s.since) AS hour, date_trunc('day', s.since) AS day, "
+            + "date_trunc('hour', s.since + interval '1 hour' - interval '1 microsecond') AS next_hour, "
+            + "date_trunc('day', s.since + interval '1 day' - interval '1 microsecond') AS next_day) b "
+            + "LEFT JOIN LATERAL (SELECT e.rate FROM exchange_rate e "
+            + "WHERE e.base_currency = p.base_currency AND e.target_currency = t.target_currency "
+            + "AND e.timestamp >= b.hour AND e.timestamp <= s.since "
+            + "ORDER BY e.timestamp DESC LIMIT 1) raw_before ON true "
+            + "LEFT JOIN LATERAL (SELECT h.close_rate AS rate FROM exchange_rate_hourly h "
+            + "WHERE raw_before.rate IS NULL "
+            + "AND h.base_currency = p.base_currency AND h.target_currency = t.target_currency "
+            + "AND h.bucket_start >= b.day AND h.bucket_start < b.hour "
+            + "ORDER BY h.bucket_start DESC, h.close_at DESC LIMIT 1) hour_before ON true "
+            + "LEFT JOIN LATERAL (SELECT d.close_rate AS rate FROM exchange_rate_daily d "
+            + "WHERE COALESCE(raw_before.rate, hour_before.rate) IS NULL "
+            + "AND d.base_currency = p.base_currency AND d.target_currency = t.target_currency "
+            + "AND d.bucket_start < b.day "
+            + "ORDER BY d.bucket_start DESC, d.close_at DESC LIMIT 1) day_before ON true "
+            + "LEFT JOIN LATERAL (SELECT e.rate FROM exchange_rate e "
+            + "WHERE COALESCE(raw_before.rate, hour_before.rate, day_before.rate) IS NULL "
+            + "AND e.base_currency = p.base_currency AND e.target_currency = t.target_currency "
+            + "AND e.timestamp >= s.since AND e.timestamp < b.next_hour "
+            + "ORDER BY e.timestamp ASC LIMIT 1) raw_after ON true "
+            + "LEFT JOIN LATERAL (SELECT h.open_rate AS rate FROM exchange_rate_hourly h "
+            + "WHERE COALESCE(raw_before.rate, hour_before.rate, day_before.rate, raw_after.rate) IS NULL "
+            + "AND h.base_currency = p.base_currency AND h.target_currency = t.target_currency "
+            + "AND h.bucket_start >= b.next_hour AND h.bucket_start < b.next_day "
+            + "ORDER BY h.bucket_start ASC, h.open_at ASC LIMIT 1) hour_after ON true "
+            + "LEFT JOIN LATERAL (SELECT d.open_rate AS rate FROM exchange_rate_daily d "
+            + "WHERE COALESCE(raw_before.rate, hour_before.rate, day_before.rate, raw_after.rate, "
+            + "hour_after.rate) IS NULL "
+            + "AND d.base_currency = p.base_currency AND d.target_currency = t.target_currency "
+            + "AND d.bucket_start >= b.next_day "
+            + "ORDER BY d.bucket_start ASC, d.open_at ASC LIMIT 1) day_after ON true "
+            + "ORDER BY t.target_idx, s.idx";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${exchange.history.rollups:true}")
+    private boolean rollupsEnabled;
+
+    /**
+     * Returns the current rate and the rate at each period start for every target that has
+     * rate history against the base.
+     *
+     * @param baseCurrency the base currency code
+     * @param targets      the target currency codes
+     * @param starts       the period starts
+     * @return trend rates by target, in the order of the targets; targets without history are left out
+     */
+    public Map<String, TrendRates> findTrendRates(String baseCurrency, List<String> targets,
+                                                  List<LocalDateTime> starts) {
+        Map<String, TrendRates> result = new LinkedHashMap<>();
+        if (targets.isEmpty() || starts.isEmpty()) {
+            return result;
+        }
+        Timestamp[] startTimestamps = starts.stream().map(Timestamp::valueOf).toArray(Timestamp[]::new);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    rollupsEnabled ? ROLLUP_TREND_RATES_SQL : TREND_RATES_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", targets.toArray()));
+            statement.setString(2, baseCurrency);
+            statement.setArray(3, connection.createArrayOf("timestamp", startTimestamps));
+            if (!rollupsEnabled) {
+                statement.setString(4, baseCurrency);
+                statement.setString(5, baseCurrency);
+            }
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            String target = rs.getString(1);
+            TrendRates rates = result.get(target);
+            if (rates == null) {
+                rates = new TrendRates(rs.getBigDecimal(3), Arrays.asList(new BigDecimal[starts.size()]));
+                result.put(target, rates);
+            }
+            rates.ratesAtStart().set(rs.getInt(2) - 1, rs.getBigDecimal(4));
+        });
+        return result;
+    }
+}
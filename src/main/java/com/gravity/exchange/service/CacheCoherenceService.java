@@ -0,0 +1,290 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.cache.ExchangeRateCache;
+import com.gravity.exchange.cache.RateHistoryStore;
+import com.gravity.exchange.cache.RateEntry;
+import com.gravity.exchange.cache.RateSnapshot;
+import com.gravity.exchange.cache.RateSnapshotStore;
+import com.gravity.exchange.cache.RateTriangulator;
+import com.gravity.exchange.entity.ExchangeRate;
+import com.gravity.exchange.repository.ExchangeRateRepository;
+import com.gravity.exchange.repository.RateSourceCheckRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the caches of several replicas coherent through PostgreSQL LISTEN/NOTIFY.
+ * The node that completes a fetch cycle records which sources answered for which bases, then
+ * sends a NOTIFY carrying its snapshot version, the answered base currencies and the cycle start
+ * time. Every other node loads the latest rate per pair and source for those bases, with the
+ * fetch time moved up to the source's last answer, and picks the best rate per pair among those
+ * younger than the cache max age, as the fetching node does. So a 304 or an unchanged rate that
+ * wrote no row keeps the rate fresh on every node. The rows written since the cycle start are
+ * also appended to the node's {@link RateHistoryStore}, and the {@link TrendCache} moves on to
+ * the announced version.
+ *
+ * <p>Payload format: {@code version|nodeId|cycleStartedAt|BASE,BASE,...}
+ */
+@Slf4j
+@Service
+public class CacheCoherenceService {
+
+    private static final String SEPARATOR = "|";
+    private static final long POLL_TIMEOUT_MS = 5_000;
+    private static final long RECONNECT_DELAY_MS = 5_000;
+
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final ExchangeRateCache exchangeRateCache;
+    private final RateTriangulator rateTriangulator;
+    private final RateSnapshotStore rateSnapshotStore;
+    private final RateHistoryStore rateHistoryStore;
+    private final RateSourceCheckRepository rateSourceCheckRepository;
+    private final TrendCache trendCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final String channel;
+    private final Duration maxAge;
+    private final Duration heartbeat;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile Instant lastPeerCycleAt = Instant.MIN;
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public CacheCoherenceService(ExchangeRateRepository exchangeRateRepository,
+                                 ExchangeRateCache exchangeRateCache,
+                                 RateTriangulator rateTriangulator,
+                                 RateSnapshotStore rateSnapshotStore,
+                                 RateHistoryStore rateHistoryStore,
+                                 RateSourceCheckRepository rateSourceCheckRepository,
+                                 TrendCache trendCache,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${exchange.coherence.enabled:false}") boolean enabled,
+                                 @Value("${exchange.coherence.channel:exchange_rates}") String channel,
+                                 @Value("${exchange.cache.max-age:PT2H}") Duration maxAge,
+                                 @Value("${exchange.ingestion.delta.heartbeat:PT24H}") Duration heartbeat) {
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.exchangeRateCache = exchangeRateCache;
+        this.rateTriangulator = rateTriangulator;
+        this.rateSnapshotStore = rateSnapshotStore;
+        this.rateHistoryStore = rateHistoryStore;
+        this.rateSourceCheckRepository = rateSourceCheckRepository;
+        this.trendCache = trendCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.maxAge = maxAge;
+        this.heartbeat = heartbeat;
+    }
+
+    /**
+     * Returns whether coherence mode is enabled.
+     *
+     * @return true if fetch cycles are shared between nodes
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the answers of a published fetch cycle and announces the cycle to the other nodes.
+     *
+     * @param snapshot       the published snapshot
+     * @param baseCurrencies the base currencies answered in the cycle, with new rates or a 304
+     * @param checks         the answers of the cycle per source and base
+     * @param cycleStartedAt the time the cycle started, before any row was written
+     */
+    public void announce(RateSnapshot snapshot, Collection<String> baseCurrencies,
+                         Collection<RateSourceCheckRepository.SourceCheck> checks, LocalDateTime cycleStartedAt) {
+        if (!enabled || baseCurrencies.isEmpty()) {
+            return;
+        }
+        try {
+            rateSourceCheckRepository.recordChecks(checks);
+        } catch (Exception ex) {
+            log.warn("Failed to record the source checks of snapshot v{}: {}", snapshot.getVersion(), ex.getMessage());
+        }
+        String payload = snapshot.getVersion() + SEPARATOR + nodeId + SEPARATOR + cycleStartedAt
+                + SEPARATOR + String.join(",", baseCurrencies);
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, payload);
+            log.debug("Announced snapshot v{} on channel {}", snapshot.getVersion(), channel);
+        } catch (Exception ex) {
+            log.warn("Failed to announce snapshot v{}: {}", snapshot.getVersion(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether another node announced a fetch cycle within the given window, in which
+     * case a scheduled fetch on this node can be skipped.
+     *
+     * @param window how far back to look
+     * @return true if a peer cycle was applied within the window
+     */
+    public boolean hasRecentPeerCycle(Duration window) {
+        return enabled && lastPeerCycleAt.isAfter(Instant.now().minus(window));
+    }
+
+    /**
+     * Loads the best rates of the given bases fetched or confirmed since the given time and
+     * publishes them. Used by nodes that do not fetch themselves to warm their cache at startup.
+     *
+     * @param baseCurrencies the base currencies to load
+     * @param since          the oldest fetch time to consider
+     * @return true if rates were loaded
+     */
+    public boolean reloadRecent(Collection<String> baseCurrencies, LocalDateTime since) {
+        Map<String, Map<String, RateEntry>> bestRates = loadBestRates(baseCurrencies, since);
+        if (bestRates.isEmpty()) {
+            return false;
+        }
+        RateSnapshot.Builder nextSnapshot = exchangeRateCache.newSnapshotBuilder();
+        bestRates.forEach(nextSnapshot::putEntries);
+        nextSnapshot.deriveWith(rateTriangulator::fill);
+        RateSnapshot published = exchangeRateCache.publish(nextSnapshot);
+        rateSnapshotStore.save(published);
+        log.info("Loaded {} bases fetched since {} as snapshot v{}", bestRates.size(), since, published.getVersion());
+        return true;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listenerThread = Thread.ofPlatform()
+                .name("rate-coherence-listener")
+                .daemon(true)
+                .start(this::listen);
+        log.info("Cache coherence enabled on channel {} as node {}", channel, nodeId);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = jdbcTemplate.getDataSource().getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + quoteIdentifier(channel));
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            onNotification(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Coherence listener lost its connection, reconnecting: {}", ex.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reloads the pairs announced by another node and publishes them.
+     *
+     * @param payload the NOTIFY payload
+     * @return true if rates were reloaded
+     */
+    boolean onNotification(String payload) {
+        String[] parts = payload == null ? new String[0] : payload.split("\\|", -1);
+        if (parts.length != 4) {
+            log.warn("Ignoring malformed coherence notification: {}", payload);
+            return false;
+        }
+        if (nodeId.equals(parts[1])) {
+            return false;
+        }
+        long version;
+        LocalDateTime since;
+        try {
+            version = Long.parseLong(parts[0]);
+            since = LocalDateTime.parse(parts[2]);
+        } catch (RuntimeException ex) {
+            log.warn("Ignoring malformed coherence notification: {}", payload);
+            return false;
+        }
+        List<String> bases = List.of(parts[3].split(","));
+        lastPeerCycleAt = Instant.now();
+
+        exchangeRateRepository.findRatesFetchedSince(bases, since).stream()
+                .sorted(Comparator.comparing(ExchangeRate::getTimestamp))
+                .forEach(row -> rateHistoryStore.append(row.getBaseCurrency(), row.getTargetCurrency(),
+                        row.getSource(), row.getTimestamp(), row.getRate()));
+        // The announcement is sent once the cycle's rows are written, so trends may include them now
+        trendCache.markPersisted(version);
+        Map<String, Map<String, RateEntry>> bestRates = loadBestRates(bases, LocalDateTime.now().minus(maxAge));
+        if (bestRates.isEmpty()) {
+            return false;
+        }
+
+        RateSnapshot.Builder nextSnapshot = exchangeRateCache.newSnapshotBuilder();
+        bestRates.forEach(nextSnapshot::putEntries);
+        nextSnapshot.deriveWith(rateTriangulator::fill);
+        RateSnapshot published = exchangeRateCache.publishPeer(nextSnapshot, version);
+        rateSnapshotStore.save(published);
+        log.info("Reloaded {} bases announced by node {} as snapshot v{}",
+                bestRates.size(), parts[1], published.getVersion());
+        return true;
+    }
+
+    /**
+     * Picks the best (highest) rate per pair among the latest rate of every source fetched or
+     * confirmed since the given time. An unchanged rate is rewritten once per delta heartbeat,
+     * so older rows cannot be the latest of a source that is still answering.
+     */
+    private Map<String, Map<String, RateEntry>> loadBestRates(Collection<String> bases, LocalDateTime freshSince) {
+        Map<String, Map<String, RateEntry>> bestRates = new HashMap<>();
+        for (RateSourceCheckRepository.LatestRate latest
+                : rateSourceCheckRepository.findLatestRates(bases, freshSince.minus(heartbeat))) {
+            if (latest.fetchedAt().isBefore(freshSince)) {
+                continue;
+            }
+            bestRates.computeIfAbsent(latest.baseCurrency(), b -> new HashMap<>()).merge(latest.targetCurrency(),
+                    RateEntry.fetched(latest.rate(), latest.source(), latest.fetchedAt()),
+                    (current, candidate) -> candidate.rate().compareTo(current.rate()) > 0 ? candidate : current);
+        }
+        return bestRates;
+    }
+
+    private String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
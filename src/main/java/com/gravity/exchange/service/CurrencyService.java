@@ -1,5 +1,6 @@
 package com.gravity.exchange.service;
 
+import com.gravity.exchange.cache.ExchangeRateCache;
 import com.gravity.exchange.dto.CurrencyDto;
 import com.gravity.exchange.entity.Currency;
 import com.gravity.exchange.exception.CurrencyAlreadyExistsException;
@@ -60,6 +61,7 @@ public class CurrencyService {
     );
 
     private final CurrencyRepository currencyRepository;
+    private final ExchangeRateCache exchangeRateCache;
 
     /**
      * Returns all active currencies.
@@ -100,6 +102,7 @@ public class CurrencyService {
                 .build();
 
         Currency saved = currencyRepository.save(currency);
+        exchangeRateCache.registerCurrency(saved.getCode());
         log.info("Added new currency: {}", saved.getCode());
 
         return CurrencyDto.builder()
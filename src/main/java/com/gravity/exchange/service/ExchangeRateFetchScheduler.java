@@ -1,130 +1,398 @@
 package com.gravity.exchange.service;
 
 import com.gravity.exchange.cache.ExchangeRateCache;
+import com.gravity.exchange.cache.RateEntry;
+import com.gravity.exchange.cache.RateSnapshot;
+import com.gravity.exchange.cache.RateSnapshotStore;
+import com.gravity.exchange.cache.RateTriangulator;
 import com.gravity.exchange.client.ExchangeRateProvider;
+import com.gravity.exchange.client.ProviderResponse;
 import com.gravity.exchange.entity.ExchangeRate;
-import com.gravity.exchange.repository.ExchangeRateRepository;
+import com.gravity.exchange.repository.RateSourceCheckRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Fetches rates from the providers and publishes them to the cache.
+ *
+ * <p>Each provider has its own refresh interval; a scheduled cycle only calls the providers that
+ * are due and combines their answers with the rates last seen from the others. Providers are asked
+ * conditionally, and a 304 only re-stamps the rates already held for that request: nothing is
+ * parsed or persisted. Every answer, 304 included, is announced to the other nodes so they
+ * re-stamp the same rates. Intervals should stay below {@code exchange.cache.max-age}, since rates
+ * older than that no longer take part in the best-rate selection.
+ *
+ * <p>Startup, scheduled and manual cycles are single-flight: a trigger that arrives while a
+ * cycle is running joins that cycle instead of starting another one. Every cycle is tracked as
+ * a {@link RefreshJob} whose per-provider progress can be read while it runs.
+ *
+ * <p>Once the rows of a cycle are persisted a {@link RatesPersistedEvent} is published, which
+ * triggers the trend precomputation.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ExchangeRateFetchScheduler {
 
     private final List<ExchangeRateProvider> providers;
-    private final ExchangeRateRepository exchangeRateRepository;
+    private final RateWriteBehindQueue rateWriteBehindQueue;
     private final ExchangeRateCache exchangeRateCache;
     private final CurrencyService currencyService;
+    private final RateTriangulator rateTriangulator;
+    private final RateSnapshotStore rateSnapshotStore;
+    private final CacheCoherenceService cacheCoherenceService;
+    private final FetchPlanner fetchPlanner;
+    private final RateTableRebaser rateTableRebaser;
+    private final RateChangeFilter rateChangeFilter;
+    private final ProviderCircuitBreakerRegistry circuitBreakerRegistry;
+    private final SchedulerLeadership schedulerLeadership;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${exchange.scheduler.fixed-rate:3600000}")
+    private long fixedRateMs = 3_600_000;
+
+    @Value("${exchange.fetch.call-timeout:PT10S}")
+    private Duration callTimeout = Duration.ofSeconds(10);
+
+    @Value("${exchange.fetch.cycle-budget:PT30S}")
+    private Duration cycleBudget = Duration.ofSeconds(30);
+
+    @Value("${exchange.cache.max-age:PT2H}")
+    private Duration maxAge = Duration.ofHours(2);
+
+    private final LatestProviderRates latestRates = new LatestProviderRates();
+
+    /** Start of the last cycle in which each provider answered. */
+    private final Map<String, LocalDateTime> lastFetchedAt = new ConcurrentHashMap<>();
+
+    private final RefreshJobs refreshJobs = new RefreshJobs();
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     /**
-     * Fetches exchange rates on application startup.
+     * Fetches exchange rates on application startup. A node that is not the scheduler leader
+     * loads the rates the leader recently wrote instead.
      */
     @EventListener(ApplicationReadyEvent.class)
     public void onStartup() {
+        if (!schedulerLeadership.isLeader()) {
+            log.info("Not the scheduler leader, loading recent rates from the database");
+            cacheCoherenceService.reloadRecent(currencyService.getActiveCurrencyCodes(),
+                    LocalDateTime.now().minus(maxAge));
+            return;
+        }
         log.info("Fetching exchange rates on startup...");
-        fetchAndUpdateAllRates();
+        refreshJobs.start(RefreshJob.Trigger.STARTUP, Runnable::run, job -> fetchAndUpdateAllRates(providers, job));
     }
 
     /**
-     * Scheduled task: fetches exchange rates every hour.
+     * Scheduled task: fetches exchange rates from the providers whose refresh interval has
+     * passed. Only the scheduler leader fetches. In coherence mode the fetch is skipped when
+     * another node already announced a cycle within the last interval.
      */
     @Scheduled(fixedRateString = "${exchange.scheduler.fixed-rate}")
     public void scheduledFetch() {
-        log.info("Scheduled exchange rate fetch triggered");
-        fetchAndUpdateAllRates();
+        if (!schedulerLeadership.isLeader()) {
+            log.debug("Skipping scheduled fetch, this node is not the scheduler leader");
+            return;
+        }
+        if (cacheCoherenceService.hasRecentPeerCycle(Duration.ofMillis(fixedRateMs))) {
+            log.info("Skipping scheduled fetch, rates were reloaded from a peer cycle");
+            return;
+        }
+        List<ExchangeRateProvider> due = dueProviders(LocalDateTime.now());
+        if (due.isEmpty()) {
+            log.debug("Scheduled fetch skipped, no provider is due");
+            return;
+        }
+        log.info("Scheduled exchange rate fetch triggered for {}", due.stream()
+                .map(ExchangeRateProvider::getProviderName)
+                .toList());
+        refreshJobs.start(RefreshJob.Trigger.SCHEDULED, Runnable::run, job -> fetchAndUpdateAllRates(due, job));
+    }
+
+    /**
+     * Starts a manual refresh of exchange rates in the background, or joins the cycle that is
+     * already running.
+     *
+     * @return the job of the started or joined cycle
+     */
+    public RefreshJob requestRefresh() {
+        log.info("Manual exchange rate refresh requested");
+        return refreshJobs.start(RefreshJob.Trigger.MANUAL, refreshExecutor,
+                job -> fetchAndUpdateAllRates(providers, job));
     }
 
     /**
-     * Triggers a manual refresh of exchange rates.
+     * Returns a recent refresh job.
+     *
+     * @param jobId the job id
+     * @return the job, if it is among the most recent ones
      */
-    public void refreshRates() {
-        log.info("Manual exchange rate refresh triggered");
-        fetchAndUpdateAllRates();
+    public Optional<RefreshJob> getJob(String jobId) {
+        return refreshJobs.find(jobId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
     }
 
     /**
-     * Fetches rates from all providers for all active currencies,
-     * persists them to the database, and updates the in-memory cache
-     * with the best rates.
+     * Fetches rates for a single base currency from all providers and publishes them.
+     * Used to revalidate stale cache entries without running a full cycle. The revalidation
+     * takes the in-flight slot like a cycle does, so it is skipped while another cycle or
+     * revalidation runs. Nodes that are not the scheduler leader leave this to the leader's
+     * next cycle.
+     *
+     * @param baseCurrency the base currency code
      */
-    private void fetchAndUpdateAllRates() {
+    public void refreshBase(String baseCurrency) {
+        if (!schedulerLeadership.isLeader()) {
+            log.debug("Not revalidating base {}, this node is not the scheduler leader", baseCurrency);
+            return;
+        }
+        refreshJobs.runIfIdle(RefreshJob.Trigger.REVALIDATION, job -> revalidateBase(baseCurrency, job));
+    }
+
+    private void revalidateBase(String baseCurrency, RefreshJob job) {
+        LocalDateTime cycleStartedAt = LocalDateTime.now();
+        List<String> activeCurrencies = currencyService.getActiveCurrencyCodes();
+        List<FetchPlanner.PlannedFetch> plan = fetchPlanner.plan(providers, activeCurrencies, List.of(baseCurrency));
+        if (plan.isEmpty()) {
+            return;
+        }
+
+        CycleResult result = fetchPlanned(plan, cycleStartedAt, job);
+        Map<String, Map<String, RateEntry>> bestRates = latestRates.selectBest(result.answered(),
+                cycleStartedAt.minus(maxAge));
+        if (bestRates.isEmpty()) {
+            return;
+        }
+
+        RateSnapshot.Builder nextSnapshot = exchangeRateCache.newSnapshotBuilder();
+        bestRates.forEach(nextSnapshot::putEntries);
+        nextSnapshot.deriveWith(rateTriangulator::fill);
+        RateSnapshot published = exchangeRateCache.publish(nextSnapshot);
+        announceWhenPersisted(published, result, cycleStartedAt);
+        notifyWhenPersisted(published);
+        log.info("Revalidated base {} from {} fetched bases in snapshot v{}",
+                baseCurrency, bestRates.size(), published.getVersion());
+    }
+
+    /**
+     * Fetches rates from the given providers for all active currencies,
+     * queues changed rates for persistence, publishes the best rates
+     * to the in-memory cache as one snapshot, saves it to the snapshot file
+     * and announces it to the other nodes. When every provider answered 304 the
+     * snapshot is only re-stamped and the answers announced: there is nothing to save.
+     */
+    private void fetchAndUpdateAllRates(List<ExchangeRateProvider> cycleProviders, RefreshJob job) {
+        LocalDateTime cycleStartedAt = LocalDateTime.now();
         List<String> activeCurrencies = currencyService.getActiveCurrencyCodes();
         if (activeCurrencies.isEmpty()) {
             log.info("No active currencies configured, skipping rate fetch");
             return;
         }
 
-        Set<String> currencySet = new HashSet<>(activeCurrencies);
+        // Plan the fewest provider requests that cover every base; the rest is derived locally
+        List<FetchPlanner.PlannedFetch> plan = fetchPlanner.plan(cycleProviders, activeCurrencies,
+                rateTriangulator.selectFetchBases(activeCurrencies));
+        job.planned(plan);
+        CycleResult result = fetchPlanned(plan, cycleStartedAt, job);
+        Map<String, Map<String, RateEntry>> bestRates = latestRates.selectBest(result.answered(),
+                cycleStartedAt.minus(maxAge));
 
-        // For each currency as base, fetch rates against all other currencies
-        // We'll use each currency as a base and fetch rates to all others
-        Map<String, Map<String, BigDecimal>> bestRates = new HashMap<>();
+        // Stage all best rates and publish them in one swap
+        RateSnapshot.Builder nextSnapshot = exchangeRateCache.newSnapshotBuilder();
+        bestRates.forEach(nextSnapshot::putEntries);
+        int derived = nextSnapshot.deriveWith(rateTriangulator::fill);
+        RateSnapshot published = exchangeRateCache.publish(nextSnapshot);
+        if (!result.changed().isEmpty()) {
+            rateSnapshotStore.save(published);
+        }
+        announceWhenPersisted(published, result, cycleStartedAt);
+        notifyWhenPersisted(published);
 
-        for (String baseCurrency : activeCurrencies) {
-            Set<String> targets = currencySet.stream()
-                    .filter(c -> !c.equals(baseCurrency))
-                    .collect(Collectors.toSet());
+        long totalCached = bestRates.values().stream()
+                .mapToLong(m -> m.size())
+                .sum();
+        log.info("Exchange rate update complete. Cached {} best rates and {} derived rates in snapshot v{}",
+                totalCached, derived, published.getVersion());
+    }
 
-            if (targets.isEmpty()) {
-                continue;
-            }
+    /**
+     * Announces the snapshot to the other nodes once the rows it was built from are in the
+     * database, since peers reload from there. Bases answered with a 304 are announced as well,
+     * so peers re-stamp them too.
+     */
+    private void announceWhenPersisted(RateSnapshot published, CycleResult result, LocalDateTime cycleStartedAt) {
+        Set<String> announced = new HashSet<>(result.answered());
+        announced.addAll(result.changed());
+        if (announced.isEmpty()) {
+            return;
+        }
+        List<RateSourceCheckRepository.SourceCheck> checks = List.copyOf(result.checks());
+        rateWriteBehindQueue.afterPersisted(() ->
+                cacheCoherenceService.announce(published, Set.copyOf(announced), checks, cycleStartedAt));
+    }
 
-            Map<String, BigDecimal> bestForBase = new HashMap<>();
+    /**
+     * Publishes a {@link RatesPersistedEvent} once the rows queued so far are in the database,
+     * so trends precomputed from the history include this cycle.
+     */
+    private void notifyWhenPersisted(RateSnapshot published) {
+        rateWriteBehindQueue.afterPersisted(() ->
+                eventPublisher.publishEvent(new RatesPersistedEvent(published.getVersion())));
+    }
+
+    /**
+     * Returns the providers whose refresh interval has passed. Half a scheduler tick of slack
+     * keeps a provider from slipping to the next tick because of jitter in the cycle start.
+     */
+    private List<ExchangeRateProvider> dueProviders(LocalDateTime now) {
+        LocalDateTime horizon = now.plus(Duration.ofMillis(fixedRateMs / 2));
+        return providers.stream()
+                .filter(provider -> {
+                    LocalDateTime last = lastFetchedAt.get(provider.getProviderName());
+                    Duration interval = provider.getRefreshInterval();
+                    return last == null || interval == null || !last.plus(interval).isAfter(horizon);
+                })
+                .toList();
+    }
+
+    /**
+     * Runs the planned provider calls concurrently, one virtual thread per call. Every call has
+     * its own deadline and the whole fan-out is bounded by the cycle budget; calls still running
+     * at their deadline are cancelled and whatever already arrived is kept. A call that ignores
+     * its cancellation is abandoned, never waited for.
+     */
+    private CycleResult fetchPlanned(List<FetchPlanner.PlannedFetch> plan, LocalDateTime cycleStartedAt,
+                                     RefreshJob job) {
+        CycleResult result = new CycleResult(job, ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(),
+                ConcurrentHashMap.newKeySet());
+        long startedAt = System.nanoTime();
+        long cycleDeadline = startedAt + cycleBudget.toNanos();
+        long callDeadline = startedAt + callTimeout.toNanos();
 
-            for (ExchangeRateProvider provider : providers) {
+        // Shut down rather than closed: close() may wait for a call that outlives its cancellation
+        ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor();
+        Map<Future<?>, String> calls = new LinkedHashMap<>();
+        int timedOut = 0;
+        try {
+            for (FetchPlanner.PlannedFetch fetch : plan) {
+                calls.put(scope.submit(() -> fetchFromProvider(fetch, cycleStartedAt, result)),
+                        fetch.provider().getProviderName() + "/" + fetch.baseCurrency());
+            }
+            for (Map.Entry<Future<?>, String> call : calls.entrySet()) {
+                long remaining = Math.min(callDeadline, cycleDeadline) - System.nanoTime();
                 try {
-                    Map<String, BigDecimal> rates = provider.fetchRates(baseCurrency, targets);
-
-                    // Persist all fetched rates
-                    LocalDateTime now = LocalDateTime.now();
-                    List<ExchangeRate> entities = rates.entrySet().stream()
-                            .map(entry -> ExchangeRate.builder()
-                                    .baseCurrency(baseCurrency)
-                                    .targetCurrency(entry.getKey())
-                                    .rate(entry.getValue())
-                                    .source(provider.getProviderName())
-                                    .timestamp(now)
-                                    .build())
-                            .collect(Collectors.toList());
-                    exchangeRateRepository.saveAll(entities);
-
-                    // Track the best (highest) rate for each target currency
-                    rates.forEach((target, rate) ->
-                            bestForBase.merge(target, rate, BigDecimal::max));
-
-                    log.info("Fetched {} rates from {} for base {}",
-                            rates.size(), provider.getProviderName(), baseCurrency);
-                } catch (Exception ex) {
-                    log.error("Failed to fetch rates from {} for base {}: {}",
-                            provider.getProviderName(), baseCurrency, ex.getMessage());
-                    // Continue with remaining providers
+                    call.getKey().get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException ex) {
+                    call.getKey().cancel(true);
+                    timedOut++;
+                    log.warn("Provider call {} missed its deadline and was cancelled", call.getValue());
+                } catch (ExecutionException ex) {
+                    log.error("Provider call {} failed: {}", call.getValue(), ex.getCause().getMessage());
                 }
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            scope.shutdownNow();
+        }
+        log.debug("Fan-out of {} provider calls finished in {} ms, {} cancelled", calls.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), timedOut);
+        return result;
+    }
 
-            bestRates.put(baseCurrency, bestForBase);
+    /**
+     * Calls one provider for one base currency and remembers its rates. New rates are queued
+     * for persistence, together with the tables of the bases the request stands in for; a 304
+     * only re-stamps the rates remembered from the previous answer.
+     */
+    private void fetchFromProvider(FetchPlanner.PlannedFetch fetch, LocalDateTime cycleStartedAt,
+                                   CycleResult result) {
+        ExchangeRateProvider provider = fetch.provider();
+        String baseCurrency = fetch.baseCurrency();
+        String providerName = provider.getProviderName();
+        if (!circuitBreakerRegistry.tryAcquire(providerName)) {
+            log.debug("Circuit for {} is open, skipping base {}", providerName, baseCurrency);
+            result.job().record(providerName, RefreshJob.Outcome.SKIPPED, Duration.ZERO);
+            return;
         }
+        try {
+            long startedAt = System.nanoTime();
+            ProviderResponse response;
+            try {
+                response = provider.fetchRatesIfModified(baseCurrency, fetch.targets());
+                Duration latency = Duration.ofNanos(System.nanoTime() - startedAt);
+                circuitBreakerRegistry.onSuccess(providerName, latency);
+                result.job().record(providerName, response.notModified()
+                        ? RefreshJob.Outcome.NOT_MODIFIED : RefreshJob.Outcome.FETCHED, latency);
+            } catch (RuntimeException ex) {
+                Duration latency = Duration.ofNanos(System.nanoTime() - startedAt);
+                circuitBreakerRegistry.onFailure(providerName, latency);
+                result.job().record(providerName, RefreshJob.Outcome.FAILED, latency);
+                throw ex;
+            }
 
-        // Update cache with best rates
-        bestRates.forEach((base, ratesMap) ->
-                exchangeRateCache.updateRates(base, ratesMap));
+            lastFetchedAt.put(providerName, cycleStartedAt);
+            LocalDateTime now = LocalDateTime.now();
+            result.checks().add(new RateSourceCheckRepository.SourceCheck(providerName, baseCurrency, now));
+            result.answered().add(baseCurrency);
+            if (response.notModified()) {
+                latestRates.restamp(providerName, baseCurrency, now);
+                log.info("Rates from {} for base {} not modified", providerName, baseCurrency);
+                return;
+            }
 
-        long totalCached = bestRates.values().stream()
-                .mapToLong(m -> m.size())
-                .sum();
-        log.info("Exchange rate update complete. Cached {} best rates", totalCached);
+            Map<String, BigDecimal> rates = response.rates();
+            latestRates.update(providerName, baseCurrency, rates, now);
+            result.changed().add(baseCurrency);
+
+            // Hand the rates that changed, rebased tables included, to the write-behind queue
+            List<ExchangeRate> rows = rateTableRebaser.toRows(fetch, rates, providerName, now);
+            rows.forEach(row -> result.changed().add(row.getBaseCurrency()));
+            rateWriteBehindQueue.enqueue(rateChangeFilter.retainChanged(rows));
+
+            log.info("Fetched {} rates from {} for base {}, {} rows in total with the rebased tables",
+                    rates.size(), providerName, baseCurrency, rows.size());
+        } catch (Exception ex) {
+            log.error("Failed to fetch rates from {} for base {}: {}",
+                    providerName, baseCurrency, ex.getMessage());
+            // Continue with remaining providers
+        }
+    }
+
+    /**
+     * The job a cycle reports to, the bases that got an answer, those whose answer carried
+     * new rates, and every answer per source and base.
+     */
+    private record CycleResult(RefreshJob job, Set<String> answered, Set<String> changed,
+                               Set<RateSourceCheckRepository.SourceCheck> checks) {
     }
 }
@@ -1,19 +1,39 @@
 package com.gravity.exchange.service;
 
 import com.gravity.exchange.cache.ExchangeRateCache;
+import com.gravity.exchange.cache.FixedPoint;
+import com.gravity.exchange.cache.Freshness;
+import com.gravity.exchange.cache.RateEntry;
+import com.gravity.exchange.cache.RateHistoryStore;
+import com.gravity.exchange.dto.BatchTrendResponse;
 import com.gravity.exchange.dto.ConversionResponse;
+import com.gravity.exchange.dto.TargetTrends;
 import com.gravity.exchange.dto.TrendResponse;
 import com.gravity.exchange.entity.ExchangeRate;
+import com.gravity.exchange.exception.ExchangeRateExpiredException;
 import com.gravity.exchange.exception.ExchangeRateNotFoundException;
 import com.gravity.exchange.exception.InvalidPeriodException;
 import com.gravity.exchange.repository.ExchangeRateRepository;
+import com.gravity.exchange.repository.RateRollupRepository;
+import com.gravity.exchange.repository.RateRollupRepository.Granularity;
+import com.gravity.exchange.repository.RateTrendRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,9 +47,34 @@ public class ExchangeRateService {
 
     private final ExchangeRateRepository exchangeRateRepository;
     private final ExchangeRateCache exchangeRateCache;
+    private final StaleRateRevalidator staleRateRevalidator;
+    private final RateRollupRepository rateRollupRepository;
+    private final RateHistoryStore rateHistoryStore;
+    private final TrendCache trendCache;
+    private final RateTrendRepository rateTrendRepository;
+
+    @Value("${exchange.conversion.fixed-point:true}")
+    private boolean fixedPointEnabled;
+
+    @Value("${exchange.cache.max-age:PT2H}")
+    private Duration maxAge = Duration.ofHours(2);
+
+    @Value("${exchange.cache.stale-while-revalidate:PT22H}")
+    private Duration staleWhileRevalidate = Duration.ofHours(22);
+
+    @Value("${exchange.history.rollups:true}")
+    private boolean rollupsEnabled;
+
+    @Value("${exchange.history.retention.months:24}")
+    private int retentionMonths = 24;
 
     /**
      * Converts an amount from one currency to another using the best cached rate.
+     * With {@code exchange.conversion.fixed-point} enabled the multiplication runs on scaled
+     * longs and falls back to BigDecimal only when the product could overflow.
+     * A rate older than {@code exchange.cache.max-age} is still served but triggers a background
+     * refresh of its base; one older than max age plus {@code exchange.cache.stale-while-revalidate}
+     * is rejected. Rates restored from the snapshot file are reported as stale until the first live fetch.
      *
      * @param amount the amount to convert
      * @param from   the source currency code
@@ -40,10 +85,21 @@ public class ExchangeRateService {
         String fromUpper = from.toUpperCase();
         String toUpper = to.toUpperCase();
 
-        BigDecimal rate = exchangeRateCache.getBestRate(fromUpper, toUpper)
+        RateEntry entry = exchangeRateCache.getRateEntry(fromUpper, toUpper)
                 .orElseThrow(() -> new ExchangeRateNotFoundException(fromUpper, toUpper));
+        BigDecimal rate = entry.rate();
+
+        Freshness freshness = entry.freshnessAt(LocalDateTime.now(), maxAge, staleWhileRevalidate);
+        if (freshness == Freshness.EXPIRED) {
+            throw new ExchangeRateExpiredException(fromUpper, toUpper, entry.fetchedAt());
+        }
+        if (freshness == Freshness.STALE) {
+            staleRateRevalidator.requestRefresh(fromUpper);
+        }
 
-        BigDecimal convertedAmount = amount.multiply(rate).setScale(SCALE, RoundingMode.HALF_UP);
+        BigDecimal convertedAmount = fixedPointEnabled
+                ? FixedPoint.multiply(amount, rate, entry.scaledRate())
+                : FixedPoint.multiplyExact(amount, rate);
 
         return ConversionResponse.builder()
                 .from(fromUpper)
@@ -51,12 +107,24 @@ public class ExchangeRateService {
                 .amount(amount)
                 .convertedAmount(convertedAmount)
                 .rate(rate)
-                .timestamp(LocalDateTime.now())
+                .timestamp(entry.fetchedAt())
+                .source(entry.source())
+                .stale(freshness == Freshness.STALE || exchangeRateCache.isServingRestoredSnapshot())
                 .build();
     }
 
     /**
      * Calculates the exchange rate trend over a specified period.
+     * The start rate is the one in effect at the start of the period, that is the last row
+     * written at or before it; unchanged rates are not written again, so there may be no row
+     * exactly at the start. If the history begins inside the period, its first row is used.
+     * With {@code exchange.history.rollups} enabled both rates are read from the hourly and
+     * daily rollups wherever a whole bucket lies on one side of the period start, and from raw
+     * rows only within the hour around it. Windows inside the horizon of the in-memory
+     * {@link RateHistoryStore} do not touch the database at all.
+     *
+     * <p>Trends are cached in the {@link TrendCache} until the next cycle is persisted, and concurrent
+     * requests for the same pair and period share one computation.
      *
      * @param from   source currency
      * @param to     target currency
@@ -66,33 +134,200 @@ public class ExchangeRateService {
     public TrendResponse getTrend(String from, String to, String period) {
         String fromUpper = from.toUpperCase();
         String toUpper = to.toUpperCase();
+        String periodUpper = period.trim().toUpperCase();
+        return trendCache.get(fromUpper, toUpper, periodUpper, () -> computeTrend(fromUpper, toUpper, periodUpper));
+    }
 
+    /**
+     * Calculates a trend from the rate history, bypassing the {@link TrendCache}.
+     *
+     * @param from   source currency, upper case
+     * @param to     target currency, upper case
+     * @param period the period string, upper case
+     * @return the trend information
+     */
+    public TrendResponse computeTrend(String from, String to, String period) {
         LocalDateTime since = parsePeriod(period);
 
-        ExchangeRate oldRate = exchangeRateRepository
-                .findOldestRateSince(fromUpper, toUpper, since)
-                .orElseThrow(() -> new ExchangeRateNotFoundException(fromUpper, toUpper));
+        boolean inMemory = rateHistoryStore.covers(from, to, since);
+        BigDecimal rateAtStart = (inMemory
+                ? rateHistoryStore.findRateAtOrBefore(from, to, since)
+                        .or(() -> rateHistoryStore.findFirstRateSince(from, to, since))
+                : findRateAtStart(from, to, since))
+                .orElseThrow(() -> new ExchangeRateNotFoundException(from, to));
 
-        ExchangeRate latestRate = exchangeRateRepository
-                .findLatestRate(fromUpper, toUpper)
-                .orElseThrow(() -> new ExchangeRateNotFoundException(fromUpper, toUpper));
+        BigDecimal currentRate = (inMemory
+                ? rateHistoryStore.findLatestRate(from, to)
+                : findLatestRate(from, to))
+                .orElseThrow(() -> new ExchangeRateNotFoundException(from, to));
+
+        return trend(from, to, period, rateAtStart, currentRate);
+    }
+
+    /**
+     * Calculates the trends of one base currency against many targets over several periods.
+     * Trends already cached for the current persisted version are reused. Targets the
+     * {@link RateHistoryStore} covers are computed in memory and the rates of every other target
+     * are read with a single query, resolved like {@link #computeTrend}; the resulting trends are
+     * cached in turn. Targets without rate history are left out of the response.
+     *
+     * @param base    the base currency
+     * @param targets the target currencies
+     * @param periods the period strings (e.g., "12H", "10D", "3M", "1Y")
+     * @return the trends by target, with one value per period in the order of the periods
+     */
+    public BatchTrendResponse getTrends(String base, Collection<String> targets, Collection<String> periods) {
+        String baseUpper = base.toUpperCase();
+        List<String> periodList = periods.stream()
+                .map(period -> period.trim().toUpperCase())
+                .distinct()
+                .toList();
+        if (periodList.isEmpty()) {
+            throw new InvalidPeriodException("(none)");
+        }
+        List<LocalDateTime> starts = periodList.stream().map(this::parsePeriod).toList();
+        List<String> targetList = targets.stream()
+                .map(String::toUpperCase)
+                .filter(target -> !target.equals(baseUpper))
+                .distinct()
+                .toList();
+
+        long version = trendCache.currentVersion();
+        LocalDateTime earliestStart = starts.stream().min(LocalDateTime::compareTo).orElseThrow();
+        Map<String, List<TrendResponse>> found = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        int inMemory = 0;
+        for (String target : targetList) {
+            List<TrendResponse> cached = new ArrayList<>();
+            for (String period : periodList) {
+                trendCache.find(version, baseUpper, target, period).ifPresent(cached::add);
+            }
+            if (cached.size() == periodList.size()) {
+                found.put(target, cached);
+            } else if (rateHistoryStore.covers(baseUpper, target, earliestStart)) {
+                inMemory++;
+                List<BigDecimal> ratesAtStart = starts.stream()
+                        .map(since -> rateHistoryStore.findRateAtOrBefore(baseUpper, target, since)
+                                .or(() -> rateHistoryStore.findFirstRateSince(baseUpper, target, since))
+                                .orElseThrow(() -> new ExchangeRateNotFoundException(baseUpper, target)))
+                        .toList();
+                BigDecimal currentRate = rateHistoryStore.findLatestRate(baseUpper, target)
+                        .orElseThrow(() -> new ExchangeRateNotFoundException(baseUpper, target));
+                found.put(target, cacheTrends(version, baseUpper, target, periodList, ratesAtStart, currentRate));
+            } else {
+                missing.add(target);
+            }
+        }
+
+        rateTrendRepository.findTrendRates(baseUpper, missing, starts).forEach((target, rates) -> found.put(target,
+                cacheTrends(version, baseUpper, target, periodList, rates.ratesAtStart(), rates.currentRate())));
+        log.debug("Batch trends for {}: {} targets cached, {} computed in memory, {} read from the database",
+                baseUpper, targetList.size() - missing.size() - inMemory, inMemory, missing.size());
+
+        Map<String, TargetTrends> trends = new LinkedHashMap<>();
+        for (String target : targetList) {
+            List<TrendResponse> targetTrends = found.get(target);
+            if (targetTrends != null) {
+                trends.put(target, TargetTrends.builder()
+                        .currentRate(targetTrends.get(0).getCurrentRate())
+                        .ratesAtStart(targetTrends.stream().map(TrendResponse::getRateAtStart).toList())
+                        .percentageChanges(targetTrends.stream().map(TrendResponse::getPercentageChange).toList())
+                        .build());
+            }
+        }
+        return BatchTrendResponse.builder()
+                .base(baseUpper)
+                .periods(periodList)
+                .trends(trends)
+                .build();
+    }
 
-        BigDecimal percentageChange = latestRate.getRate()
-                .subtract(oldRate.getRate())
-                .divide(oldRate.getRate(), SCALE, RoundingMode.HALF_UP)
+    private List<TrendResponse> cacheTrends(long version, String base, String target, List<String> periods,
+                                            List<BigDecimal> ratesAtStart, BigDecimal currentRate) {
+        List<TrendResponse> trends = new ArrayList<>();
+        for (int i = 0; i < periods.size(); i++) {
+            TrendResponse trend = trend(base, target, periods.get(i), ratesAtStart.get(i), currentRate);
+            trendCache.put(version, trend);
+            trends.add(trend);
+        }
+        return trends;
+    }
+
+    private static TrendResponse trend(String from, String to, String period, BigDecimal rateAtStart,
+                                       BigDecimal currentRate) {
+        BigDecimal percentageChange = currentRate
+                .subtract(rateAtStart)
+                .divide(rateAtStart, SCALE, RoundingMode.HALF_UP)
                 .multiply(BigDecimal.valueOf(100))
                 .setScale(2, RoundingMode.HALF_UP);
 
         return TrendResponse.builder()
-                .from(fromUpper)
-                .to(toUpper)
-                .period(period.toUpperCase())
-                .rateAtStart(oldRate.getRate())
-                .currentRate(latestRate.getRate())
+                .from(from)
+                .to(to)
+                .period(period)
+                .rateAtStart(rateAtStart)
+                .currentRate(currentRate)
                 .percentageChange(percentageChange)
                 .build();
     }
 
+    private Optional<BigDecimal> findRateAtStart(String from, String to, LocalDateTime since) {
+        if (!rollupsEnabled) {
+            return exchangeRateRepository.findLatestRateBetween(from, to, rawHistoryStart(), since)
+                    .or(() -> exchangeRateRepository.findOldestRateSince(from, to, since))
+                    .map(ExchangeRate::getRate);
+        }
+        return findRateInEffectAt(from, to, since)
+                .or(() -> findFirstRateSince(from, to, since));
+    }
+
+    private Optional<BigDecimal> findLatestRate(String from, String to) {
+        if (!rollupsEnabled) {
+            return exchangeRateRepository.findLatestRateSince(from, to, rawHistoryStart()).map(ExchangeRate::getRate);
+        }
+        // The latest row is always the close of the latest daily bucket
+        return rateRollupRepository.findLastClose(from, to, Granularity.DAY, null, null);
+    }
+
+    /**
+     * Returns the last rate written at or before the given time: raw rows of its hour, then the
+     * hourly buckets of its day before that hour, then the daily buckets before that day.
+     */
+    private Optional<BigDecimal> findRateInEffectAt(String from, String to, LocalDateTime at) {
+        LocalDateTime hour = at.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime day = at.truncatedTo(ChronoUnit.DAYS);
+        return exchangeRateRepository.findLatestRateBetween(from, to, hour, at)
+                .map(ExchangeRate::getRate)
+                .or(() -> rateRollupRepository.findLastClose(from, to, Granularity.HOUR, day, hour))
+                .or(() -> rateRollupRepository.findLastClose(from, to, Granularity.DAY, null, day));
+    }
+
+    /**
+     * Returns the first rate written at or after the given time: raw rows up to the next full
+     * hour, then hourly buckets up to the next full day, then daily buckets.
+     */
+    private Optional<BigDecimal> findFirstRateSince(String from, String to, LocalDateTime since) {
+        LocalDateTime hour = ceil(since, ChronoUnit.HOURS);
+        LocalDateTime day = ceil(since, ChronoUnit.DAYS);
+        return exchangeRateRepository.findOldestRateBetween(from, to, since, hour)
+                .map(ExchangeRate::getRate)
+                .or(() -> rateRollupRepository.findFirstOpen(from, to, Granularity.HOUR, hour, day))
+                .or(() -> rateRollupRepository.findFirstOpen(from, to, Granularity.DAY, day, null));
+    }
+
+    /**
+     * Returns the start of the retention window, the lower bound of raw lookups that have no
+     * other one, so they only scan the monthly partitions retention would keep.
+     */
+    private LocalDateTime rawHistoryStart() {
+        return YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay();
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+
     /**
      * Parses a period string like "12H", "10D", "3M", "1Y" into a LocalDateTime
      * representing the start of that period from now.
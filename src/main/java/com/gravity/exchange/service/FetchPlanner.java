@@ -0,0 +1,105 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.cache.RateTriangulator;
+import com.gravity.exchange.client.ExchangeRateProvider;
+import com.gravity.exchange.client.ProviderCapabilities;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Plans the provider requests of a fetch cycle from the capabilities each provider declares:
+ * one request per base, or a single anchor request for a provider that returns whole tables.
+ */
+@Slf4j
+@Component
+public class FetchPlanner {
+
+    private final RateTriangulator rateTriangulator;
+    private final boolean enabled;
+
+    public FetchPlanner(RateTriangulator rateTriangulator,
+                        @Value("${exchange.fetch.planner.enabled:true}") boolean enabled) {
+        this.rateTriangulator = rateTriangulator;
+        this.enabled = enabled;
+    }
+
+    /**
+     * A single provider request.
+     *
+     * @param provider     the provider to call
+     * @param baseCurrency the base currency to request
+     * @param targets      the target currencies to request
+     * @param derivedBases the other bases whose tables are rebased from the answer; empty unless
+     *                     the base is an anchor
+     */
+    public record PlannedFetch(ExchangeRateProvider provider, String baseCurrency, Set<String> targets,
+                               Set<String> derivedBases) {
+    }
+
+    /**
+     * Computes the requests needed to cover the given bases.
+     *
+     * @param providers        the available providers
+     * @param activeCurrencies the active currency codes
+     * @param bases            the base currencies whose rates are needed
+     * @return the planned requests
+     */
+    public List<PlannedFetch> plan(List<ExchangeRateProvider> providers, List<String> activeCurrencies,
+                                   Collection<String> bases) {
+        List<PlannedFetch> plan = new ArrayList<>();
+        for (ExchangeRateProvider provider : providers) {
+            ProviderCapabilities capabilities = provider.getCapabilities();
+            Optional<String> anchor = anchorFor(capabilities, activeCurrencies);
+            if (anchor.isPresent()) {
+                // The other bases are rebased from the anchor table by RateTableRebaser and persisted
+                Set<String> derivedBases = bases.stream()
+                        .filter(base -> !base.equals(anchor.get()))
+                        .filter(capabilities::supports)
+                        .collect(Collectors.toSet());
+                addFetch(plan, provider, capabilities, anchor.get(), activeCurrencies, derivedBases);
+            } else {
+                for (String base : bases) {
+                    addFetch(plan, provider, capabilities, base, activeCurrencies, Set.of());
+                }
+            }
+        }
+        log.debug("Planned {} provider requests for {} bases", plan.size(), bases.size());
+        return plan;
+    }
+
+    /**
+     * Picks the base a whole-table provider is asked for: the first active pivot it supports.
+     * Without triangulation the other bases cannot be derived, so there is no anchor.
+     */
+    private Optional<String> anchorFor(ProviderCapabilities capabilities, List<String> activeCurrencies) {
+        if (!enabled || !rateTriangulator.isEnabled() || !capabilities.returnsAllForBase()) {
+            return Optional.empty();
+        }
+        return rateTriangulator.getPivots().stream()
+                .filter(activeCurrencies::contains)
+                .filter(capabilities::supports)
+                .findFirst();
+    }
+
+    private void addFetch(List<PlannedFetch> plan, ExchangeRateProvider provider, ProviderCapabilities capabilities,
+                          String base, List<String> activeCurrencies, Set<String> derivedBases) {
+        if (!capabilities.supports(base)) {
+            return;
+        }
+        Set<String> targets = activeCurrencies.stream()
+                .filter(c -> !c.equals(base))
+                .filter(capabilities::supports)
+                .collect(Collectors.toSet());
+        if (!targets.isEmpty()) {
+            plan.add(new PlannedFetch(provider, base, targets, derivedBases));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.cache.RateEntry;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The last rates seen per provider, base and target, from which each cycle picks the best rate
+ * per pair. A 304 re-stamps the rates remembered from the provider's previous answer.
+ */
+class LatestProviderRates {
+
+    private final Map<String, Map<String, Map<String, RateEntry>>> byProvider = new ConcurrentHashMap<>();
+
+    /**
+     * Remembers the rates a provider returned for a base.
+     *
+     * @param provider  the provider name
+     * @param base      the base currency code
+     * @param rates     the rates by target currency
+     * @param fetchedAt the fetch time
+     */
+    void update(String provider, String base, Map<String, BigDecimal> rates, LocalDateTime fetchedAt) {
+        Map<String, RateEntry> latest = ratesOf(provider, base);
+        rates.forEach((target, rate) -> latest.put(target, RateEntry.fetched(rate, provider, fetchedAt)));
+    }
+
+    /**
+     * Moves the fetch time of the rates remembered for a base up to a 304 answer.
+     *
+     * @param provider  the provider name
+     * @param base      the base currency code
+     * @param checkedAt the time the provider confirmed the rates
+     */
+    void restamp(String provider, String base, LocalDateTime checkedAt) {
+        ratesOf(provider, base).replaceAll((target, entry) -> RateEntry.fetched(entry.rate(), provider, checkedAt));
+    }
+
+    /**
+     * Picks the best (highest) rate per pair for the given bases across providers, ignoring
+     * rates fetched before the given time.
+     *
+     * @param bases  the base currency codes
+     * @param oldest the oldest fetch time still taken into account
+     * @return the best rates by base and target
+     */
+    Map<String, Map<String, RateEntry>> selectBest(Collection<String> bases, LocalDateTime oldest) {
+        Map<String, Map<String, RateEntry>> bestRates = new HashMap<>();
+        for (Map<String, Map<String, RateEntry>> byBase : byProvider.values()) {
+            for (String base : bases) {
+                Map<String, RateEntry> rates = byBase.get(base);
+                if (rates == null) {
+                    continue;
+                }
+                Map<String, RateEntry> bestForBase = bestRates.computeIfAbsent(base, b -> new HashMap<>());
+                rates.forEach((target, entry) -> {
+                    if (!entry.fetchedAt().isBefore(oldest)) {
+                        bestForBase.merge(target, entry, (current, candidate) ->
+                                candidate.rate().compareTo(current.rate()) > 0 ? candidate : current);
+                    }
+                });
+            }
+        }
+        bestRates.values().removeIf(Map::isEmpty);
+        return bestRates;
+    }
+
+    private Map<String, RateEntry> ratesOf(String provider, String base) {
+        return byProvider.computeIfAbsent(provider, p -> new ConcurrentHashMap<>())
+                .computeIfAbsent(base, b -> new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,200 @@
+package com.gravity.exchange.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of a stream of points in time order, holding only
+ * the convex hulls of the open and the waiting bucket. Not thread-safe.
+ *
+ * @param <T> the value carried by each point
+ */
+final class LttbDownsampler<T> {
+
+    private final int threshold;
+    private final long start;
+    private final double bucketWidth;
+    private final List<T> selected = new ArrayList<>();
+
+    private List<Sample<T>> raw = new ArrayList<>();
+    private long seen;
+    private Sample<T> anchor;
+    private Sample<T> pending;
+    private Bucket<T> waiting;
+    private Bucket<T> filling;
+
+    /**
+     * @param threshold the number of points to keep, at least 3
+     * @param start     start of the range, in the unit of the x values
+     * @param end       end of the range
+     */
+    LttbDownsampler(int threshold, long start, long end) {
+        if (threshold < 3) {
+            throw new IllegalArgumentException("threshold must be at least 3");
+        }
+        this.threshold = threshold;
+        this.start = start;
+        this.bucketWidth = Math.max(1.0, (double) (end - start) / (threshold - 2));
+    }
+
+    /**
+     * Adds the next point. Points must come in non-decreasing x order.
+     */
+    void add(long x, double y, T value) {
+        Sample<T> sample = new Sample<>(seen++, x - start, y, value);
+        // Up to threshold points are kept as they are and returned unchanged if the stream ends there
+        if (raw != null) {
+            raw.add(sample);
+            if (raw.size() > threshold) {
+                List<Sample<T>> buffered = raw;
+                raw = null;
+                buffered.forEach(this::accept);
+            }
+            return;
+        }
+        accept(sample);
+    }
+
+    /**
+     * Returns the number of points added.
+     */
+    long count() {
+        return seen;
+    }
+
+    /**
+     * Completes the stream and returns the kept values in time order.
+     */
+    List<T> finish() {
+        if (raw != null) {
+            return raw.stream().map(Sample::value).toList();
+        }
+        if (filling != null) {
+            closeFilling();
+        }
+        if (waiting != null) {
+            resolve(waiting, pending.x(), pending.y());
+        }
+        selected.add(pending.value());
+        return selected;
+    }
+
+    private void accept(Sample<T> sample) {
+        if (anchor == null) {
+            anchor = sample;
+            selected.add(sample.value());
+            return;
+        }
+        if (pending != null) {
+            place(pending);
+        }
+        // Held back one point, so the last one is never put into a bucket
+        pending = sample;
+    }
+
+    private void place(Sample<T> sample) {
+        int index = (int) Math.min(threshold - 3, Math.max(0, (long) Math.floor(sample.x() / bucketWidth)));
+        if (filling != null && filling.index != index) {
+            closeFilling();
+        }
+        if (filling == null) {
+            filling = new Bucket<>(index);
+        }
+        filling.add(sample);
+    }
+
+    private void closeFilling() {
+        if (waiting != null) {
+            resolve(waiting, filling.averageX(), filling.averageY());
+        }
+        waiting = filling;
+        filling = null;
+    }
+
+    private void resolve(Bucket<T> bucket, double nextX, double nextY) {
+        Sample<T> best = bucket.largestTriangle(anchor, nextX, nextY);
+        selected.add(best.value());
+        anchor = best;
+    }
+
+    private record Sample<T>(long sequence, double x, double y, T value) {
+    }
+
+    /**
+     * Running average and convex hull of the points of one bucket. With the other two corners
+     * fixed the triangle area is linear in the candidate, so the largest one lies on the hull.
+     */
+    private static final class Bucket<T> {
+
+        private final int index;
+        private final List<Sample<T>> lower = new ArrayList<>();
+        private final List<Sample<T>> upper = new ArrayList<>();
+        private double sumX;
+        private double sumY;
+        private long count;
+
+        Bucket(int index) {
+            this.index = index;
+        }
+
+        void add(Sample<T> sample) {
+            sumX += sample.x();
+            sumY += sample.y();
+            count++;
+            push(lower, sample, -1);
+            push(upper, sample, 1);
+        }
+
+        double averageX() {
+            return sumX / count;
+        }
+
+        double averageY() {
+            return sumY / count;
+        }
+
+        /**
+         * Returns the point forming the largest triangle with the two given corners. Collinear
+         * points are dropped from the hull, so on an exact tie the point may differ from the one a
+         * plain scan of the bucket would return, with the same area.
+         */
+        Sample<T> largestTriangle(Sample<T> previous, double nextX, double nextY) {
+            Sample<T> best = null;
+            double bestArea = -1;
+            for (List<Sample<T>> chain : List.of(lower, upper)) {
+                for (Sample<T> candidate : chain) {
+                    double area = Math.abs((previous.x() - nextX) * (candidate.y() - previous.y())
+                            - (previous.x() - candidate.x()) * (nextY - previous.y()));
+                    if (area > bestArea || (area == bestArea && candidate.sequence() < best.sequence())) {
+                        best = candidate;
+                        bestArea = area;
+                    }
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Appends a point to a monotone chain, dropping points that are no longer on its side of
+         * the hull: sign -1 keeps the lower chain, 1 the upper. Of points with the same x only the
+         * outermost is kept, as rates from several sources can share a timestamp in any order.
+         */
+        private static <T> void push(List<Sample<T>> chain, Sample<T> sample, int sign) {
+            if (!chain.isEmpty() && chain.get(chain.size() - 1).x() == sample.x()) {
+                if (sign * (sample.y() - chain.get(chain.size() - 1).y()) <= 0) {
+                    return;
+                }
+                chain.remove(chain.size() - 1);
+            }
+            while (chain.size() >= 2
+                    && sign * cross(chain.get(chain.size() - 2), chain.get(chain.size() - 1), sample) >= 0) {
+                chain.remove(chain.size() - 1);
+            }
+            chain.add(sample);
+        }
+
+        private static double cross(Sample<?> o, Sample<?> a, Sample<?> b) {
+            return (a.x() - o.x()) * (b.y() - o.y()) - (a.y() - o.y()) * (b.x() - o.x());
+        }
+    }
+}
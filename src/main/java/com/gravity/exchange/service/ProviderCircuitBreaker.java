@@ -0,0 +1,174 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.dto.ProviderCircuitStatus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Circuit breaker for a single provider. It tracks the outcome and latency of the last
+ * {@code windowSize} calls; a call slower than the slow-call threshold counts as a failure.
+ * Once the failure rate reaches the threshold the circuit opens and every call is skipped.
+ * When the open period ends, exactly one caller is let through as a half-open probe: success
+ * closes the circuit, failure reopens it with the open period doubled, up to a maximum.
+ */
+public class ProviderCircuitBreaker {
+
+    /**
+     * Circuit state.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String providerName;
+    private final Clock clock;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final Duration slowCallThreshold;
+    private final Duration initialOpenDuration;
+    private final Duration maxOpenDuration;
+
+    private final boolean[] failures;
+    private final long[] latenciesMs;
+    private int next;
+    private int recorded;
+
+    private State state = State.CLOSED;
+    private Duration openDuration;
+    private Instant openUntil;
+
+    public ProviderCircuitBreaker(String providerName, Clock clock, int windowSize, int minimumCalls,
+                                  double failureRateThreshold, Duration slowCallThreshold,
+                                  Duration initialOpenDuration, Duration maxOpenDuration) {
+        this.providerName = providerName;
+        this.clock = clock;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThreshold = slowCallThreshold;
+        this.initialOpenDuration = initialOpenDuration;
+        this.maxOpenDuration = maxOpenDuration;
+        this.failures = new boolean[windowSize];
+        this.latenciesMs = new long[windowSize];
+        this.openDuration = initialOpenDuration;
+    }
+
+    /**
+     * Asks for permission to call the provider.
+     *
+     * @return true if the call may proceed, false if it has to be skipped
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && !clock.instant().isBefore(openUntil)) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Records a call that returned normally.
+     *
+     * @param latency how long the call took
+     */
+    public synchronized void onSuccess(Duration latency) {
+        boolean slow = latency.compareTo(slowCallThreshold) > 0;
+        if (state == State.HALF_OPEN) {
+            if (slow) {
+                reopen();
+            } else {
+                close();
+            }
+            return;
+        }
+        record(slow, latency.toMillis());
+    }
+
+    /**
+     * Records a call that failed.
+     *
+     * @param latency how long the call took before it failed
+     */
+    public synchronized void onFailure(Duration latency) {
+        if (state == State.HALF_OPEN) {
+            reopen();
+            return;
+        }
+        record(true, latency.toMillis());
+    }
+
+    /**
+     * Returns the current state.
+     *
+     * @return the circuit state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns a snapshot of the breaker for the admin endpoint.
+     *
+     * @return the breaker status
+     */
+    public synchronized ProviderCircuitStatus getStatus() {
+        int failed = 0;
+        long totalLatency = 0;
+        for (int i = 0; i < recorded; i++) {
+            failed += failures[i] ? 1 : 0;
+            totalLatency += latenciesMs[i];
+        }
+        return ProviderCircuitStatus.builder()
+                .provider(providerName)
+                .state(state.name())
+                .recordedCalls(recorded)
+                .failureRate(recorded == 0 ? 0 : (double) failed / recorded)
+                .averageLatencyMs(recorded == 0 ? 0 : totalLatency / recorded)
+                .openUntil(state == State.CLOSED ? null : LocalDateTime.ofInstant(openUntil, ZoneId.systemDefault()))
+                .openDurationSeconds(openDuration.toSeconds())
+                .build();
+    }
+
+    private void record(boolean failure, long latencyMs) {
+        failures[next] = failure;
+        latenciesMs[next] = latencyMs;
+        next = (next + 1) % windowSize;
+        recorded = Math.min(recorded + 1, windowSize);
+        if (state == State.CLOSED && recorded >= minimumCalls && failureRate() >= failureRateThreshold) {
+            openDuration = initialOpenDuration;
+            open();
+        }
+    }
+
+    private double failureRate() {
+        int failed = 0;
+        for (int i = 0; i < recorded; i++) {
+            failed += failures[i] ? 1 : 0;
+        }
+        return (double) failed / recorded;
+    }
+
+    private void reopen() {
+        Duration doubled = openDuration.multipliedBy(2);
+        openDuration = doubled.compareTo(maxOpenDuration) > 0 ? maxOpenDuration : doubled;
+        open();
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = clock.instant().plus(openDuration);
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        openDuration = initialOpenDuration;
+        openUntil = null;
+        next = 0;
+        recorded = 0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.dto.ProviderCircuitStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one {@link ProviderCircuitBreaker} per provider, created on first use with the
+ * settings from {@code exchange.circuit-breaker}.
+ */
+@Component
+public class ProviderCircuitBreakerRegistry {
+
+    private final Map<String, ProviderCircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final Duration slowCallThreshold;
+    private final Duration openDuration;
+    private final Duration maxOpenDuration;
+
+    public ProviderCircuitBreakerRegistry(
+            @Value("${exchange.circuit-breaker.enabled:true}") boolean enabled,
+            @Value("${exchange.circuit-breaker.window-size:10}") int windowSize,
+            @Value("${exchange.circuit-breaker.minimum-calls:5}") int minimumCalls,
+            @Value("${exchange.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${exchange.circuit-breaker.slow-call-threshold:PT5S}") Duration slowCallThreshold,
+            @Value("${exchange.circuit-breaker.open-duration:PT30S}") Duration openDuration,
+            @Value("${exchange.circuit-breaker.max-open-duration:PT30M}") Duration maxOpenDuration) {
+        this.enabled = enabled;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThreshold = slowCallThreshold;
+        this.openDuration = openDuration;
+        this.maxOpenDuration = maxOpenDuration;
+    }
+
+    /**
+     * Asks the provider's breaker for permission to call it.
+     *
+     * @param providerName the provider name
+     * @return true if the call may proceed
+     */
+    public boolean tryAcquire(String providerName) {
+        return !enabled || forProvider(providerName).tryAcquire();
+    }
+
+    /**
+     * Records a successful call.
+     *
+     * @param providerName the provider name
+     * @param latency      how long the call took
+     */
+    public void onSuccess(String providerName, Duration latency) {
+        if (enabled) {
+            forProvider(providerName).onSuccess(latency);
+        }
+    }
+
+    /**
+     * Records a failed call.
+     *
+     * @param providerName the provider name
+     * @param latency      how long the call took before it failed
+     */
+    public void onFailure(String providerName, Duration latency) {
+        if (enabled) {
+            forProvider(providerName).onFailure(latency);
+        }
+    }
+
+    /**
+     * Returns the status of every breaker, ordered by provider name.
+     *
+     * @return breaker statuses
+     */
+    public List<ProviderCircuitStatus> getStatuses() {
+        return breakers.values().stream()
+                .map(ProviderCircuitBreaker::getStatus)
+                .sorted(Comparator.comparing(ProviderCircuitStatus::getProvider))
+                .toList();
+    }
+
+    ProviderCircuitBreaker forProvider(String providerName) {
+        return breakers.computeIfAbsent(providerName, name -> new ProviderCircuitBreaker(name, Clock.systemUTC(),
+                windowSize, minimumCalls, failureRateThreshold, slowCallThreshold, openDuration, maxOpenDuration));
+    }
+}
@@ -0,0 +1,124 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.entity.ExchangeRate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Change-only persistence: remembers the last persisted rate per (pair, source) and lets a
+ * fetched rate through only if it moved by more than a relative epsilon or the heartbeat
+ * interval has passed since the last row. Providers that publish daily would otherwise write
+ * the same value on every hourly cycle.
+ *
+ * <p>The epsilon defaults to {@code exchange.ingestion.delta.epsilon} and can be overridden per
+ * pair with entries like {@code USD/JPY=0.0001}. A rate counts as persisted once it is handed to
+ * the write-behind queue; rows the queue drops are handed back with {@link #forget}, so the next
+ * fetch writes them again. Peers in coherence mode take the freshness of an unchanged rate from
+ * the recorded source checks, not from its row, so the heartbeat may exceed the cache max age.
+ */
+@Slf4j
+@Component
+public class RateChangeFilter {
+
+    private final boolean enabled;
+    private final BigDecimal defaultEpsilon;
+    private final Map<String, BigDecimal> pairEpsilons;
+    private final Duration heartbeat;
+    private final Map<String, ExchangeRate> lastPersisted = new ConcurrentHashMap<>();
+
+    public RateChangeFilter(@Value("${exchange.ingestion.delta.enabled:true}") boolean enabled,
+                            @Value("${exchange.ingestion.delta.epsilon:0}") BigDecimal defaultEpsilon,
+                            @Value("${exchange.ingestion.delta.pair-epsilon:}") List<String> pairEpsilons,
+                            @Value("${exchange.ingestion.delta.heartbeat:PT24H}") Duration heartbeat) {
+        this.enabled = enabled;
+        this.defaultEpsilon = defaultEpsilon;
+        this.pairEpsilons = parsePairEpsilons(pairEpsilons);
+        this.heartbeat = heartbeat;
+    }
+
+    /**
+     * Returns the rates that have to be persisted and remembers them as the last persisted
+     * value of their pair and source.
+     *
+     * @param rates freshly fetched rates
+     * @return the rates that changed or are due for a heartbeat row
+     */
+    public List<ExchangeRate> retainChanged(List<ExchangeRate> rates) {
+        if (!enabled) {
+            return rates;
+        }
+        List<ExchangeRate> changed = rates.stream()
+                .filter(this::shouldPersist)
+                .collect(Collectors.toList());
+        if (changed.size() < rates.size()) {
+            log.debug("Skipped {} unchanged rates of {}", rates.size() - changed.size(), rates.size());
+        }
+        return changed;
+    }
+
+    /**
+     * Forgets rates that were let through but never written, so the next fetch of their pair
+     * and source is persisted whether or not it moved. A pair that has let a newer rate through
+     * since keeps that one.
+     *
+     * @param dropped rates returned by {@link #retainChanged} that were not persisted
+     */
+    public void forget(List<ExchangeRate> dropped) {
+        if (!enabled) {
+            return;
+        }
+        for (ExchangeRate rate : dropped) {
+            lastPersisted.computeIfPresent(keyOf(rate), (key, last) -> last == rate ? null : last);
+        }
+    }
+
+    private String keyOf(ExchangeRate rate) {
+        return rate.getBaseCurrency() + "/" + rate.getTargetCurrency() + "/" + rate.getSource();
+    }
+
+    private boolean shouldPersist(ExchangeRate rate) {
+        boolean[] persist = new boolean[1];
+        lastPersisted.compute(keyOf(rate), (k, last) -> {
+            persist[0] = last == null
+                    || !rate.getTimestamp().isBefore(last.getTimestamp().plus(heartbeat))
+                    || movedBeyondEpsilon(last.getRate(), rate.getRate(), epsilonFor(rate));
+            return persist[0] ? rate : last;
+        });
+        return persist[0];
+    }
+
+    private boolean movedBeyondEpsilon(BigDecimal last, BigDecimal current, BigDecimal epsilon) {
+        return current.subtract(last).abs().compareTo(last.abs().multiply(epsilon)) > 0;
+    }
+
+    private BigDecimal epsilonFor(ExchangeRate rate) {
+        return pairEpsilons.getOrDefault(rate.getBaseCurrency() + "/" + rate.getTargetCurrency(), defaultEpsilon);
+    }
+
+    /**
+     * Parses {@code BASE/TARGET=epsilon} entries.
+     */
+    private Map<String, BigDecimal> parsePairEpsilons(List<String> entries) {
+        Map<String, BigDecimal> parsed = new HashMap<>();
+        for (String entry : entries) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2 || parts[0].isBlank()) {
+                if (!entry.isBlank()) {
+                    log.warn("Ignoring malformed pair epsilon '{}', expected BASE/TARGET=epsilon", entry);
+                }
+                continue;
+            }
+            parsed.put(parts[0].trim().toUpperCase(), new BigDecimal(parts[1].trim()));
+        }
+        return Map.copyOf(parsed);
+    }
+}
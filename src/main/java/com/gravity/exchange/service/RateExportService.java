@@ -0,0 +1,193 @@
+package com.gravity.exchange.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gravity.exchange.exception.InvalidHistoryQueryException;
+import com.gravity.exchange.repository.RateHistoryRepository;
+import com.gravity.exchange.repository.RateHistoryRepository.CurrencyPair;
+import com.gravity.exchange.repository.RateHistoryRepository.RateRow;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Exports raw rate history for offline analysis as NDJSON or CSV. Rows are streamed from a
+ * database cursor straight into the output stream, one at a time, so an export of any range
+ * runs in constant memory.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Output format of an export.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum ExportFormat {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+    }
+
+    /**
+     * A validated export request.
+     *
+     * @param pairs  the pairs to export, in output order
+     * @param from   start of the range, inclusive
+     * @param to     end of the range, exclusive
+     * @param format the output format
+     */
+    public record ExportRequest(List<CurrencyPair> pairs, LocalDateTime from, LocalDateTime to,
+                                ExportFormat format) {
+
+        /**
+         * Returns the file name suggested to the client.
+         *
+         * @return the file name
+         */
+        public String filename() {
+            return "exchange-rates-" + from.toLocalDate() + "-" + to.toLocalDate() + "." + format.getExtension();
+        }
+    }
+
+    private final RateHistoryRepository rateHistoryRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Validates and normalises the parameters of an export before anything is written.
+     *
+     * @param pairs  pair codes such as {@code USD/EUR}
+     * @param from   start of the range, inclusive
+     * @param to     end of the range, exclusive
+     * @param format {@code ndjson} or {@code csv}
+     * @return the export request
+     */
+    public ExportRequest prepare(Collection<String> pairs, LocalDateTime from, LocalDateTime to, String format) {
+        if (!from.isBefore(to)) {
+            throw new InvalidHistoryQueryException("Range start " + from + " must be before its end " + to);
+        }
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidHistoryQueryException("Unsupported export format: " + format
+                    + ". Expected ndjson or csv");
+        }
+        return new ExportRequest(pairs.stream().map(RateExportService::parsePair).distinct().toList(),
+                from, to, exportFormat);
+    }
+
+    /**
+     * Streams the requested history into the output stream and flushes it. The stream is not
+     * closed.
+     *
+     * @param request the export request
+     * @param out     where the export is written
+     * @return the number of rows written
+     * @throws IOException if writing to the output fails
+     */
+    public long write(ExportRequest request, OutputStream out) throws IOException {
+        long startedAt = System.nanoTime();
+        long rows;
+        try {
+            rows = request.format() == ExportFormat.NDJSON ? writeNdjson(request, out) : writeCsv(request, out);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        log.info("Exported {} rates for {} pairs between {} and {} as {} in {} ms", rows, request.pairs().size(),
+                request.from(), request.to(), request.format(), (System.nanoTime() - startedAt) / 1_000_000);
+        return rows;
+    }
+
+    private long writeNdjson(ExportRequest request, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        long rows = stream(request, row -> {
+            try {
+                generator.writeStartObject();
+                generator.writeStringField("base", row.baseCurrency());
+                generator.writeStringField("target", row.targetCurrency());
+                generator.writeStringField("source", row.source());
+                generator.writeFieldName("rate");
+                generator.writeNumber(row.rate().toPlainString());
+                generator.writeStringField("timestamp", row.timestamp().toString());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        generator.close();
+        return rows;
+    }
+
+    private long writeCsv(ExportRequest request, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write("base_currency,target_currency,source,rate,timestamp\n");
+        long rows = stream(request, row -> {
+            try {
+                writer.write(row.baseCurrency());
+                writer.write(',');
+                writer.write(row.targetCurrency());
+                writer.write(',');
+                writer.write(csvField(row.source()));
+                writer.write(',');
+                writer.write(row.rate().toPlainString());
+                writer.write(',');
+                writer.write(row.timestamp().toString());
+                writer.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        writer.flush();
+        return rows;
+    }
+
+    private long stream(ExportRequest request, Consumer<RateRow> handler) {
+        return rateHistoryRepository.streamRates(request.pairs(), request.from(), request.to(), handler);
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Parses a pair code such as {@code USD/EUR}.
+     */
+    static CurrencyPair parsePair(String pair) {
+        String[] codes = pair.trim().toUpperCase(Locale.ROOT).split("/");
+        if (codes.length != 2 || codes[0].isBlank() || codes[1].isBlank()) {
+            throw new InvalidHistoryQueryException("Invalid currency pair: " + pair + ". Expected e.g. USD/EUR");
+        }
+        return new CurrencyPair(codes[0].trim(), codes[1].trim());
+    }
+}
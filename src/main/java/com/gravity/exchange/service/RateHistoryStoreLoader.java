@@ -0,0 +1,99 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.cache.RateHistoryStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Seeds the {@link RateHistoryStore} from the database at startup. The rate each series had at
+ * the start of the horizon comes from the last daily rollup before it; the rows since then are
+ * streamed from {@code exchange_rate} through a server-side cursor, so loading several days of
+ * history does not materialise them all at once.
+ *
+ * <p>Store size is published as {@code exchange.history.memory.ticks} and
+ * {@code exchange.history.memory.size}.
+ */
+@Slf4j
+@Service
+public class RateHistoryStoreLoader {
+
+    private static final int FETCH_SIZE = 5_000;
+
+    private static final String CARRY_SQL = "SELECT DISTINCT ON (base_currency, target_currency, source) "
+            + "base_currency, target_currency, source, close_rate, close_at FROM exchange_rate_daily "
+            + "WHERE bucket_start < ? ORDER BY base_currency, target_currency, source, bucket_start DESC";
+
+    private static final String TICKS_SQL = "SELECT base_currency, target_currency, source, rate, timestamp "
+            + "FROM exchange_rate WHERE timestamp >= ? "
+            + "ORDER BY base_currency, target_currency, source, timestamp, id";
+
+    private final RateHistoryStore rateHistoryStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public RateHistoryStoreLoader(RateHistoryStore rateHistoryStore,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry) {
+        this.rateHistoryStore = rateHistoryStore;
+        this.jdbcTemplate = jdbcTemplate;
+        // pgJDBC only honours the fetch size inside a transaction
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        Gauge.builder("exchange.history.memory.ticks", rateHistoryStore, RateHistoryStore::getTickCount)
+                .description("Rate history ticks held in memory")
+                .register(meterRegistry);
+        Gauge.builder("exchange.history.memory.size", rateHistoryStore, RateHistoryStore::getSizeInBytes)
+                .description("Heap taken by the compressed in-memory rate history")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void loadOnStartup() {
+        if (!rateHistoryStore.isEnabled()) {
+            return;
+        }
+        try {
+            load();
+        } catch (RuntimeException ex) {
+            log.error("Loading recent rate history failed, trends will be read from the database: {}",
+                    ex.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the store content with the history since the start of its horizon.
+     */
+    public void load() {
+        long startedAt = System.nanoTime();
+        LocalDateTime from = rateHistoryStore.horizonStart(LocalDateTime.now());
+        Timestamp fromTimestamp = Timestamp.valueOf(from);
+        rateHistoryStore.reload(from, loader -> readOnlyTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.query(CARRY_SQL, (RowCallbackHandler) rs -> loader.carry(rs.getString(1),
+                    rs.getString(2), rs.getString(3), rs.getTimestamp(5).toLocalDateTime(), rs.getBigDecimal(4)),
+                    fromTimestamp);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(TICKS_SQL);
+                statement.setFetchSize(FETCH_SIZE);
+                statement.setTimestamp(1, fromTimestamp);
+                return statement;
+            }, (RowCallbackHandler) rs -> loader.tick(rs.getString(1), rs.getString(2), rs.getString(3),
+                    rs.getTimestamp(5).toLocalDateTime(), rs.getBigDecimal(4)));
+        }));
+        log.info("Loaded {} rate history ticks since {} into memory ({} bytes) in {} ms",
+                rateHistoryStore.getTickCount(), from, rateHistoryStore.getSizeInBytes(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+}
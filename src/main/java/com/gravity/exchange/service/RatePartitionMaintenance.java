@@ -0,0 +1,148 @@
+package com.gravity.exchange.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of the {@code exchange_rate} table. Partitions for the
+ * current month and the next {@code exchange.history.partitions.months-ahead} months are created
+ * at startup and every day, so inserts never have to land in the default partition.
+ *
+ * <p>With retention enabled, partitions that end before the first of the month
+ * {@code exchange.history.retention.months} back are dropped, or only detached so they can be
+ * archived, instead of deleting rows. The hourly and daily rollups are not affected, so trends
+ * over longer periods keep working.
+ */
+@Slf4j
+@Service
+public class RatePartitionMaintenance {
+
+    /**
+     * What happens to partitions past the retention period.
+     */
+    public enum RetentionAction {
+        DROP, DETACH
+    }
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("^exchange_rate_p(\\d{6})$");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchedulerLeadership schedulerLeadership;
+    private final int monthsAhead;
+    private final boolean retentionEnabled;
+    private final int retentionMonths;
+    private final RetentionAction retentionAction;
+
+    public RatePartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                    SchedulerLeadership schedulerLeadership,
+                                    @Value("${exchange.history.partitions.months-ahead:3}") int monthsAhead,
+                                    @Value("${exchange.history.retention.enabled:false}") boolean retentionEnabled,
+                                    @Value("${exchange.history.retention.months:24}") int retentionMonths,
+                                    @Value("${exchange.history.retention.action:drop}")
+                                    RetentionAction retentionAction) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schedulerLeadership = schedulerLeadership;
+        this.monthsAhead = monthsAhead;
+        this.retentionEnabled = retentionEnabled;
+        this.retentionMonths = retentionMonths;
+        this.retentionAction = retentionAction;
+    }
+
+    /**
+     * Creates missing partitions on startup, so a node that starts in a new month can write.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        createUpcomingPartitions(YearMonth.now());
+    }
+
+    /**
+     * Daily maintenance: creates upcoming partitions and applies the retention policy. Only the
+     * scheduler leader runs it.
+     */
+    @Scheduled(cron = "${exchange.history.partitions.cron:0 15 0 * * *}")
+    public void maintain() {
+        if (!schedulerLeadership.isLeader()) {
+            log.debug("Skipping partition maintenance, this node is not the scheduler leader");
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        createUpcomingPartitions(current);
+        if (retentionEnabled) {
+            applyRetention(current.minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * Creates the partitions from the given month up to the configured number of months ahead.
+     *
+     * @param from the first month to cover
+     * @return the number of partitions created
+     */
+    public int createUpcomingPartitions(YearMonth from) {
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate month = from.plusMonths(i).atDay(1);
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT create_exchange_rate_partition(?)", Boolean.class, month))) {
+                log.info("Created exchange_rate partition for {}", from.plusMonths(i));
+                created++;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Drops or detaches every monthly partition that ends before the given month.
+     *
+     * @param oldestKept the oldest month to keep
+     * @return the names of the partitions removed
+     */
+    public List<String> applyRetention(YearMonth oldestKept) {
+        List<String> expired = listPartitions().stream()
+                .filter(name -> partitionMonth(name).filter(month -> month.isBefore(oldestKept)).isPresent())
+                .sorted()
+                .toList();
+        for (String partition : expired) {
+            if (retentionAction == RetentionAction.DETACH) {
+                jdbcTemplate.execute("ALTER TABLE exchange_rate DETACH PARTITION " + partition);
+            } else {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            }
+            log.info("Retention: {} exchange_rate partition {}",
+                    retentionAction == RetentionAction.DETACH ? "detached" : "dropped", partition);
+        }
+        return expired;
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = 'exchange_rate'::regclass", String.class);
+    }
+
+    /**
+     * Returns the month a partition covers, from its {@code exchange_rate_pYYYYMM} name. The
+     * default partition and anything not created by this service have none.
+     */
+    static Optional<YearMonth> partitionMonth(String partitionName) {
+        Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        return matcher.matches()
+                ? Optional.of(YearMonth.parse(matcher.group(1), PARTITION_MONTH))
+                : Optional.empty();
+    }
+}
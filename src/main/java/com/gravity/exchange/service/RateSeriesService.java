@@ -0,0 +1,77 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.dto.RateSeriesResponse;
+import com.gravity.exchange.exception.InvalidHistoryQueryException;
+import com.gravity.exchange.repository.RateHistoryRepository;
+import com.gravity.exchange.repository.RateHistoryRepository.CurrencyPair;
+import com.gravity.exchange.repository.RateHistoryRepository.RateRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds chart series of the rate history of a pair. The rows of the range are read in one pass
+ * over the pair index and downsampled on the fly with {@link LttbDownsampler}, so the cost is
+ * linear in the number of rows and memory is bounded by the number of points returned.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateSeriesService {
+
+    static final int MIN_POINTS = 3;
+    static final int MAX_POINTS = 10_000;
+
+    private final RateHistoryRepository rateHistoryRepository;
+
+    /**
+     * Returns the history of a pair in {@code [start, end)} reduced to at most {@code points}
+     * points, keeping the shape of the curve. Ranges with no more rows than that are returned as
+     * stored.
+     *
+     * @param from   source currency code
+     * @param to     target currency code
+     * @param start  start of the range, inclusive
+     * @param end    end of the range, exclusive
+     * @param points the maximum number of points to return
+     * @return the series, empty if there is no history in the range
+     */
+    public RateSeriesResponse getSeries(String from, String to, LocalDateTime start, LocalDateTime end, int points) {
+        if (!start.isBefore(end)) {
+            throw new InvalidHistoryQueryException("Range start " + start + " must be before its end " + end);
+        }
+        if (points < MIN_POINTS || points > MAX_POINTS) {
+            throw new InvalidHistoryQueryException("Points must be between " + MIN_POINTS + " and " + MAX_POINTS
+                    + ", got " + points);
+        }
+        String fromCode = from.trim().toUpperCase(Locale.ROOT);
+        String toCode = to.trim().toUpperCase(Locale.ROOT);
+
+        long startedAt = System.nanoTime();
+        LttbDownsampler<RateRow> downsampler = new LttbDownsampler<>(points, epochMillis(start), epochMillis(end));
+        rateHistoryRepository.streamRates(List.of(new CurrencyPair(fromCode, toCode)), start, end,
+                row -> downsampler.add(epochMillis(row.timestamp()), row.rate().doubleValue(), row));
+        List<RateRow> series = downsampler.finish();
+        log.debug("Downsampled {} rates of {}/{} to {} points in {} ms", downsampler.count(), fromCode, toCode,
+                series.size(), (System.nanoTime() - startedAt) / 1_000_000);
+
+        return RateSeriesResponse.builder()
+                .from(fromCode)
+                .to(toCode)
+                .start(start)
+                .end(end)
+                .sourcePoints(downsampler.count())
+                .timestamps(series.stream().map(RateRow::timestamp).toList())
+                .rates(series.stream().map(RateRow::rate).toList())
+                .build();
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,77 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.entity.ExchangeRate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns the answer to a planned request into the rows to persist: the fetched table plus the
+ * tables of the bases the request stands in for, rebased from it.
+ */
+@Component
+public class RateTableRebaser {
+
+    private static final int DERIVED_SCALE = 8;
+
+    /**
+     * Builds the rows of a fetched table and of every derived base it covers.
+     *
+     * @param fetch     the planned request
+     * @param rates     the answer, by target currency
+     * @param source    the provider name
+     * @param fetchedAt the fetch time
+     * @return the fetched rows followed by the rebased ones
+     */
+    public List<ExchangeRate> toRows(FetchPlanner.PlannedFetch fetch, Map<String, BigDecimal> rates, String source,
+                                     LocalDateTime fetchedAt) {
+        String anchor = fetch.baseCurrency();
+        List<ExchangeRate> rows = new ArrayList<>();
+        rates.forEach((target, rate) -> rows.add(toEntity(anchor, target, rate, source, fetchedAt, null)));
+        for (String base : fetch.derivedBases()) {
+            rows.addAll(rebase(anchor, base, rates, fetch.targets(), source, fetchedAt));
+        }
+        return rows;
+    }
+
+    /**
+     * Rebases the table of anchor A onto base B: B->A is 1/(A->B) and B->T is (A->T)/(A->B).
+     */
+    private List<ExchangeRate> rebase(String anchor, String base, Map<String, BigDecimal> anchorRates,
+                                      Set<String> targets, String source, LocalDateTime fetchedAt) {
+        BigDecimal anchorToBase = anchorRates.get(base);
+        if (anchorToBase == null || anchorToBase.signum() == 0) {
+            return List.of();
+        }
+        List<ExchangeRate> rows = new ArrayList<>();
+        rows.add(toEntity(base, anchor, BigDecimal.ONE.divide(anchorToBase, DERIVED_SCALE, RoundingMode.HALF_UP),
+                source, fetchedAt, "1/(" + anchor + "->" + base + ")"));
+        for (String target : targets) {
+            BigDecimal anchorToTarget = anchorRates.get(target);
+            if (target.equals(base) || anchorToTarget == null) {
+                continue;
+            }
+            rows.add(toEntity(base, target, anchorToTarget.divide(anchorToBase, DERIVED_SCALE, RoundingMode.HALF_UP),
+                    source, fetchedAt, base + "->" + anchor + "->" + target));
+        }
+        return rows;
+    }
+
+    private static ExchangeRate toEntity(String base, String target, BigDecimal rate, String source,
+                                         LocalDateTime timestamp, String derivation) {
+        return ExchangeRate.builder()
+                .baseCurrency(base)
+                .targetCurrency(target)
+                .rate(rate)
+                .source(source)
+                .timestamp(timestamp)
+                .derivation(derivation)
+                .build();
+    }
+}
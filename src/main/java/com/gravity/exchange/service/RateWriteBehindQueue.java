@@ -0,0 +1,265 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.cache.RateHistoryStore;
+import com.gravity.exchange.entity.ExchangeRate;
+import com.gravity.exchange.repository.ExchangeRateIngestionWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded write-behind queue between the fetch cycle and the rate history table. Fetched rates
+ * are enqueued and a background writer drains them in large batches through the
+ * {@link ExchangeRateIngestionWriter}, so a slow database no longer delays cache publication.
+ *
+ * <p>Rows are only ever written by the single writer thread, in the order they were queued, so
+ * {@link #afterPersisted} callbacks run in order. A full queue blocks producers for up to the
+ * offer timeout; rows that still do not fit are dropped and counted in
+ * {@code exchange.ingestion.rows.dropped}, and handed back to the {@link RateChangeFilter} so the
+ * next fetch writes them again. Failed batches are retried with exponential backoff,
+ * unless the writer is interrupted. On shutdown the writer drains the queue before the
+ * application context closes. Written rows are also appended to the in-memory
+ * {@link RateHistoryStore}.
+ *
+ * <p>Queue depth and lag (age of the oldest queued rate) are published as
+ * {@code exchange.ingestion.queue.depth} and {@code exchange.ingestion.queue.lag}.
+ */
+@Slf4j
+@Component
+public class RateWriteBehindQueue {
+
+    private static final long POLL_TIMEOUT_MS = 500;
+    private static final long SHUTDOWN_TIMEOUT_MS = 30_000;
+
+    private final ExchangeRateIngestionWriter exchangeRateIngestionWriter;
+    private final RateHistoryStore rateHistoryStore;
+    private final RateChangeFilter rateChangeFilter;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration offerTimeout;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final BlockingQueue<ExchangeRate> queue;
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final Deque<PendingCallback> callbacks = new ArrayDeque<>();
+    private final Counter writtenRows;
+    private final Counter droppedRows;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public RateWriteBehindQueue(ExchangeRateIngestionWriter exchangeRateIngestionWriter,
+                                RateHistoryStore rateHistoryStore,
+                                RateChangeFilter rateChangeFilter,
+                                MeterRegistry meterRegistry,
+                                @Value("${exchange.ingestion.write-behind.enabled:true}") boolean enabled,
+                                @Value("${exchange.ingestion.write-behind.capacity:100000}") int capacity,
+                                @Value("${exchange.ingestion.write-behind.batch-size:5000}") int batchSize,
+                                @Value("${exchange.ingestion.write-behind.offer-timeout:PT5S}") Duration offerTimeout,
+                                @Value("${exchange.ingestion.write-behind.max-attempts:5}") int maxAttempts,
+                                @Value("${exchange.ingestion.write-behind.retry-backoff:PT1S}") Duration retryBackoff) {
+        this.exchangeRateIngestionWriter = exchangeRateIngestionWriter;
+        this.rateHistoryStore = rateHistoryStore;
+        this.rateChangeFilter = rateChangeFilter;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.offerTimeout = offerTimeout;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writtenRows = meterRegistry.counter("exchange.ingestion.rows.written");
+        this.droppedRows = meterRegistry.counter("exchange.ingestion.rows.dropped");
+        Gauge.builder("exchange.ingestion.queue.depth", queue, BlockingQueue::size)
+                .description("Fetched rates waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("exchange.ingestion.queue.lag", this, q -> q.getLag().toMillis() / 1000.0)
+                .description("Age of the oldest fetched rate waiting to be written")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues rates for persistence. Blocks while the queue is full, up to the offer timeout;
+     * rows that still do not fit are dropped. With write-behind disabled the rates are written
+     * on the calling thread.
+     *
+     * @param rates the rates to persist
+     */
+    public void enqueue(List<ExchangeRate> rates) {
+        if (!enabled) {
+            writeWithRetry(rates);
+            return;
+        }
+        long deadline = System.nanoTime() + offerTimeout.toNanos();
+        for (int i = 0; i < rates.size(); i++) {
+            if (!running) {
+                drop(rates.subList(i, rates.size()), "the write-behind queue is stopped");
+                return;
+            }
+            try {
+                if (queue.offer(rates.get(i), Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                    enqueued.incrementAndGet();
+                    continue;
+                }
+                drop(rates.subList(i, rates.size()), "the write-behind queue stayed full for " + offerTimeout);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                drop(rates.subList(i, rates.size()), "the producer was interrupted");
+            }
+            return;
+        }
+    }
+
+    /**
+     * Runs the callback once every rate enqueued so far has been written (or given up on).
+     * Runs it immediately if nothing is pending.
+     *
+     * @param callback the action to run
+     */
+    public void afterPersisted(Runnable callback) {
+        synchronized (callbacks) {
+            long target = enqueued.get();
+            if (processed.get() < target) {
+                callbacks.addLast(new PendingCallback(target, callback));
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * Returns the number of rates waiting to be written.
+     *
+     * @return queue depth
+     */
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the age of the oldest rate waiting to be written.
+     *
+     * @return the lag, zero when the queue is empty
+     */
+    public Duration getLag() {
+        ExchangeRate head = queue.peek();
+        return head == null ? Duration.ZERO : Duration.between(head.getTimestamp(), LocalDateTime.now());
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writerThread = Thread.ofPlatform()
+                .name("rate-write-behind")
+                .daemon(true)
+                .start(this::drain);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (writerThread == null) {
+            return;
+        }
+        writerThread.join(SHUTDOWN_TIMEOUT_MS);
+        if (writerThread.isAlive() || !queue.isEmpty()) {
+            log.error("Write-behind queue not flushed on shutdown, {} rates left", queue.size());
+        } else {
+            log.info("Write-behind queue flushed on shutdown");
+        }
+    }
+
+    private void drain() {
+        List<ExchangeRate> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ExchangeRate first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeWithRetry(batch);
+                processed.addAndGet(batch.size());
+                batch.clear();
+                runDueCallbacks();
+            } catch (InterruptedException ex) {
+                // Keep draining until stop() clears the running flag and the queue is empty
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private void writeWithRetry(List<ExchangeRate> rates) {
+        Duration backoff = retryBackoff;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writtenRows.increment(exchangeRateIngestionWriter.write(rates));
+                rates.forEach(rate -> rateHistoryStore.append(rate.getBaseCurrency(), rate.getTargetCurrency(),
+                        rate.getSource(), rate.getTimestamp(), rate.getRate()));
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt >= maxAttempts) {
+                    drop(rates, "after " + attempt + " failed write attempts: " + ex.getMessage());
+                    return;
+                }
+                log.warn("Writing {} rates failed (attempt {}/{}), retrying in {}: {}",
+                        rates.size(), attempt, maxAttempts, backoff, ex.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    // Sleeping again would throw at once and burn the remaining attempts without backoff
+                    Thread.currentThread().interrupt();
+                    drop(rates, "the writer was interrupted after " + attempt + " failed write attempts");
+                    return;
+                }
+                backoff = backoff.multipliedBy(2);
+            }
+        }
+    }
+
+    private void drop(List<ExchangeRate> rates, String reason) {
+        droppedRows.increment(rates.size());
+        rateChangeFilter.forget(rates);
+        log.error("Dropping {} rates, {}", rates.size(), reason);
+    }
+
+    private void runDueCallbacks() {
+        List<Runnable> due = new ArrayList<>();
+        synchronized (callbacks) {
+            while (!callbacks.isEmpty() && callbacks.peekFirst().target() <= processed.get()) {
+                due.add(callbacks.pollFirst().callback());
+            }
+        }
+        for (Runnable callback : due) {
+            try {
+                callback.run();
+            } catch (RuntimeException ex) {
+                log.error("Write-behind callback failed: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private record PendingCallback(long target, Runnable callback) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.gravity.exchange.service;
+
+/**
+ * Published by the fetch scheduler once the rows of a cycle are in the database. It is
+ * delivered on the write-behind writer thread, so listeners should hand off any real work.
+ *
+ * @param snapshotVersion the version of the snapshot the cycle published
+ */
+public record RatesPersistedEvent(long snapshotVersion) {
+}
@@ -0,0 +1,173 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.dto.ProviderRefreshProgress;
+import com.gravity.exchange.dto.RefreshJobStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One fetch cycle and its progress. Provider calls report their outcome and latency here as
+ * they finish, so the status can be read while the cycle is still running.
+ */
+public class RefreshJob {
+
+    /**
+     * What started the cycle.
+     */
+    public enum Trigger {
+        STARTUP, SCHEDULED, MANUAL, REVALIDATION
+    }
+
+    /**
+     * Lifecycle of the cycle.
+     */
+    public enum State {
+        RUNNING, SUCCEEDED, FAILED
+    }
+
+    /**
+     * Outcome of a single provider call.
+     */
+    public enum Outcome {
+        FETCHED, NOT_MODIFIED, FAILED, SKIPPED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Trigger trigger;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final Map<String, ProviderCalls> calls = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    private volatile State state = State.RUNNING;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public RefreshJob(Trigger trigger) {
+        this.trigger = trigger;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Registers the provider calls planned for the cycle.
+     *
+     * @param plan the planned calls
+     */
+    void planned(List<FetchPlanner.PlannedFetch> plan) {
+        plan.forEach(fetch -> callsOf(fetch.provider().getProviderName()).addPlanned());
+    }
+
+    /**
+     * Records a finished provider call.
+     *
+     * @param providerName the provider
+     * @param outcome      how the call ended
+     * @param latency      how long it took
+     */
+    void record(String providerName, Outcome outcome, Duration latency) {
+        callsOf(providerName).add(outcome, latency.toMillis());
+    }
+
+    void succeed() {
+        finish(State.SUCCEEDED, null);
+    }
+
+    void fail(Exception ex) {
+        finish(State.FAILED, ex.getMessage());
+    }
+
+    /**
+     * Waits for the cycle to finish.
+     */
+    void await() {
+        done.join();
+    }
+
+    /**
+     * Returns a snapshot of the job for the status endpoint.
+     *
+     * @return the job status
+     */
+    public RefreshJobStatus toStatus() {
+        LocalDateTime end = finishedAt;
+        List<ProviderRefreshProgress> providers = calls.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> entry.getValue().toProgress(entry.getKey()))
+                .toList();
+        return RefreshJobStatus.builder()
+                .jobId(id)
+                .trigger(trigger.name())
+                .state(state.name())
+                .startedAt(startedAt)
+                .finishedAt(end)
+                .durationMs(Duration.between(startedAt, end == null ? LocalDateTime.now() : end).toMillis())
+                .error(error)
+                .providers(providers)
+                .build();
+    }
+
+    private void finish(State finalState, String failure) {
+        error = failure;
+        finishedAt = LocalDateTime.now();
+        state = finalState;
+        done.complete(null);
+    }
+
+    private ProviderCalls callsOf(String providerName) {
+        return calls.computeIfAbsent(providerName, p -> new ProviderCalls());
+    }
+
+    private static final class ProviderCalls {
+
+        private final Map<Outcome, Integer> outcomes = new EnumMap<>(Outcome.class);
+        private int planned;
+        private long totalLatencyMs;
+        private long maxLatencyMs;
+
+        private synchronized void addPlanned() {
+            planned++;
+        }
+
+        private synchronized void add(Outcome outcome, long latencyMs) {
+            outcomes.merge(outcome, 1, Integer::sum);
+            totalLatencyMs += latencyMs;
+            maxLatencyMs = Math.max(maxLatencyMs, latencyMs);
+        }
+
+        private synchronized ProviderRefreshProgress toProgress(String providerName) {
+            int fetched = outcomes.getOrDefault(Outcome.FETCHED, 0);
+            int notModified = outcomes.getOrDefault(Outcome.NOT_MODIFIED, 0);
+            int failed = outcomes.getOrDefault(Outcome.FAILED, 0);
+            int skipped = outcomes.getOrDefault(Outcome.SKIPPED, 0);
+            int answered = fetched + notModified + failed;
+            return ProviderRefreshProgress.builder()
+                    .provider(providerName)
+                    .plannedCalls(planned)
+                    .pendingCalls(Math.max(planned - answered - skipped, 0))
+                    .fetchedCalls(fetched)
+                    .notModifiedCalls(notModified)
+                    .failedCalls(failed)
+                    .skippedCalls(skipped)
+                    .averageLatencyMs(answered == 0 ? 0 : totalLatencyMs / answered)
+                    .maxLatencyMs(maxLatencyMs)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.gravity.exchange.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * The refresh jobs of this node: the single job in flight and the most recent ones by id.
+ */
+@Slf4j
+class RefreshJobs {
+
+    private static final int HISTORY = 50;
+
+    private final AtomicReference<RefreshJob> inFlight = new AtomicReference<>();
+    private final Map<String, RefreshJob> recent = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RefreshJob> eldest) {
+            return size() > HISTORY;
+        }
+    });
+
+    /**
+     * Starts a cycle on the executor, unless a cycle is already in flight, in which case that
+     * cycle's job is returned. A revalidation is not joined: it only covers one base, so the new
+     * cycle waits for it and then starts.
+     *
+     * @param trigger  what started the cycle
+     * @param executor runs the cycle
+     * @param cycle    the cycle, reporting to its job
+     * @return the job of the started or joined cycle
+     */
+    RefreshJob start(RefreshJob.Trigger trigger, Executor executor, Consumer<RefreshJob> cycle) {
+        RefreshJob job = new RefreshJob(trigger);
+        RefreshJob running;
+        while ((running = inFlight.compareAndExchange(null, job)) != null) {
+            if (running.getTrigger() != RefreshJob.Trigger.REVALIDATION) {
+                log.info("{} refresh joined the {} cycle already in flight (job {})",
+                        trigger, running.getTrigger(), running.getId());
+                return running;
+            }
+            log.debug("{} refresh waits for revalidation job {}", trigger, running.getId());
+            running.await();
+        }
+        recent.put(job.getId(), job);
+        try {
+            executor.execute(() -> runCycle(job, cycle));
+        } catch (RejectedExecutionException ex) {
+            inFlight.compareAndSet(job, null);
+            job.fail(ex);
+        }
+        return job;
+    }
+
+    /**
+     * Runs a job on the calling thread if nothing else is in flight.
+     *
+     * @param trigger what started the job
+     * @param work    the work, reporting to its job
+     * @return false if the job was skipped because another one was in flight
+     */
+    boolean runIfIdle(RefreshJob.Trigger trigger, Consumer<RefreshJob> work) {
+        RefreshJob job = new RefreshJob(trigger);
+        RefreshJob running = inFlight.compareAndExchange(null, job);
+        if (running != null) {
+            log.debug("Skipping {} job, the {} job {} is already running", trigger, running.getTrigger(),
+                    running.getId());
+            return false;
+        }
+        recent.put(job.getId(), job);
+        try {
+            work.accept(job);
+        } catch (RuntimeException ex) {
+            inFlight.compareAndSet(job, null);
+            job.fail(ex);
+            throw ex;
+        }
+        inFlight.compareAndSet(job, null);
+        job.succeed();
+        return true;
+    }
+
+    /**
+     * Returns a recent job.
+     *
+     * @param jobId the job id
+     * @return the job, if it is among the most recent ones
+     */
+    Optional<RefreshJob> find(String jobId) {
+        return Optional.ofNullable(recent.get(jobId));
+    }
+
+    private void runCycle(RefreshJob job, Consumer<RefreshJob> cycle) {
+        RuntimeException failure = null;
+        try {
+            cycle.accept(job);
+        } catch (RuntimeException ex) {
+            log.error("Refresh job {} failed: {}", job.getId(), ex.getMessage(), ex);
+            failure = ex;
+        } finally {
+            // Clear before completing so a caller woken by the job can start the next cycle
+            inFlight.compareAndSet(job, null);
+        }
+        if (failure == null) {
+            job.succeed();
+        } else {
+            job.fail(failure);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.gravity.exchange.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Elects one node of the cluster to run the fetch cycles, using a PostgreSQL session-level
+ * advisory lock held on a dedicated connection. With leadership disabled every node is leader.
+ */
+@Slf4j
+@Service
+public class SchedulerLeadership {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean enabled;
+    private final String lockName;
+    private final Duration lease;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile Instant leaderUntil = Instant.MIN;
+    private volatile boolean running;
+    private boolean lockHeld;
+    private Connection lockConnection;
+    private Thread leadershipThread;
+
+    public SchedulerLeadership(DataSourceProperties dataSourceProperties,
+                               @Value("${exchange.leadership.enabled:false}") boolean enabled,
+                               @Value("${exchange.leadership.lock-name:exchange-rate-scheduler}") String lockName,
+                               @Value("${exchange.leadership.lease:PT30S}") Duration lease) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.enabled = enabled;
+        this.lockName = lockName;
+        this.lease = lease;
+    }
+
+    /**
+     * Returns whether this node should run fetch cycles.
+     *
+     * @return true if leadership is disabled or this node holds a live lease
+     */
+    public boolean isLeader() {
+        // A leader that cannot reach the database stops fetching once its last check is a lease old
+        return !enabled || Instant.now().isBefore(leaderUntil);
+    }
+
+    /**
+     * Returns whether leadership election is enabled.
+     *
+     * @return true if only the elected node fetches
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        // Try once up front so a single node is leader before its startup fetch
+        check();
+        leadershipThread = Thread.ofPlatform()
+                .name("scheduler-leadership")
+                .daemon(true)
+                .start(this::run);
+        log.info("Scheduler leadership enabled on lock '{}' with lease {} as node {}", lockName, lease, nodeId);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (leadershipThread == null) {
+            return;
+        }
+        leadershipThread.interrupt();
+        leadershipThread.join(lease.toMillis());
+        synchronized (this) {
+            if (lockHeld) {
+                log.info("Node {} released scheduler leadership", nodeId);
+            }
+            leaderUntil = Instant.MIN;
+            lockHeld = false;
+            closeQuietly();
+        }
+    }
+
+    private void run() {
+        long checkIntervalMs = Math.max(lease.toMillis() / 3, 1);
+        while (running) {
+            try {
+                Thread.sleep(checkIntervalMs);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            check();
+        }
+    }
+
+    /**
+     * Renews the lease of a leader, or tries to take the lock as a follower.
+     */
+    synchronized void check() {
+        if (!running) {
+            return;
+        }
+        try {
+            if (lockConnection == null) {
+                lockConnection = openLockConnection();
+            }
+            Instant checkedAt = Instant.now();
+            if (lockHeld) {
+                if (!holdsLock()) {
+                    throw new SQLException("advisory lock is no longer held by this session");
+                }
+                leaderUntil = checkedAt.plus(lease);
+            } else if (tryLock()) {
+                lockHeld = true;
+                leaderUntil = checkedAt.plus(lease);
+                log.info("Node {} became scheduler leader", nodeId);
+            }
+        } catch (SQLException ex) {
+            if (lockHeld) {
+                log.warn("Node {} lost scheduler leadership: {}", nodeId, ex.getMessage());
+            } else {
+                log.warn("Scheduler leadership check failed: {}", ex.getMessage());
+            }
+            leaderUntil = Instant.MIN;
+            lockHeld = false;
+            closeQuietly();
+        }
+    }
+
+    private Connection openLockConnection() throws SQLException {
+        // A pooled connection would outlive close() and keep holding the lock
+        Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+        try (Statement statement = connection.createStatement()) {
+            // Let the server notice a vanished leader and drop its session, and the lock, within the lease
+            long keepaliveSeconds = Math.max(lease.toSeconds() / 3, 1);
+            statement.execute("SET tcp_keepalives_idle = " + keepaliveSeconds);
+            statement.execute("SET tcp_keepalives_interval = " + Math.max(keepaliveSeconds / 2, 1));
+            statement.execute("SET tcp_keepalives_count = 2");
+        } catch (SQLException ex) {
+            connection.close();
+            throw ex;
+        }
+        return connection;
+    }
+
+    private boolean tryLock() throws SQLException {
+        String sql = "SELECT pg_try_advisory_lock(hashtext(?))";
+        try (PreparedStatement statement = lockConnection.prepareStatement(sql)) {
+            statement.setQueryTimeout(timeoutSeconds());
+            statement.setString(1, lockName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean holdsLock() throws SQLException {
+        // A one-argument bigint key is stored as its high and low halves with objsubid 1
+        String sql = "SELECT 1 FROM pg_locks WHERE locktype = 'advisory' AND pid = pg_backend_pid() AND granted"
+                + " AND objsubid = 1 AND classid = ((hashtext(?)::bigint >> 32) & 4294967295)::oid"
+                + " AND objid = (hashtext(?)::bigint & 4294967295)::oid";
+        try (PreparedStatement statement = lockConnection.prepareStatement(sql)) {
+            statement.setQueryTimeout(timeoutSeconds());
+            statement.setString(1, lockName);
+            statement.setString(2, lockName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        if (lockConnection == null) {
+            return;
+        }
+        try {
+            lockConnection.close();
+        } catch (SQLException ex) {
+            log.debug("Closing the leadership connection failed: {}", ex.getMessage());
+        }
+        lockConnection = null;
+    }
+
+    private int timeoutSeconds() {
+        return (int) Math.max(lease.toSeconds() / 3, 1);
+    }
+}
@@ -0,0 +1,53 @@
+package com.gravity.exchange.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Refreshes the rates of a base currency in the background when a stale cache entry is served.
+ * Concurrent requests for the same base are coalesced into one refresh.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StaleRateRevalidator {
+
+    private final ExchangeRateFetchScheduler fetchScheduler;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Schedules a background refresh of the given base unless one is already running.
+     *
+     * @param baseCurrency the base currency code
+     * @return true if a new refresh was scheduled
+     */
+    public boolean requestRefresh(String baseCurrency) {
+        if (!inFlight.add(baseCurrency)) {
+            return false;
+        }
+        log.info("Serving stale rates for base {}, revalidating in background", baseCurrency);
+        executor.execute(() -> {
+            try {
+                fetchScheduler.refreshBase(baseCurrency);
+            } catch (Exception ex) {
+                log.error("Background revalidation for base {} failed: {}", baseCurrency, ex.getMessage());
+            } finally {
+                inFlight.remove(baseCurrency);
+            }
+        });
+        return true;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
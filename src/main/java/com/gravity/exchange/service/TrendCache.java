@@ -0,0 +1,174 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.dto.TrendResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Trends computed from the rate history persisted so far. Entries are keyed on the persisted
+ * version: the snapshot version of the last cycle whose rows reached the database, taken from
+ * {@link RatesPersistedEvent} on the fetching node and from coherence notifications on the
+ * others. A snapshot is published before its rows are written, so a trend keyed on it could miss
+ * the cycle's rows for a whole cycle. The standard periods precomputed after a cycle are served
+ * without touching the history until the rows of the next cycle are persisted.
+ *
+ * <p>Lookups that miss are single-flight: concurrent requests for the same pair and period
+ * wait for one computation instead of each reading the history. Failures are passed on to every
+ * waiting caller and are not cached.
+ */
+@Slf4j
+@Component
+public class TrendCache {
+
+    private final int maxEntries;
+    private final AtomicLong persistedVersion = new AtomicLong();
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Flight, CompletableFuture<TrendResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public TrendCache(@Value("${exchange.trends.cache.max-entries:50000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Moves the cache on to the version whose rows were just persisted. Runs before the other
+     * listeners, so the precomputer already works against the new version.
+     *
+     * @param event the persisted cycle
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRatesPersisted(RatesPersistedEvent event) {
+        markPersisted(event.snapshotVersion());
+    }
+
+    /**
+     * Records that the rows of the given snapshot version are in the database. An older version
+     * is ignored.
+     *
+     * @param version the snapshot version whose rows were persisted
+     */
+    public void markPersisted(long version) {
+        persistedVersion.accumulateAndGet(version, Math::max);
+    }
+
+    /**
+     * Returns the version entries are currently cached for, the last persisted one.
+     *
+     * @return the current persisted version
+     */
+    public long currentVersion() {
+        return persistedVersion.get();
+    }
+
+    /**
+     * Returns the cached trend for the current persisted version, computing it once if it is missing.
+     *
+     * @param from    the base currency code, upper case
+     * @param to      the target currency code, upper case
+     * @param period  the normalised period
+     * @param compute computes the trend on a miss
+     * @return the trend
+     */
+    public TrendResponse get(String from, String to, String period, Supplier<TrendResponse> compute) {
+        long version = currentVersion();
+        Key key = new Key(from, to, period);
+        Entry cached = entries.get(key);
+        if (cached != null && cached.version() == version) {
+            return cached.trend();
+        }
+
+        Flight flightKey = new Flight(key, version);
+        CompletableFuture<TrendResponse> flight = new CompletableFuture<>();
+        CompletableFuture<TrendResponse> running = inFlight.putIfAbsent(flightKey, flight);
+        if (running != null) {
+            log.debug("Joining trend computation for {}/{} {} in flight", from, to, period);
+            return await(running);
+        }
+        try {
+            TrendResponse trend = compute.get();
+            put(version, trend);
+            flight.complete(trend);
+            return trend;
+        } catch (RuntimeException ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * Returns the trend cached for the given persisted version, without computing it.
+     *
+     * @param version the persisted version the caller works against
+     * @param from    the base currency code, upper case
+     * @param to      the target currency code, upper case
+     * @param period  the normalised period
+     * @return the cached trend, if there is one for that version
+     */
+    public Optional<TrendResponse> find(long version, String from, String to, String period) {
+        Entry cached = entries.get(new Key(from, to, period));
+        return cached != null && cached.version() == version ? Optional.of(cached.trend()) : Optional.empty();
+    }
+
+    /**
+     * Stores a trend computed for the given persisted version. An entry for a newer version is
+     * kept.
+     *
+     * @param version the persisted version the trend was computed for
+     * @param trend   the trend
+     */
+    public void put(long version, TrendResponse trend) {
+        if (entries.size() >= maxEntries) {
+            long current = currentVersion();
+            entries.values().removeIf(entry -> entry.version() != current);
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.merge(new Key(trend.getFrom(), trend.getTo(), trend.getPeriod()), new Entry(version, trend),
+                (existing, candidate) -> candidate.version() >= existing.version() ? candidate : existing);
+    }
+
+    /**
+     * Returns the number of cached trends, current or not.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static TrendResponse await(CompletableFuture<TrendResponse> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            // Rethrow what the computing caller got, so it maps to the same response
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private record Key(String from, String to, String period) {
+    }
+
+    private record Flight(Key key, long version) {
+    }
+
+    private record Entry(long version, TrendResponse trend) {
+    }
+}
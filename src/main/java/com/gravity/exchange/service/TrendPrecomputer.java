@@ -0,0 +1,113 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.exception.ExchangeRateNotFoundException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the trends of the standard periods for every active pair once a fetch cycle is
+ * persisted, so the usual trend requests are answered from the {@link TrendCache}.
+ *
+ * <p>Work runs on a single background thread. At most one run waits behind the running one;
+ * a run always computes for the latest persisted version and stops early once a newer one is
+ * persisted, leaving the rest to the run that follows. Nodes that do not fetch receive no event
+ * and compute trends on demand.
+ */
+@Slf4j
+@Component
+public class TrendPrecomputer {
+
+    private final ExchangeRateService exchangeRateService;
+    private final CurrencyService currencyService;
+    private final TrendCache trendCache;
+    private final boolean enabled;
+    private final List<String> periods;
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), Thread.ofVirtual().name("trend-precompute").factory(),
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    private volatile long precomputedVersion = -1;
+
+    public TrendPrecomputer(ExchangeRateService exchangeRateService,
+                            CurrencyService currencyService,
+                            TrendCache trendCache,
+                            @Value("${exchange.trends.precompute.enabled:true}") boolean enabled,
+                            @Value("${exchange.trends.precompute.periods:12H,1D,7D,1M,1Y}") List<String> periods) {
+        this.exchangeRateService = exchangeRateService;
+        this.currencyService = currencyService;
+        this.trendCache = trendCache;
+        this.enabled = enabled;
+        this.periods = periods.stream().map(period -> period.trim().toUpperCase()).toList();
+    }
+
+    /**
+     * Schedules a run for the latest persisted version. A run already waiting covers this event too.
+     *
+     * @param event the persisted cycle
+     */
+    @EventListener
+    public void onRatesPersisted(RatesPersistedEvent event) {
+        if (enabled && !periods.isEmpty()) {
+            executor.execute(this::precomputeLatest);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Computes the standard periods of every active pair for the current persisted version,
+     * unless that version was already done.
+     *
+     * @return the number of trends computed
+     */
+    int precomputeLatest() {
+        long version = trendCache.currentVersion();
+        if (version == precomputedVersion) {
+            return 0;
+        }
+        long startedAt = System.nanoTime();
+        List<String> currencies = currencyService.getActiveCurrencyCodes();
+        int computed = 0;
+        try {
+            for (String from : currencies) {
+                for (String to : currencies) {
+                    if (from.equals(to)) {
+                        continue;
+                    }
+                    for (String period : periods) {
+                        if (trendCache.currentVersion() != version) {
+                            log.debug("Version {} superseded after {} trends, leaving the rest to the next run",
+                                    version, computed);
+                            return computed;
+                        }
+                        try {
+                            trendCache.put(version, exchangeRateService.computeTrend(from, to, period));
+                            computed++;
+                        } catch (ExchangeRateNotFoundException ex) {
+                            // No history for the pair at all, so none of its periods can be computed
+                            break;
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.error("Precomputing trends for version {} failed: {}", version, ex.getMessage());
+            return computed;
+        }
+        precomputedVersion = version;
+        log.info("Precomputed {} trends for version {} in {} ms", computed, version,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        return computed;
+    }
+}
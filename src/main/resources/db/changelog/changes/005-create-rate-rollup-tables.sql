@@ -0,0 +1,99 @@
+--liquibase formatted sql
+
+--changeset gravity:005-create-rate-rollup-tables
+CREATE TABLE exchange_rate_hourly (
+    base_currency   VARCHAR(3)     NOT NULL,
+    target_currency VARCHAR(3)     NOT NULL,
+    bucket_start    TIMESTAMP      NOT NULL,
+    source          VARCHAR(50)    NOT NULL,
+    open_rate       NUMERIC(18, 8) NOT NULL,
+    high_rate       NUMERIC(18, 8) NOT NULL,
+    low_rate        NUMERIC(18, 8) NOT NULL,
+    close_rate      NUMERIC(18, 8) NOT NULL,
+    open_at         TIMESTAMP      NOT NULL,
+    close_at        TIMESTAMP      NOT NULL,
+    tick_count      BIGINT         NOT NULL,
+    PRIMARY KEY (base_currency, target_currency, bucket_start, source)
+);
+
+CREATE TABLE exchange_rate_daily (
+    base_currency   VARCHAR(3)     NOT NULL,
+    target_currency VARCHAR(3)     NOT NULL,
+    bucket_start    TIMESTAMP      NOT NULL,
+    source          VARCHAR(50)    NOT NULL,
+    open_rate       NUMERIC(18, 8) NOT NULL,
+    high_rate       NUMERIC(18, 8) NOT NULL,
+    low_rate        NUMERIC(18, 8) NOT NULL,
+    close_rate      NUMERIC(18, 8) NOT NULL,
+    open_at         TIMESTAMP      NOT NULL,
+    close_at        TIMESTAMP      NOT NULL,
+    tick_count      BIGINT         NOT NULL,
+    PRIMARY KEY (base_currency, target_currency, bucket_start, source)
+);
+
+INSERT INTO exchange_rate_hourly
+SELECT base_currency, target_currency, date_trunc('hour', timestamp), source,
+       (array_agg(rate ORDER BY timestamp, id))[1], MAX(rate), MIN(rate),
+       (array_agg(rate ORDER BY timestamp DESC, id DESC))[1],
+       MIN(timestamp), MAX(timestamp), COUNT(*)
+FROM exchange_rate
+GROUP BY base_currency, target_currency, date_trunc('hour', timestamp), source;
+
+INSERT INTO exchange_rate_daily
+SELECT base_currency, target_currency, date_trunc('day', timestamp), source,
+       (array_agg(rate ORDER BY timestamp, id))[1], MAX(rate), MIN(rate),
+       (array_agg(rate ORDER BY timestamp DESC, id DESC))[1],
+       MIN(timestamp), MAX(timestamp), COUNT(*)
+FROM exchange_rate
+GROUP BY base_currency, target_currency, date_trunc('day', timestamp), source;
+
+--rollback DROP TABLE exchange_rate_daily; DROP TABLE exchange_rate_hourly;
+
+--changeset gravity:005-create-rate-rollup-trigger splitStatements:false
+-- Folds every INSERT or COPY into exchange_rate into the hourly and daily rollups in the same
+-- transaction. Rows may arrive out of order, so open and close follow open_at and close_at.
+-- Deletes are not propagated: the rollups keep the history after raw rows are removed.
+CREATE FUNCTION exchange_rate_rollup() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO exchange_rate_hourly AS r
+    SELECT base_currency, target_currency, date_trunc('hour', timestamp), source,
+           (array_agg(rate ORDER BY timestamp, id))[1], MAX(rate), MIN(rate),
+           (array_agg(rate ORDER BY timestamp DESC, id DESC))[1],
+           MIN(timestamp), MAX(timestamp), COUNT(*)
+    FROM new_rows
+    GROUP BY base_currency, target_currency, date_trunc('hour', timestamp), source
+    ON CONFLICT (base_currency, target_currency, bucket_start, source) DO UPDATE SET
+        open_rate  = CASE WHEN EXCLUDED.open_at < r.open_at THEN EXCLUDED.open_rate ELSE r.open_rate END,
+        open_at    = LEAST(r.open_at, EXCLUDED.open_at),
+        high_rate  = GREATEST(r.high_rate, EXCLUDED.high_rate),
+        low_rate   = LEAST(r.low_rate, EXCLUDED.low_rate),
+        close_rate = CASE WHEN EXCLUDED.close_at >= r.close_at THEN EXCLUDED.close_rate ELSE r.close_rate END,
+        close_at   = GREATEST(r.close_at, EXCLUDED.close_at),
+        tick_count = r.tick_count + EXCLUDED.tick_count;
+
+    INSERT INTO exchange_rate_daily AS r
+    SELECT base_currency, target_currency, date_trunc('day', timestamp), source,
+           (array_agg(rate ORDER BY timestamp, id))[1], MAX(rate), MIN(rate),
+           (array_agg(rate ORDER BY timestamp DESC, id DESC))[1],
+           MIN(timestamp), MAX(timestamp), COUNT(*)
+    FROM new_rows
+    GROUP BY base_currency, target_currency, date_trunc('day', timestamp), source
+    ON CONFLICT (base_currency, target_currency, bucket_start, source) DO UPDATE SET
+        open_rate  = CASE WHEN EXCLUDED.open_at < r.open_at THEN EXCLUDED.open_rate ELSE r.open_rate END,
+        open_at    = LEAST(r.open_at, EXCLUDED.open_at),
+        high_rate  = GREATEST(r.high_rate, EXCLUDED.high_rate),
+        low_rate   = LEAST(r.low_rate, EXCLUDED.low_rate),
+        close_rate = CASE WHEN EXCLUDED.close_at >= r.close_at THEN EXCLUDED.close_rate ELSE r.close_rate END,
+        close_at   = GREATEST(r.close_at, EXCLUDED.close_at),
+        tick_count = r.tick_count + EXCLUDED.tick_count;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER exchange_rate_rollup
+    AFTER INSERT ON exchange_rate
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION exchange_rate_rollup();
+
+--rollback DROP TRIGGER exchange_rate_rollup ON exchange_rate; DROP FUNCTION exchange_rate_rollup();
@@ -0,0 +1,86 @@
+--liquibase formatted sql
+
+--changeset gravity:006-partition-exchange-rate-table
+ALTER TABLE exchange_rate RENAME TO exchange_rate_unpartitioned;
+ALTER INDEX idx_exchange_rate_currencies RENAME TO idx_exchange_rate_unpartitioned_currencies;
+ALTER INDEX idx_exchange_rate_timestamp RENAME TO idx_exchange_rate_unpartitioned_timestamp;
+ALTER SEQUENCE exchange_rate_id_seq OWNED BY NONE;
+
+-- The partition key has to be part of the primary key
+CREATE TABLE exchange_rate (
+    id              BIGINT         NOT NULL DEFAULT nextval('exchange_rate_id_seq'),
+    base_currency   VARCHAR(3)     NOT NULL,
+    target_currency VARCHAR(3)     NOT NULL,
+    rate            NUMERIC(18, 8) NOT NULL,
+    source          VARCHAR(50)    NOT NULL,
+    timestamp       TIMESTAMP      NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE exchange_rate_id_seq OWNED BY exchange_rate.id;
+
+CREATE INDEX idx_exchange_rate_currencies
+    ON exchange_rate (base_currency, target_currency, timestamp DESC);
+
+CREATE INDEX idx_exchange_rate_timestamp
+    ON exchange_rate (timestamp DESC);
+
+-- Catches rows for months that have no partition yet; create_exchange_rate_partition moves them out
+CREATE TABLE exchange_rate_default PARTITION OF exchange_rate DEFAULT;
+
+--rollback DROP TABLE exchange_rate; ALTER TABLE exchange_rate_unpartitioned RENAME TO exchange_rate;
+
+--changeset gravity:006-create-exchange-rate-partition-function splitStatements:false
+-- Creates the monthly partition exchange_rate_pYYYYMM holding the given date, if it is missing.
+-- Rows already routed to the default partition for that month are moved into the new partition
+-- before it is attached. Serialised with an advisory lock, so concurrent callers are safe.
+CREATE FUNCTION create_exchange_rate_partition(month_of DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    range_start TIMESTAMP := date_trunc('month', month_of);
+    range_end   TIMESTAMP := date_trunc('month', month_of) + INTERVAL '1 month';
+    part_name   TEXT      := 'exchange_rate_p' || to_char(month_of, 'YYYYMM');
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('exchange_rate_partitions'));
+    IF to_regclass(part_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE exchange_rate INCLUDING DEFAULTS)', part_name);
+    EXECUTE format('WITH moved AS (DELETE FROM exchange_rate_default WHERE timestamp >= %L AND timestamp < %L'
+                   ' RETURNING *) INSERT INTO %I SELECT * FROM moved', range_start, range_end, part_name);
+    EXECUTE format('ALTER TABLE exchange_rate ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   part_name, range_start, range_end);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+--rollback DROP FUNCTION create_exchange_rate_partition(DATE);
+
+--changeset gravity:006-migrate-exchange-rate-rows splitStatements:false
+-- Partitions for the existing history and the next three months, then the rows themselves.
+-- The rollup trigger is recreated only afterwards: these rows are already in the rollups.
+DO $$
+DECLARE
+    month_of DATE;
+BEGIN
+    FOR month_of IN
+        SELECT m::DATE
+        FROM generate_series(
+                 (SELECT date_trunc('month', COALESCE(MIN(timestamp), LOCALTIMESTAMP)) FROM exchange_rate_unpartitioned),
+                 date_trunc('month', LOCALTIMESTAMP) + INTERVAL '3 months',
+                 INTERVAL '1 month') AS m
+    LOOP
+        PERFORM create_exchange_rate_partition(month_of);
+    END LOOP;
+END;
+$$;
+
+INSERT INTO exchange_rate (id, base_currency, target_currency, rate, source, timestamp)
+SELECT id, base_currency, target_currency, rate, source, timestamp
+FROM exchange_rate_unpartitioned;
+
+DROP TABLE exchange_rate_unpartitioned;
+
+CREATE TRIGGER exchange_rate_rollup
+    AFTER INSERT ON exchange_rate
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION exchange_rate_rollup();
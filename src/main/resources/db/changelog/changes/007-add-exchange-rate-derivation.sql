@@ -0,0 +1,8 @@
+--liquibase formatted sql
+
+--changeset gravity:007-add-exchange-rate-derivation
+-- Null for rates fetched as they are; otherwise the path a provider's table for another base was
+-- rebased along, e.g. EUR->USD->JPY, when only that base was requested from the provider
+ALTER TABLE exchange_rate ADD COLUMN derivation VARCHAR(32);
+
+--rollback ALTER TABLE exchange_rate DROP COLUMN derivation;
@@ -0,0 +1,13 @@
+--liquibase formatted sql
+
+--changeset gravity:008-create-rate-source-check-table
+-- When each source last answered for a base, with new rates or a 304. Unchanged rates write no
+-- exchange_rate row, so nodes reloading from the database take freshness from here as well.
+CREATE TABLE rate_source_check (
+    source        VARCHAR(50) NOT NULL,
+    base_currency VARCHAR(3)  NOT NULL,
+    checked_at    TIMESTAMP   NOT NULL,
+    PRIMARY KEY (source, base_currency)
+);
+
+--rollback DROP TABLE rate_source_check;
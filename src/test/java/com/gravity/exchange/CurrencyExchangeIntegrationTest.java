@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -23,12 +24,15 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -50,6 +54,8 @@ class CurrencyExchangeIntegrationTest {
         registry.add("spring.datasource.password", postgres::getPassword);
         // Disable scheduled tasks in tests
         registry.add("exchange.scheduler.fixed-rate", () -> "999999999");
+        // Do not restore or write the warm-restart snapshot file
+        registry.add("exchange.cache.snapshot-file.enabled", () -> "false");
         // Use dummy URLs for providers (won't be called in these tests)
         registry.add("exchange.providers.frankfurter.url", () -> "http://localhost:19999");
         registry.add("exchange.providers.exchangerate-api.url", () -> "http://localhost:19998");
@@ -69,9 +75,15 @@ class CurrencyExchangeIntegrationTest {
     @Autowired
     private ExchangeRateCache exchangeRateCache;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     void setUp() {
         exchangeRateRepository.deleteAll();
+        // Rollups deliberately outlive deleted rows, so clear them explicitly
+        jdbcTemplate.update("DELETE FROM exchange_rate_hourly");
+        jdbcTemplate.update("DELETE FROM exchange_rate_daily");
         currencyRepository.deleteAll();
         exchangeRateCache.clear();
     }
@@ -163,6 +175,175 @@ class CurrencyExchangeIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("Rate Rollup Integration Tests")
+    class RollupIT {
+
+        @Test
+        @DisplayName("Should fold inserted rows into the hourly and daily OHLC rollups")
+        void insert_updatesRollups() {
+            LocalDateTime hour = LocalDateTime.of(2026, 10, 16, 9, 0);
+            saveRate("0.91", hour.plusMinutes(40));
+            saveRate("0.95", hour.plusMinutes(10));
+            saveRate("0.89", hour.plusMinutes(20));
+            saveRate("0.93", hour.plusHours(2));
+
+            Map<String, Object> hourly = jdbcTemplate.queryForMap("SELECT * FROM exchange_rate_hourly "
+                    + "WHERE base_currency = 'USD' AND target_currency = 'EUR' AND bucket_start = ?", hour);
+            assertThat((BigDecimal) hourly.get("open_rate")).isEqualByComparingTo("0.95");
+            assertThat((BigDecimal) hourly.get("high_rate")).isEqualByComparingTo("0.95");
+            assertThat((BigDecimal) hourly.get("low_rate")).isEqualByComparingTo("0.89");
+            assertThat((BigDecimal) hourly.get("close_rate")).isEqualByComparingTo("0.91");
+            assertThat(hourly.get("tick_count")).isEqualTo(3L);
+
+            Map<String, Object> daily = jdbcTemplate.queryForMap("SELECT * FROM exchange_rate_daily "
+                    + "WHERE base_currency = 'USD' AND target_currency = 'EUR'");
+            assertThat((BigDecimal) daily.get("close_rate")).isEqualByComparingTo("0.93");
+            assertThat(daily.get("tick_count")).isEqualTo(4L);
+        }
+
+        private void saveRate(String rate, LocalDateTime timestamp) {
+            exchangeRateRepository.save(ExchangeRate.builder()
+                    .baseCurrency("USD").targetCurrency("EUR")
+                    .rate(new BigDecimal(rate)).source("TEST")
+                    .timestamp(timestamp)
+                    .build());
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Trend Integration Tests")
+    class BatchTrendIT {
+
+        @Test
+        @DisplayName("Should resolve every target and period in one response")
+        @WithMockUser(roles = "PREMIUM_USER")
+        void batchTrends_resolvesStartRatesPerPeriod() throws Exception {
+            LocalDateTime now = LocalDateTime.now();
+            saveRate("EUR", "0.90", now.minusDays(3));
+            saveRate("EUR", "0.99", now.minusHours(1));
+            // GBP history begins inside both periods, so its first row is the start rate
+            saveRate("GBP", "0.80", now.minusHours(2));
+
+            mockMvc.perform(get("/api/v1/currencies/trends/batch")
+                            .param("base", "USD")
+                            .param("targets", "EUR,GBP,JPY")
+                            .param("periods", "1D,7D"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.periods", hasSize(2)))
+                    .andExpect(jsonPath("$.trends.EUR.currentRate", is(0.99)))
+                    .andExpect(jsonPath("$.trends.EUR.ratesAtStart", hasSize(2)))
+                    .andExpect(jsonPath("$.trends.EUR.ratesAtStart[0]", is(0.90)))
+                    .andExpect(jsonPath("$.trends.EUR.ratesAtStart[1]", is(0.90)))
+                    .andExpect(jsonPath("$.trends.EUR.percentageChanges[0]", is(10.00)))
+                    .andExpect(jsonPath("$.trends.GBP.percentageChanges[1]", is(0.00)))
+                    .andExpect(jsonPath("$.trends.JPY").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("Should read start rates from the rollups once the raw rows are gone")
+        @WithMockUser(roles = "PREMIUM_USER")
+        void batchTrends_startRateOnlyInRollups() throws Exception {
+            LocalDateTime now = LocalDateTime.now();
+            saveRate("EUR", "0.80", now.minusDays(20));
+            saveRate("EUR", "0.88", now.minusHours(1));
+            // Deletes are not folded into the rollups, so this leaves the old rate in the daily bucket only
+            jdbcTemplate.update("DELETE FROM exchange_rate WHERE timestamp < ?", now.minusDays(10));
+
+            mockMvc.perform(get("/api/v1/currencies/trends/batch")
+                            .param("base", "USD")
+                            .param("targets", "EUR")
+                            .param("periods", "7D"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.trends.EUR.currentRate", is(0.88)))
+                    .andExpect(jsonPath("$.trends.EUR.ratesAtStart[0]", is(0.80)))
+                    .andExpect(jsonPath("$.trends.EUR.percentageChanges[0]", is(10.00)));
+        }
+
+        private void saveRate(String target, String rate, LocalDateTime timestamp) {
+            exchangeRateRepository.save(ExchangeRate.builder()
+                    .baseCurrency("USD").targetCurrency(target)
+                    .rate(new BigDecimal(rate)).source("TEST")
+                    .timestamp(timestamp)
+                    .build());
+        }
+    }
+
+    @Nested
+    @DisplayName("Export Integration Tests")
+    class ExportIT {
+
+        @Test
+        @DisplayName("Should stream the rows of the requested pairs and range in pair and time order")
+        @WithMockUser(roles = "ADMIN")
+        void exportCsv_streamsRowsInRange() throws Exception {
+            saveRate("EUR", "0.91", LocalDateTime.of(2026, 3, 1, 10, 0));
+            saveRate("EUR", "0.90", LocalDateTime.of(2026, 2, 1, 10, 0));
+            saveRate("GBP", "0.79", LocalDateTime.of(2026, 2, 15, 10, 0));
+            saveRate("JPY", "149.5", LocalDateTime.of(2026, 2, 15, 10, 0));
+            // Outside the range
+            saveRate("EUR", "0.95", LocalDateTime.of(2026, 4, 1, 0, 0));
+
+            mockMvc.perform(get("/api/v1/admin/exports/rates")
+                            .param("pairs", "USD/GBP,USD/EUR")
+                            .param("from", "2026-01-01T00:00:00")
+                            .param("to", "2026-04-01T00:00:00")
+                            .param("format", "csv"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("base_currency,target_currency,source,rate,timestamp\n"
+                            + "USD,GBP,TEST,0.79000000,2026-02-15T10:00\n"
+                            + "USD,EUR,TEST,0.90000000,2026-02-01T10:00\n"
+                            + "USD,EUR,TEST,0.91000000,2026-03-01T10:00\n"));
+        }
+
+        private void saveRate(String target, String rate, LocalDateTime timestamp) {
+            exchangeRateRepository.save(ExchangeRate.builder()
+                    .baseCurrency("USD").targetCurrency(target)
+                    .rate(new BigDecimal(rate)).source("TEST")
+                    .timestamp(timestamp)
+                    .build());
+        }
+    }
+
+    @Nested
+    @DisplayName("Series Integration Tests")
+    class SeriesIT {
+
+        @Test
+        @DisplayName("Should downsample the history of the pair in the range, keeping its extremes")
+        @WithMockUser(roles = "PREMIUM_USER")
+        void getSeries_downsamplesHistory() throws Exception {
+            LocalDateTime start = LocalDateTime.of(2026, 3, 1, 0, 0);
+            for (int hour = 0; hour < 48; hour++) {
+                saveRate("EUR", hour == 30 ? "0.99" : "0.92", start.plusHours(hour));
+            }
+            saveRate("GBP", "0.79", start.plusHours(5));
+            // Outside the range
+            saveRate("EUR", "0.50", start.plusDays(2));
+
+            mockMvc.perform(get("/api/v1/currencies/series")
+                            .param("from", "USD")
+                            .param("to", "EUR")
+                            .param("start", "2026-03-01T00:00:00")
+                            .param("end", "2026-03-03T00:00:00")
+                            .param("points", "10"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.sourcePoints", is(48)))
+                    .andExpect(jsonPath("$.timestamps", hasSize(10)))
+                    .andExpect(jsonPath("$.timestamps[0]", is("2026-03-01T00:00:00")))
+                    .andExpect(jsonPath("$.timestamps[9]", is("2026-03-02T23:00:00")))
+                    .andExpect(jsonPath("$.rates", hasItem(0.99)));
+        }
+
+        private void saveRate(String target, String rate, LocalDateTime timestamp) {
+            exchangeRateRepository.save(ExchangeRate.builder()
+                    .baseCurrency("USD").targetCurrency(target)
+                    .rate(new BigDecimal(rate)).source("TEST")
+                    .timestamp(timestamp)
+                    .build());
+        }
+    }
+
     @Nested
     @DisplayName("Security Integration Tests")
     class SecurityIT {
@@ -265,7 +446,7 @@ class CurrencyExchangeIntegrationTest {
         @WithMockUser(roles = "ADMIN")
         void adminCanRefreshRates() throws Exception {
             mockMvc.perform(post("/api/v1/currencies/refresh"))
-                    .andExpect(status().isOk());
+                    .andExpect(status().isAccepted());
         }
 
         @Test
@@ -0,0 +1,53 @@
+package com.gravity.exchange.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CurrencyCodeRegistryTest {
+
+    private CurrencyCodeRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new CurrencyCodeRegistry();
+    }
+
+    @Test
+    @DisplayName("Should assign dense indexes in registration order")
+    void register_assignsDenseIndexes() {
+        assertThat(registry.register("USD")).isZero();
+        assertThat(registry.register("EUR")).isEqualTo(1);
+        assertThat(registry.register("USD")).isZero();
+        assertThat(registry.size()).isEqualTo(2);
+        assertThat(registry.getCodes()).containsExactly("USD", "EUR");
+    }
+
+    @Test
+    @DisplayName("Should resolve codes case-insensitively")
+    void indexOf_caseInsensitive() {
+        registry.register("gbp");
+
+        assertThat(registry.indexOf("GBP")).isZero();
+        assertThat(registry.indexOf("Gbp")).isZero();
+        assertThat(registry.codeAt(0)).isEqualTo("GBP");
+    }
+
+    @Test
+    @DisplayName("Should reject codes that are not three letters")
+    void register_invalidCode_returnsUnknown() {
+        assertThat(registry.register("US")).isEqualTo(CurrencyCodeRegistry.UNKNOWN);
+        assertThat(registry.register("USD1")).isEqualTo(CurrencyCodeRegistry.UNKNOWN);
+        assertThat(registry.register("U$D")).isEqualTo(CurrencyCodeRegistry.UNKNOWN);
+        assertThat(registry.register(null)).isEqualTo(CurrencyCodeRegistry.UNKNOWN);
+        assertThat(registry.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should return UNKNOWN for unregistered codes")
+    void indexOf_unregistered_returnsUnknown() {
+        assertThat(registry.indexOf("JPY")).isEqualTo(CurrencyCodeRegistry.UNKNOWN);
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -16,7 +17,7 @@ class ExchangeRateCacheTest {
 
     @BeforeEach
     void setUp() {
-        cache = new ExchangeRateCache();
+        cache = new ExchangeRateCache(new CurrencyCodeRegistry());
     }
 
     @Test
@@ -100,4 +101,98 @@ class ExchangeRateCacheTest {
         assertThat(cache.getAllRates()).isEmpty();
         assertThat(cache.getBestRate("USD", "EUR")).isEmpty();
     }
+
+    @Test
+    @DisplayName("Should return empty Optional for malformed currency codes")
+    void getBestRate_malformedCode_returnsEmpty() {
+        cache.putRate("USD", "EUR", new BigDecimal("0.92"));
+
+        assertThat(cache.getBestRate("USD", "NONEXISTENT")).isEmpty();
+        assertThat(cache.getBestRate("US1", "EUR")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep existing rates when the matrix grows past its initial size")
+    void putRate_growsMatrixAndKeepsRates() {
+        cache.putRate("USD", "EUR", new BigDecimal("0.92"));
+
+        for (char c = 'A'; c <= 'Z'; c++) {
+            cache.registerCurrency("X" + c + "A");
+            cache.registerCurrency("X" + c + "B");
+            cache.registerCurrency("X" + c + "C");
+        }
+        cache.putRate("XZC", "USD", new BigDecimal("1.5"));
+
+        assertThat(cache.getBestRate("USD", "EUR")).hasValue(new BigDecimal("0.92"));
+        assertThat(cache.getBestRate("XZC", "USD")).hasValue(new BigDecimal("1.5"));
+    }
+
+    @Test
+    @DisplayName("Should not expose staged rates until the snapshot is published")
+    void publish_swapsWholeSnapshotAtOnce() {
+        cache.putRate("USD", "EUR", new BigDecimal("0.90"));
+        RateSnapshot before = cache.getSnapshot();
+
+        RateSnapshot.Builder builder = cache.newSnapshotBuilder()
+                .putRates("USD", Map.of("EUR", new BigDecimal("0.95"), "GBP", new BigDecimal("0.79")));
+
+        assertThat(cache.getBestRate("USD", "EUR")).hasValue(new BigDecimal("0.90"));
+        assertThat(cache.getBestRate("USD", "GBP")).isEmpty();
+
+        RateSnapshot published = cache.publish(builder);
+
+        assertThat(published.getVersion()).isEqualTo(before.getVersion() + 1);
+        assertThat(published.getPublishedAt()).isNotNull();
+        assertThat(cache.getBestRate("USD", "EUR")).hasValue(new BigDecimal("0.95"));
+        assertThat(cache.getBestRate("USD", "GBP")).hasValue(new BigDecimal("0.79"));
+    }
+
+    @Test
+    @DisplayName("Should keep rates that the published builder did not overwrite")
+    void publish_keepsUntouchedPairs() {
+        cache.putRate("EUR", "USD", new BigDecimal("1.08"));
+
+        cache.publish(cache.newSnapshotBuilder().putRates("USD", Map.of("EUR", new BigDecimal("0.92"))));
+
+        assertThat(cache.getBestRate("EUR", "USD")).hasValue(new BigDecimal("1.08"));
+    }
+
+    @Test
+    @DisplayName("Should keep a publication made while another builder was being filled")
+    void publish_rebasesOntoInterveningPublication() {
+        RateTriangulator triangulator = new RateTriangulator(true, false, List.of("USD"));
+        RateSnapshot.Builder slow = cache.newSnapshotBuilder()
+                .putRates("USD", Map.of("EUR", new BigDecimal("0.92")));
+        slow.deriveWith(triangulator::fill);
+
+        cache.putRate("USD", "GBP", new BigDecimal("0.79"));
+        RateSnapshot published = cache.publish(slow);
+
+        assertThat(published.getVersion()).isEqualTo(2);
+        assertThat(cache.getBestRate("USD", "EUR")).hasValue(new BigDecimal("0.92"));
+        assertThat(cache.getBestRate("USD", "GBP")).hasValue(new BigDecimal("0.79"));
+        assertThat(cache.getRateEntry("EUR", "GBP")).map(RateEntry::derivation).hasValue("EUR->USD->GBP");
+    }
+
+    @Test
+    @DisplayName("Should replace every rate when publishing an empty builder")
+    void publish_emptyBuilderReplaces() {
+        RateSnapshot.Builder empty = cache.newEmptySnapshotBuilder();
+        cache.putRate("USD", "EUR", new BigDecimal("0.92"));
+
+        cache.publish(empty);
+
+        assertThat(cache.getBestRate("USD", "EUR")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should increase the version on every publication")
+    void publish_versionIsMonotonic() {
+        long start = cache.getSnapshot().getVersion();
+
+        cache.putRate("USD", "EUR", new BigDecimal("0.92"));
+        cache.clear();
+
+        assertThat(cache.getSnapshot().getVersion()).isEqualTo(start + 2);
+    }
 }
@@ -0,0 +1,94 @@
+package com.gravity.exchange.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FixedPointTest {
+
+    @Test
+    @DisplayName("Should convert rates with up to 8 decimal places to scaled longs")
+    void toScaled_representableRates() {
+        assertThat(FixedPoint.toScaled(new BigDecimal("0.9215"))).isEqualTo(92_150_000L);
+        assertThat(FixedPoint.toScaled(new BigDecimal("15685"))).isEqualTo(1_568_500_000_000L);
+        assertThat(FixedPoint.toScaled(new BigDecimal("0.123456780000"))).isEqualTo(12_345_678L);
+    }
+
+    @Test
+    @DisplayName("Should mark rates without an exact scaled-long form as not representable")
+    void toScaled_notRepresentable() {
+        assertThat(FixedPoint.toScaled(new BigDecimal("0.123456789"))).isEqualTo(FixedPoint.NOT_REPRESENTABLE);
+        assertThat(FixedPoint.toScaled(new BigDecimal("99999999999.5"))).isEqualTo(FixedPoint.NOT_REPRESENTABLE);
+        assertThat(FixedPoint.toScaled(null)).isEqualTo(FixedPoint.NOT_REPRESENTABLE);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "100, 0.92000000",
+            "15, 0.9215",
+            "0.000000005, 1",
+            "0.000000015, 1",
+            "0.000000025, 1",
+            "-0.000000005, 1",
+            "-12.345678905, 1",
+            "1E+3, 1.5",
+            "123456789.123456789, 0.00000001",
+            "1.23456789012345678, 149.55",
+            "92233720368.54775807, 1",
+            "9999999999999, 15685",
+            "0.1, 10000000000"
+    })
+    @DisplayName("Should match the BigDecimal result bit for bit on edge cases")
+    void multiply_edgeCases_matchBigDecimal(String amount, String rate) {
+        assertSameAsBigDecimal(new BigDecimal(amount), new BigDecimal(rate));
+    }
+
+    @Test
+    @DisplayName("Should match the BigDecimal result bit for bit on random inputs")
+    void multiply_randomInputs_matchBigDecimal() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong() % 1_000_000_000_000L, random.nextInt(12));
+            BigDecimal rate = BigDecimal.valueOf(1 + (random.nextLong() & Long.MAX_VALUE) % 2_000_000_000_000L,
+                    random.nextInt(9));
+            assertSameAsBigDecimal(amount, rate);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0", "-1", "15", "0.92150000", "1E+3", "-12.345678905", "999999999999999999",
+            "-0.999999999999999999", "92233720368.54775807"})
+    @DisplayName("Should read the same unscaled long as unscaledValue()")
+    void unscaledLong_matchesUnscaledValue(String value) {
+        BigDecimal decimal = new BigDecimal(value);
+        BigDecimal nonNegativeScale = decimal.scale() < 0 ? decimal.setScale(0) : decimal;
+
+        assertThat(FixedPoint.unscaledLong(nonNegativeScale))
+                .isEqualTo(nonNegativeScale.unscaledValue().longValueExact());
+    }
+
+    @Test
+    @DisplayName("Should fall back to BigDecimal when the product overflows a long")
+    void multiply_overflow_fallsBack() {
+        BigDecimal amount = new BigDecimal("999999999999999999");
+        BigDecimal rate = new BigDecimal("15685.12345678");
+
+        BigDecimal result = FixedPoint.multiply(amount, rate, FixedPoint.toScaled(rate));
+
+        assertThat(result).isEqualTo(FixedPoint.multiplyExact(amount, rate));
+    }
+
+    private void assertSameAsBigDecimal(BigDecimal amount, BigDecimal rate) {
+        BigDecimal expected = amount.multiply(rate).setScale(8, RoundingMode.HALF_UP);
+        BigDecimal actual = FixedPoint.multiply(amount, rate, FixedPoint.toScaled(rate));
+        // equals() compares unscaled value and scale, i.e. bit-for-bit identity
+        assertThat(actual).as("%s x %s", amount, rate).isEqualTo(expected);
+    }
+}
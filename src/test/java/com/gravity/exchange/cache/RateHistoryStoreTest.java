@@ -0,0 +1,71 @@
+package com.gravity.exchange.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateHistoryStoreTest {
+
+    private final LocalDateTime today = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
+
+    @Test
+    @DisplayName("Should answer the rate in effect, the first and the latest rate across sources")
+    void lookups_acrossSources() {
+        RateHistoryStore store = new RateHistoryStore(true, 8);
+        store.reload(store.horizonStart(LocalDateTime.now()), loader -> {
+            loader.carry("USD", "EUR", "A", today.minusDays(10), new BigDecimal("0.80"));
+            loader.tick("USD", "EUR", "A", today.minusDays(2), new BigDecimal("0.90"));
+            loader.tick("USD", "EUR", "B", today.minusDays(1), new BigDecimal("0.95"));
+            loader.tick("USD", "EUR", "A", today.minusHours(12), new BigDecimal("0.91"));
+        });
+
+        assertThat(store.covers("USD", "EUR", today.minusDays(7))).isTrue();
+        assertThat(store.findRateAtOrBefore("USD", "EUR", today.minusDays(7))).contains(new BigDecimal("0.80000000"));
+        assertThat(store.findRateAtOrBefore("USD", "EUR", today.minusHours(18)))
+                .contains(new BigDecimal("0.95000000"));
+        assertThat(store.findFirstRateSince("USD", "EUR", today.minusDays(3)))
+                .contains(new BigDecimal("0.90000000"));
+        assertThat(store.findLatestRate("USD", "EUR")).contains(new BigDecimal("0.91000000"));
+    }
+
+    @Test
+    @DisplayName("Should not cover periods starting before the horizon or pairs it never saw")
+    void covers_outsideHorizonOrUnknownPair() {
+        RateHistoryStore store = new RateHistoryStore(true, 8);
+        store.reload(store.horizonStart(LocalDateTime.now()), loader ->
+                loader.tick("USD", "EUR", "A", today.minusDays(1), new BigDecimal("0.90")));
+
+        assertThat(store.covers("USD", "EUR", today.minusDays(30))).isFalse();
+        assertThat(store.covers("USD", "GBP", today.minusDays(1))).isFalse();
+        assertThat(new RateHistoryStore(true, 8).covers("USD", "EUR", today)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should append persisted rows, skip ones it already holds and merge older ones in place")
+    void append_duplicatesAndOutOfOrder() {
+        RateHistoryStore store = new RateHistoryStore(true, 8);
+        store.reload(store.horizonStart(LocalDateTime.now()), loader ->
+                loader.tick("USD", "EUR", "A", today.minusDays(1), new BigDecimal("0.90")));
+
+        store.append("USD", "EUR", "A", today.minusHours(1), new BigDecimal("0.92"));
+        store.append("USD", "EUR", "A", today.minusDays(1), new BigDecimal("0.90"));
+
+        assertThat(store.findLatestRate("USD", "EUR")).contains(new BigDecimal("0.92000000"));
+        assertThat(store.covers("USD", "EUR", today.minusDays(1))).isTrue();
+
+        store.append("USD", "EUR", "A", today.minusHours(2), new BigDecimal("0.93"));
+        store.append("USD", "EUR", "A", today.minusDays(2), new BigDecimal("0.89"));
+
+        assertThat(store.covers("USD", "EUR", today.minusDays(1))).isTrue();
+        assertThat(store.findRateAtOrBefore("USD", "EUR", today.minusMinutes(90)))
+                .contains(new BigDecimal("0.93000000"));
+        assertThat(store.findFirstRateSince("USD", "EUR", today.minusDays(3)))
+                .contains(new BigDecimal("0.89000000"));
+        assertThat(store.findLatestRate("USD", "EUR")).contains(new BigDecimal("0.92000000"));
+        assertThat(store.getTickCount()).isEqualTo(4);
+    }
+}
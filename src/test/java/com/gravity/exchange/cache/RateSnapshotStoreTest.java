@@ -0,0 +1,78 @@
+package com.gravity.exchange.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateSnapshotStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final RateTriangulator triangulator = new RateTriangulator(true, false, List.of("USD"));
+
+    @Test
+    @DisplayName("Should restore fetched rates with their metadata into a fresh cache")
+    void saveAndRestore_roundTrip() {
+        Path file = tempDir.resolve("snapshot.bin");
+        LocalDateTime fetchedAt = LocalDateTime.of(2026, 10, 1, 12, 30, 15);
+        ExchangeRateCache source = new ExchangeRateCache(new CurrencyCodeRegistry());
+        RateSnapshot.Builder builder = source.newSnapshotBuilder().putEntries("USD", Map.of(
+                "EUR", RateEntry.fetched(new BigDecimal("0.92150000"), "FRANKFURTER", fetchedAt),
+                "JPY", RateEntry.fetched(new BigDecimal("149.55"), "MOCK_PROVIDER_1", fetchedAt)));
+        triangulator.fill(builder);
+        RateSnapshot published = source.publish(builder);
+        new RateSnapshotStore(source, triangulator, true, file.toString()).save(published);
+
+        ExchangeRateCache target = new ExchangeRateCache(new CurrencyCodeRegistry());
+        target.registerCurrency("GBP");
+        boolean restored = new RateSnapshotStore(target, triangulator, true, file.toString()).restore();
+
+        assertThat(restored).isTrue();
+        assertThat(target.isServingRestoredSnapshot()).isTrue();
+        assertThat(target.getSnapshot().getVersion()).isEqualTo(published.getVersion());
+        RateEntry eur = target.getRateEntry("USD", "EUR").orElseThrow();
+        assertThat(eur.rate()).isEqualTo(new BigDecimal("0.92150000"));
+        assertThat(eur.source()).isEqualTo("FRANKFURTER");
+        assertThat(eur.fetchedAt()).isEqualTo(fetchedAt);
+        assertThat(target.getRateEntry("EUR", "JPY").orElseThrow().derivation()).isEqualTo("EUR->USD->JPY");
+    }
+
+    @Test
+    @DisplayName("Should clear the restored flag on the next live publication")
+    void restore_thenLivePublish_clearsRestoredFlag() {
+        Path file = tempDir.resolve("snapshot.bin");
+        ExchangeRateCache cache = new ExchangeRateCache(new CurrencyCodeRegistry());
+        cache.putRate("USD", "EUR", new BigDecimal("0.92"));
+        RateSnapshotStore store = new RateSnapshotStore(cache, triangulator, true, file.toString());
+        store.save(cache.getSnapshot());
+        store.restore();
+
+        cache.putRate("USD", "EUR", new BigDecimal("0.93"));
+
+        assertThat(cache.isServingRestoredSnapshot()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should start cold when the file is missing or corrupt")
+    void restore_missingOrCorruptFile_returnsFalse() throws IOException {
+        ExchangeRateCache cache = new ExchangeRateCache(new CurrencyCodeRegistry());
+        Path file = tempDir.resolve("snapshot.bin");
+
+        assertThat(new RateSnapshotStore(cache, triangulator, true, file.toString()).restore()).isFalse();
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThat(new RateSnapshotStore(cache, triangulator, true, file.toString()).restore()).isFalse();
+        assertThat(cache.getAllRates()).isEmpty();
+    }
+}
@@ -0,0 +1,91 @@
+package com.gravity.exchange.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateTriangulatorTest {
+
+    private ExchangeRateCache cache;
+    private RateTriangulator triangulator;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ExchangeRateCache(new CurrencyCodeRegistry());
+        triangulator = new RateTriangulator(true, false, List.of("USD"));
+    }
+
+    @Test
+    @DisplayName("Should derive the inverse of a fetched pair")
+    void fill_derivesInverse() {
+        RateSnapshot.Builder builder = cache.newSnapshotBuilder()
+                .putRates("USD", Map.of("EUR", new BigDecimal("0.80")));
+
+        triangulator.fill(builder);
+        cache.publish(builder);
+
+        RateEntry entry = cache.getRateEntry("EUR", "USD").orElseThrow();
+        assertThat(entry.rate()).isEqualByComparingTo("1.25");
+        assertThat(entry.derivation()).isEqualTo("1/(USD->EUR)");
+    }
+
+    @Test
+    @DisplayName("Should derive a cross rate through the pivot")
+    void fill_derivesCrossRateViaPivot() {
+        RateSnapshot.Builder builder = cache.newSnapshotBuilder()
+                .putRates("USD", Map.of("EUR", new BigDecimal("0.80"), "JPY", new BigDecimal("150")));
+
+        triangulator.fill(builder);
+        cache.publish(builder);
+
+        RateEntry entry = cache.getRateEntry("EUR", "JPY").orElseThrow();
+        assertThat(entry.rate()).isEqualByComparingTo("187.5");
+        assertThat(entry.derivation()).isEqualTo("EUR->USD->JPY");
+        assertThat(cache.getRateEntry("USD", "JPY").orElseThrow().isDerived()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should prefer fetched rates and recompute stale derived rates")
+    void fill_keepsFetchedAndRecomputesDerived() {
+        RateSnapshot.Builder first = cache.newSnapshotBuilder()
+                .putRates("USD", Map.of("EUR", new BigDecimal("0.80")))
+                .putRates("GBP", Map.of("USD", new BigDecimal("1.30")));
+        triangulator.fill(first);
+        cache.publish(first);
+
+        RateSnapshot.Builder second = cache.newSnapshotBuilder()
+                .putRates("USD", Map.of("EUR", new BigDecimal("0.50")));
+        triangulator.fill(second);
+        cache.publish(second);
+
+        assertThat(cache.getBestRate("EUR", "USD").orElseThrow()).isEqualByComparingTo("2");
+        assertThat(cache.getRateEntry("GBP", "USD").orElseThrow().isDerived()).isFalse();
+        assertThat(cache.getBestRate("GBP", "EUR").orElseThrow()).isEqualByComparingTo("0.65");
+    }
+
+    @Test
+    @DisplayName("Should select only active pivots as fetch bases in pivot-only mode")
+    void selectFetchBases_pivotOnly() {
+        RateTriangulator pivotOnly = new RateTriangulator(true, true, List.of("usd", "EUR"));
+
+        assertThat(pivotOnly.selectFetchBases(List.of("GBP", "USD", "JPY"))).containsExactly("USD");
+        assertThat(pivotOnly.selectFetchBases(List.of("GBP", "JPY"))).containsExactly("GBP", "JPY");
+        assertThat(triangulator.selectFetchBases(List.of("GBP", "USD"))).containsExactly("GBP", "USD");
+    }
+
+    @Test
+    @DisplayName("Should not derive anything when disabled")
+    void fill_disabled_doesNothing() {
+        RateTriangulator disabled = new RateTriangulator(false, false, List.of("USD"));
+        RateSnapshot.Builder builder = cache.newSnapshotBuilder()
+                .putRates("USD", Map.of("EUR", new BigDecimal("0.80")));
+
+        assertThat(disabled.fill(builder)).isZero();
+    }
+}
@@ -0,0 +1,76 @@
+package com.gravity.exchange.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TickBlockTest {
+
+    @Test
+    @DisplayName("Should decode exactly what was appended for irregular times and values")
+    void appendAndDecode_roundTrip() {
+        Random random = new Random(42);
+        TickBlock block = new TickBlock();
+        List<long[]> appended = new ArrayList<>();
+        long time = 1_792_000_000_000L;
+        long value = 92_150_000L;
+        for (int i = 0; i < 500; i++) {
+            time += switch (i % 5) {
+                case 0 -> 300_000;
+                case 1 -> random.nextInt(100);
+                case 2 -> random.nextInt(1 << 30);
+                case 3 -> Math.abs(random.nextLong() >> 4);
+                default -> 0;
+            };
+            value = switch (i % 4) {
+                case 0 -> value;
+                case 1 -> value + random.nextInt(100) - 50;
+                case 2 -> random.nextLong();
+                default -> value ^ (1L << random.nextInt(64));
+            };
+            block.append(time, value);
+            appended.add(new long[]{time, value});
+        }
+
+        List<long[]> decoded = new ArrayList<>();
+        block.decode((t, v) -> decoded.add(new long[]{t, v}));
+
+        assertThat(decoded).containsExactlyElementsOf(appended);
+        assertThat(block.count()).isEqualTo(500);
+        assertThat(block.lastTime()).isEqualTo(time);
+        assertThat(block.lastValue()).isEqualTo(value);
+    }
+
+    @Test
+    @DisplayName("Should keep a day of regular five-minute ticks in a few bits each")
+    void regularTicks_compressWell() {
+        TickBlock block = new TickBlock();
+        for (int i = 0; i < 288; i++) {
+            block.append(1_792_000_000_000L + i * 300_000L, 92_150_000L + (i % 10 == 0 ? i : 0));
+        }
+
+        assertThat(block.sizeInBytes()).isLessThanOrEqualTo(288 * 16 / 10);
+    }
+
+    @Test
+    @DisplayName("Should stop decoding when the visitor asks to")
+    void decode_stopsEarly() {
+        TickBlock block = new TickBlock();
+        for (int i = 0; i < 10; i++) {
+            block.append(i * 1_000L, i);
+        }
+
+        List<Long> visited = new ArrayList<>();
+        block.decode((t, v) -> {
+            visited.add(t);
+            return t < 3_000L;
+        });
+
+        assertThat(visited).containsExactly(0L, 1_000L, 2_000L, 3_000L);
+    }
+}
@@ -0,0 +1,118 @@
+package com.gravity.exchange.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.gravity.exchange.config.ProviderHttpClients;
+import com.gravity.exchange.exception.ExternalApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Set;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExchangeRateApiClientTest {
+
+    private static final String BODY = "{\"result\":\"success\",\"base_code\":\"USD\","
+            + "\"meta\":{\"rates\":{\"EUR\":1.0}},"
+            + "\"rates\":{\"USD\":1,\"EUR\":0.9215,\"GBP\":0.7911,\"JPY\":149.52,\"XXX\":null,\"CHF\":0.88},"
+            + "\"time_last_update_unix\":1760572801}";
+
+    private WireMockServer server;
+
+    @BeforeEach
+    void setUp() {
+        server = new WireMockServer(options().dynamicPort());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Should stream only the requested targets out of the whole table")
+    void fetchRates_streaming_keepsRequestedTargets() {
+        stubTable();
+
+        assertThat(client(true).fetchRates("USD", Set.of("USD", "EUR", "GBP", "XXX")))
+                .containsOnlyKeys("EUR", "GBP")
+                .containsEntry("EUR", new BigDecimal("0.9215"))
+                .containsEntry("GBP", new BigDecimal("0.7911"));
+    }
+
+    @Test
+    @DisplayName("Should return the same rates with streaming and with full deserialization")
+    void fetchRates_streamingAndMapped_sameRates() {
+        stubTable();
+        Set<String> targets = Set.of("EUR", "JPY", "CHF");
+
+        assertThat(client(true).fetchRates("USD", targets)).isEqualTo(client(false).fetchRates("USD", targets));
+    }
+
+    @Test
+    @DisplayName("Should report a 304 as not modified when streaming")
+    void fetchRatesIfModified_streamingEtagMatches_notModified() {
+        server.stubFor(get(urlPathEqualTo("/v6/latest/USD"))
+                .withHeader("If-None-Match", absent())
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("ETag", "\"v1\"")
+                        .withBody(BODY)));
+        server.stubFor(get(urlPathEqualTo("/v6/latest/USD"))
+                .withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse().withStatus(304)));
+        ExchangeRateApiClient client = client(true);
+
+        assertThat(client.fetchRatesIfModified("USD", Set.of("EUR")).notModified()).isFalse();
+        assertThat(client.fetchRatesIfModified("USD", Set.of("EUR")).notModified()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should treat a 304 without a stored validator like the mapped path when streaming")
+    void fetchRatesIfModified_streamingUnsolicited304_noRates() {
+        server.stubFor(get(urlPathEqualTo("/v6/latest/USD")).willReturn(aResponse().withStatus(304)));
+
+        ProviderResponse streamed = client(true).fetchRatesIfModified("USD", Set.of("EUR"));
+        ProviderResponse mapped = client(false).fetchRatesIfModified("USD", Set.of("EUR"));
+
+        assertThat(streamed.notModified()).isFalse();
+        assertThat(streamed.rates()).isEmpty();
+        assertThat(streamed).isEqualTo(mapped);
+    }
+
+    @Test
+    @DisplayName("Should raise provider errors when streaming")
+    void fetchRates_streamingServerError_throws() {
+        server.stubFor(get(urlPathEqualTo("/v6/latest/USD")).willReturn(aResponse().withStatus(503)));
+
+        assertThatThrownBy(() -> client(true).fetchRates("USD", Set.of("EUR")))
+                .isInstanceOf(ExternalApiException.class);
+    }
+
+    private void stubTable() {
+        server.stubFor(get(urlPathEqualTo("/v6/latest/USD"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(BODY)));
+    }
+
+    private ExchangeRateApiClient client(boolean streamingParse) {
+        return new ExchangeRateApiClient(server.baseUrl(), Duration.ofHours(1), streamingParse,
+                new ProviderHttpClients(RestClient.builder(), new SimpleMeterRegistry(), new StandardEnvironment()));
+    }
+}
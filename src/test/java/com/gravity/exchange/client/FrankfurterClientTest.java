@@ -0,0 +1,82 @@
+package com.gravity.exchange.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.gravity.exchange.config.ProviderHttpClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FrankfurterClientTest {
+
+    private static final String BODY =
+            "{\"base\":\"USD\",\"date\":\"2026-10-16\",\"rates\":{\"EUR\":0.92,\"GBP\":0.79}}";
+
+    private WireMockServer server;
+    private FrankfurterClient client;
+
+    @BeforeEach
+    void setUp() {
+        server = new WireMockServer(options().dynamicPort());
+        server.start();
+        client = new FrankfurterClient(server.baseUrl(), Duration.ofHours(1),
+                new ProviderHttpClients(RestClient.builder(), new SimpleMeterRegistry(), new StandardEnvironment()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Should send the ETag back and report a 304 as not modified")
+    void fetchRatesIfModified_etagMatches_notModified() {
+        server.stubFor(get(urlPathEqualTo("/v1/latest"))
+                .withHeader("If-None-Match", absent())
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("ETag", "\"v1\"")
+                        .withBody(BODY)));
+        server.stubFor(get(urlPathEqualTo("/v1/latest"))
+                .withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse().withStatus(304)));
+
+        ProviderResponse first = client.fetchRatesIfModified("USD", Set.of("EUR", "GBP"));
+        ProviderResponse second = client.fetchRatesIfModified("USD", Set.of("GBP", "EUR"));
+
+        assertThat(first.notModified()).isFalse();
+        assertThat(first.rates()).containsOnlyKeys("EUR", "GBP");
+        assertThat(second.notModified()).isTrue();
+        server.verify(getRequestedFor(urlPathEqualTo("/v1/latest")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+
+    @Test
+    @DisplayName("Should not send validators on unconditional fetches")
+    void fetchRates_unconditional_noValidators() {
+        server.stubFor(get(urlPathEqualTo("/v1/latest"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("ETag", "\"v1\"")
+                        .withBody(BODY)));
+
+        client.fetchRatesIfModified("USD", Set.of("EUR", "GBP"));
+        assertThat(client.fetchRates("USD", Set.of("EUR", "GBP"))).containsOnlyKeys("EUR", "GBP");
+
+        server.verify(0, getRequestedFor(urlPathEqualTo("/v1/latest")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+}
@@ -0,0 +1,96 @@
+package com.gravity.exchange.config;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProviderHttpClientsTest {
+
+    private WireMockServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private MockEnvironment environment;
+    private ProviderHttpClients httpClients;
+
+    @BeforeEach
+    void setUp() {
+        server = new WireMockServer(options().dynamicPort());
+        server.start();
+        meterRegistry = new SimpleMeterRegistry();
+        environment = new MockEnvironment().withProperty("exchange.http.prewarm", "false");
+        httpClients = new ProviderHttpClients(RestClient.builder(), meterRegistry, environment);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClients.close();
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Should ask for gzip, decompress the body and record the request")
+    void builder_gzipResponse_decompressedAndMeasured() {
+        String body = "{\"rates\":{\"EUR\":0.92}}".repeat(200);
+        server.stubFor(get(urlPathEqualTo("/rates")).willReturn(aResponse().withBody(body)));
+        RestClient client = httpClients.builder("test", "TEST", server.baseUrl()).build();
+
+        assertThat(client.get().uri("/rates").retrieve().body(String.class)).isEqualTo(body);
+
+        server.verify(getRequestedFor(urlPathEqualTo("/rates")).withHeader("Accept-Encoding", equalTo("gzip")));
+        assertThat(meterRegistry.get("exchange.http.client.requests")
+                .tags("provider", "TEST", "status", "200").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("exchange.http.pool.active").tag("provider", "TEST").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("Should apply the read timeout configured for the provider")
+    void builder_providerReadTimeout_overridesDefault() {
+        environment.setProperty("exchange.http.read-timeout", "PT10S");
+        environment.setProperty("exchange.providers.slow.read-timeout", "PT0.2S");
+        server.stubFor(get(urlPathEqualTo("/rates")).willReturn(aResponse().withBody("{}").withFixedDelay(2000)));
+        RestClient client = httpClients.builder("slow", "SLOW", server.baseUrl()).build();
+
+        assertThatThrownBy(() -> client.get().uri("/rates").retrieve().body(String.class))
+                .isInstanceOf(ResourceAccessException.class);
+    }
+
+    @Test
+    @DisplayName("Should hold requests beyond the connection limit until the connect timeout")
+    void builder_connectionLimitReached_waitsThenFails() throws Exception {
+        environment.setProperty("exchange.providers.busy.max-connections", "1");
+        environment.setProperty("exchange.providers.busy.connect-timeout", "PT0.2S");
+        server.stubFor(get(urlPathEqualTo("/rates")).willReturn(aResponse().withBody("{}").withFixedDelay(1500)));
+        RestClient client = httpClients.builder("busy", "BUSY", server.baseUrl()).build();
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(
+                () -> client.get().uri("/rates").retrieve().body(String.class));
+        while (meterRegistry.get("exchange.http.pool.active").tag("provider", "BUSY").gauge().value() < 1) {
+            Thread.sleep(10);
+        }
+
+        assertThatThrownBy(() -> client.get().uri("/rates").retrieve().body(String.class))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasMessageContaining("No free connection");
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("{}");
+        assertThat(meterRegistry.get("exchange.http.pool.active").tag("provider", "BUSY").gauge().value())
+                .isZero();
+    }
+}
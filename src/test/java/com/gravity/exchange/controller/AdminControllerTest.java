@@ -0,0 +1,115 @@
+package com.gravity.exchange.controller;
+
+import com.gravity.exchange.config.SecurityConfig;
+import com.gravity.exchange.dto.ProviderCircuitStatus;
+import com.gravity.exchange.exception.GlobalExceptionHandler;
+import com.gravity.exchange.repository.RateHistoryRepository.CurrencyPair;
+import com.gravity.exchange.service.ProviderCircuitBreakerRegistry;
+import com.gravity.exchange.service.RateExportService;
+import com.gravity.exchange.service.UserDetailsServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AdminController.class)
+@Import({SecurityConfig.class, GlobalExceptionHandler.class})
+class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProviderCircuitBreakerRegistry circuitBreakerRegistry;
+
+    @MockBean
+    private RateExportService rateExportService;
+
+    @MockBean
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Test
+    @DisplayName("Should return provider circuit states for admin")
+    @WithMockUser(roles = "ADMIN")
+    void getProviderCircuits_admin_returns200() throws Exception {
+        when(circuitBreakerRegistry.getStatuses()).thenReturn(List.of(
+                ProviderCircuitStatus.builder().provider("FRANKFURTER").state("OPEN").failureRate(1.0).build()));
+
+        mockMvc.perform(get("/api/v1/admin/providers"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].provider", is("FRANKFURTER")))
+                .andExpect(jsonPath("$[0].state", is("OPEN")));
+    }
+
+    @Test
+    @DisplayName("Should return 403 for non-admin user")
+    @WithMockUser(roles = "USER")
+    void getProviderCircuits_user_returns403() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/providers"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Should return 401 for anonymous user")
+    @WithAnonymousUser
+    void getProviderCircuits_anonymous_returns401() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/providers"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Should stream an export as an attachment for admin")
+    @WithMockUser(roles = "ADMIN")
+    void exportRates_admin_streamsAttachment() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2026, 7, 1, 0, 0);
+        RateExportService.ExportRequest request = new RateExportService.ExportRequest(
+                List.of(new CurrencyPair("USD", "EUR")), from, to, RateExportService.ExportFormat.CSV);
+        when(rateExportService.prepare(List.of("USD/EUR"), from, to, "csv")).thenReturn(request);
+
+        mockMvc.perform(get("/api/v1/admin/exports/rates")
+                        .param("pairs", "USD/EUR")
+                        .param("from", "2026-01-01T00:00:00")
+                        .param("to", "2026-07-01T00:00:00")
+                        .param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"exchange-rates-2026-01-01-2026-07-01.csv\""));
+        verify(rateExportService).write(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should not export for non-admin user")
+    @WithMockUser(roles = "PREMIUM_USER")
+    void exportRates_premiumUser_returns403() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/exports/rates")
+                        .param("pairs", "USD/EUR")
+                        .param("from", "2026-01-01T00:00:00")
+                        .param("to", "2026-07-01T00:00:00"))
+                .andExpect(status().isForbidden());
+        verify(rateExportService, never()).prepare(anyList(), any(), any(), anyString());
+    }
+}
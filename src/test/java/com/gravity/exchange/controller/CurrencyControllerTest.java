@@ -1,8 +1,11 @@
 package com.gravity.exchange.controller;
 
 import com.gravity.exchange.config.SecurityConfig;
+import com.gravity.exchange.dto.BatchTrendResponse;
 import com.gravity.exchange.dto.ConversionResponse;
 import com.gravity.exchange.dto.CurrencyDto;
+import com.gravity.exchange.dto.RateSeriesResponse;
+import com.gravity.exchange.dto.TargetTrends;
 import com.gravity.exchange.dto.TrendResponse;
 import com.gravity.exchange.exception.CurrencyAlreadyExistsException;
 import com.gravity.exchange.exception.CurrencyNotFoundException;
@@ -12,6 +15,8 @@ import com.gravity.exchange.exception.InvalidPeriodException;
 import com.gravity.exchange.service.CurrencyService;
 import com.gravity.exchange.service.ExchangeRateFetchScheduler;
 import com.gravity.exchange.service.ExchangeRateService;
+import com.gravity.exchange.service.RateSeriesService;
+import com.gravity.exchange.service.RefreshJob;
 import com.gravity.exchange.service.UserDetailsServiceImpl;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -27,16 +32,21 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -56,6 +66,9 @@ class CurrencyControllerTest {
     @MockBean
     private ExchangeRateFetchScheduler fetchScheduler;
 
+    @MockBean
+    private RateSeriesService rateSeriesService;
+
     @MockBean
     private UserDetailsServiceImpl userDetailsService;
 
@@ -223,13 +236,50 @@ class CurrencyControllerTest {
     class RefreshRates {
 
         @Test
-        @DisplayName("Should refresh rates as ADMIN")
+        @DisplayName("Should start a refresh job as ADMIN and return 202 with its id")
         @WithMockUser(roles = "ADMIN")
-        void refreshRates_admin_returns200() throws Exception {
+        void refreshRates_admin_returns202() throws Exception {
+            RefreshJob job = new RefreshJob(RefreshJob.Trigger.MANUAL);
+            when(fetchScheduler.requestRefresh()).thenReturn(job);
+
             mockMvc.perform(post("/api/v1/currencies/refresh"))
-                    .andExpect(status().isOk());
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Location", "/api/v1/currencies/refresh/" + job.getId()))
+                    .andExpect(jsonPath("$.jobId", is(job.getId())))
+                    .andExpect(jsonPath("$.state", is("RUNNING")));
+
+            verify(fetchScheduler).requestRefresh();
+        }
+
+        @Test
+        @DisplayName("Should return the status of a refresh job as ADMIN")
+        @WithMockUser(roles = "ADMIN")
+        void getRefreshJob_admin_returns200() throws Exception {
+            RefreshJob job = new RefreshJob(RefreshJob.Trigger.SCHEDULED);
+            when(fetchScheduler.getJob(job.getId())).thenReturn(Optional.of(job));
+
+            mockMvc.perform(get("/api/v1/currencies/refresh/" + job.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.trigger", is("SCHEDULED")))
+                    .andExpect(jsonPath("$.providers", hasSize(0)));
+        }
+
+        @Test
+        @DisplayName("Should return 404 for an unknown refresh job")
+        @WithMockUser(roles = "ADMIN")
+        void getRefreshJob_unknown_returns404() throws Exception {
+            when(fetchScheduler.getJob("missing")).thenReturn(Optional.empty());
 
-            verify(fetchScheduler).refreshRates();
+            mockMvc.perform(get("/api/v1/currencies/refresh/missing"))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("Should return 403 on the job status for regular USER")
+        @WithMockUser(roles = "USER")
+        void getRefreshJob_user_returns403() throws Exception {
+            mockMvc.perform(get("/api/v1/currencies/refresh/any"))
+                    .andExpect(status().isForbidden());
         }
 
         @Test
@@ -348,4 +398,136 @@ class CurrencyControllerTest {
                     .andExpect(status().isBadRequest());
         }
     }
+
+    // ===== GET /api/v1/currencies/trends/batch =====
+
+    @Nested
+    @DisplayName("GET /api/v1/currencies/trends/batch")
+    class GetTrendsBatch {
+
+        @Test
+        @DisplayName("Should return one value per period for every requested target")
+        @WithMockUser(roles = "PREMIUM_USER")
+        void getTrendsBatch_premiumUser_returns200() throws Exception {
+            BatchTrendResponse response = BatchTrendResponse.builder()
+                    .base("USD")
+                    .periods(List.of("12H", "7D"))
+                    .trends(Map.of("EUR", TargetTrends.builder()
+                            .currentRate(new BigDecimal("0.92"))
+                            .ratesAtStart(List.of(new BigDecimal("0.91"), new BigDecimal("0.90")))
+                            .percentageChanges(List.of(new BigDecimal("1.10"), new BigDecimal("2.22")))
+                            .build()))
+                    .build();
+            when(exchangeRateService.getTrends("USD", List.of("EUR", "GBP"), List.of("12H", "7D")))
+                    .thenReturn(response);
+
+            mockMvc.perform(get("/api/v1/currencies/trends/batch")
+                            .param("base", "USD")
+                            .param("targets", "EUR,GBP")
+                            .param("periods", "12H,7D"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.periods", hasSize(2)))
+                    .andExpect(jsonPath("$.trends.EUR.percentageChanges[1]", is(2.22)));
+        }
+
+        @Test
+        @DisplayName("Should use every active currency when no target is given")
+        @WithMockUser(roles = "ADMIN")
+        void getTrendsBatch_noTargets_usesActiveCurrencies() throws Exception {
+            when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR", "JPY"));
+            when(exchangeRateService.getTrends("USD", List.of("USD", "EUR", "JPY"), List.of("1D")))
+                    .thenReturn(BatchTrendResponse.builder().base("USD").periods(List.of("1D")).trends(Map.of())
+                            .build());
+
+            mockMvc.perform(get("/api/v1/currencies/trends/batch")
+                            .param("base", "USD")
+                            .param("periods", "1D"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.base", is("USD")));
+        }
+
+        @Test
+        @DisplayName("Should return 403 for regular USER")
+        @WithMockUser(roles = "USER")
+        void getTrendsBatch_user_returns403() throws Exception {
+            mockMvc.perform(get("/api/v1/currencies/trends/batch")
+                            .param("base", "USD")
+                            .param("periods", "1D"))
+                    .andExpect(status().isForbidden());
+            verify(exchangeRateService, never()).getTrends(anyString(), any(), any());
+        }
+    }
+
+    // ===== GET /api/v1/currencies/series =====
+
+    @Nested
+    @DisplayName("GET /api/v1/currencies/series")
+    class GetSeries {
+
+        @Test
+        @DisplayName("Should return the downsampled series for PREMIUM_USER")
+        @WithMockUser(roles = "PREMIUM_USER")
+        void getSeries_premiumUser_returns200() throws Exception {
+            LocalDateTime start = LocalDateTime.of(2025, 10, 16, 0, 0);
+            LocalDateTime end = LocalDateTime.of(2026, 10, 16, 0, 0);
+            when(rateSeriesService.getSeries("USD", "EUR", start, end, 3)).thenReturn(RateSeriesResponse.builder()
+                    .from("USD").to("EUR").start(start).end(end).sourcePoints(50_000)
+                    .timestamps(List.of(start, start.plusMonths(6), end.minusMinutes(1)))
+                    .rates(List.of(new BigDecimal("0.91"), new BigDecimal("0.95"), new BigDecimal("0.92")))
+                    .build());
+
+            mockMvc.perform(get("/api/v1/currencies/series")
+                            .param("from", "USD")
+                            .param("to", "EUR")
+                            .param("start", "2025-10-16T00:00:00")
+                            .param("end", "2026-10-16T00:00:00")
+                            .param("points", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.sourcePoints", is(50_000)))
+                    .andExpect(jsonPath("$.timestamps", hasSize(3)))
+                    .andExpect(jsonPath("$.rates[1]", is(0.95)));
+        }
+
+        @Test
+        @DisplayName("Should default to 500 points up to now")
+        @WithMockUser(roles = "ADMIN")
+        void getSeries_defaults() throws Exception {
+            LocalDateTime start = LocalDateTime.of(2025, 10, 16, 0, 0);
+            when(rateSeriesService.getSeries(eq("USD"), eq("EUR"), eq(start), any(LocalDateTime.class), eq(500)))
+                    .thenReturn(RateSeriesResponse.builder().from("USD").to("EUR").timestamps(List.of())
+                            .rates(List.of()).build());
+
+            mockMvc.perform(get("/api/v1/currencies/series")
+                            .param("from", "USD")
+                            .param("to", "EUR")
+                            .param("start", "2025-10-16T00:00:00"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.rates", hasSize(0)));
+        }
+
+        @Test
+        @DisplayName("Should return 400 when fewer than three points are requested")
+        @WithMockUser(roles = "ADMIN")
+        void getSeries_tooFewPoints_returns400() throws Exception {
+            mockMvc.perform(get("/api/v1/currencies/series")
+                            .param("from", "USD")
+                            .param("to", "EUR")
+                            .param("start", "2025-10-16T00:00:00")
+                            .param("points", "2"))
+                    .andExpect(status().isBadRequest());
+            verify(rateSeriesService, never()).getSeries(anyString(), anyString(), any(), any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should return 403 for regular USER")
+        @WithMockUser(roles = "USER")
+        void getSeries_user_returns403() throws Exception {
+            mockMvc.perform(get("/api/v1/currencies/series")
+                            .param("from", "USD")
+                            .param("to", "EUR")
+                            .param("start", "2025-10-16T00:00:00"))
+                    .andExpect(status().isForbidden());
+            verify(rateSeriesService, never()).getSeries(anyString(), anyString(), any(), any(), anyInt());
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package com.gravity.exchange.repository;
+
+import com.gravity.exchange.entity.ExchangeRate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRateIngestionWriterTest {
+
+    private static final LocalDateTime FETCHED_AT = LocalDateTime.of(2026, 10, 16, 12, 0, 5, 123_000_000);
+
+    @Mock
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Connection connection;
+
+    @Test
+    @DisplayName("Should encode rows as COPY CSV with the source and derivation quoted")
+    void toCsv_encodesRows() {
+        ExchangeRate derived = rate("EUR", "JPY", "162.29", "FRANKFURTER");
+        derived.setDerivation("EUR->USD->JPY");
+        String csv = ExchangeRateIngestionWriter.toCsv(List.of(
+                rate("USD", "EUR", "0.92150000", "FRANKFURTER"),
+                rate("USD", "JPY", "149.55", "ODD \"NAME\""),
+                derived));
+
+        assertThat(csv).isEqualTo("USD,EUR,0.92150000,\"FRANKFURTER\",2026-10-16T12:00:05.123,\n"
+                + "USD,JPY,149.55,\"ODD \"\"NAME\"\"\",2026-10-16T12:00:05.123,\n"
+                + "EUR,JPY,162.29,\"FRANKFURTER\",2026-10-16T12:00:05.123,\"EUR->USD->JPY\"\n");
+    }
+
+    @Test
+    @DisplayName("Should build one placeholder group per row for multi-row inserts")
+    void multiRowInsertSql_placeholdersPerRow() {
+        assertThat(ExchangeRateIngestionWriter.multiRowInsertSql(2)).isEqualTo(
+                "INSERT INTO exchange_rate (base_currency, target_currency, rate, source, timestamp, derivation) "
+                        + "VALUES (?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?)");
+    }
+
+    @Test
+    @DisplayName("Should fall back to multi-row inserts when the connection is not a pgJDBC one")
+    void write_notPgConnection_fallsBackToMultiRow() throws SQLException {
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+        runConnectionCallbacks();
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(2);
+
+        long written = copyWriter().write(List.of(rate("USD", "EUR", "0.92", "A"), rate("USD", "GBP", "0.79", "A")));
+
+        assertThat(written).isEqualTo(2);
+        verify(jdbcTemplate).update(eq(ExchangeRateIngestionWriter.multiRowInsertSql(2)), any(Object[].class));
+        verify(transactionManager).commit(any());
+        verify(exchangeRateRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Should fall back to multi-row inserts when the server does not support COPY")
+    void write_copyNotSupported_fallsBackToMultiRow() throws SQLException {
+        stubCopyFailure(new SQLException("COPY is not supported", "0A000"));
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1);
+
+        assertThat(copyWriter().write(List.of(rate("USD", "EUR", "0.92", "A")))).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should propagate a COPY failure that is not about COPY being unavailable")
+    void write_copyFails_propagates() throws SQLException {
+        stubCopyFailure(new SQLException("connection reset", "08006"));
+
+        assertThatThrownBy(() -> copyWriter().write(List.of(rate("USD", "EUR", "0.92", "A"))))
+                .isInstanceOf(SQLException.class)
+                .hasMessage("connection reset");
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should roll back the chunks already inserted when a later chunk fails")
+    void write_multiRowChunkFails_rollsBackBatch() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenReturn(1_000)
+                .thenThrow(new IllegalStateException("connection reset"));
+        ExchangeRateIngestionWriter writer = new ExchangeRateIngestionWriter(exchangeRateRepository, jdbcTemplate,
+                transactionManager, ExchangeRateIngestionWriter.Mode.MULTI_ROW);
+        List<ExchangeRate> rates = Collections.nCopies(1_500, rate("USD", "EUR", "0.92", "A"));
+
+        assertThatThrownBy(() -> writer.write(rates)).isInstanceOf(IllegalStateException.class);
+
+        verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should keep using saveAll in JPA mode")
+    void write_jpaMode_usesRepository() {
+        List<ExchangeRate> rates = List.of(rate("USD", "EUR", "0.92", "A"));
+        when(exchangeRateRepository.saveAll(rates)).thenReturn(rates);
+        ExchangeRateIngestionWriter writer = new ExchangeRateIngestionWriter(exchangeRateRepository, jdbcTemplate,
+                transactionManager, ExchangeRateIngestionWriter.Mode.JPA);
+
+        assertThat(writer.write(rates)).isEqualTo(1);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    private ExchangeRateIngestionWriter copyWriter() {
+        return new ExchangeRateIngestionWriter(exchangeRateRepository, jdbcTemplate, transactionManager,
+                ExchangeRateIngestionWriter.Mode.COPY);
+    }
+
+    private void stubCopyFailure(SQLException failure) throws SQLException {
+        PGConnection pgConnection = mock(PGConnection.class);
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenThrow(failure);
+        runConnectionCallbacks();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runConnectionCallbacks() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation ->
+                invocation.<ConnectionCallback<Long>>getArgument(0).doInConnection(connection));
+    }
+
+    private ExchangeRate rate(String base, String target, String rate, String source) {
+        return ExchangeRate.builder()
+                .baseCurrency(base)
+                .targetCurrency(target)
+                .rate(new BigDecimal(rate))
+                .source(source)
+                .timestamp(FETCHED_AT)
+                .build();
+    }
+}
@@ -0,0 +1,186 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.cache.CurrencyCodeRegistry;
+import com.gravity.exchange.cache.ExchangeRateCache;
+import com.gravity.exchange.cache.RateEntry;
+import com.gravity.exchange.cache.RateHistoryStore;
+import com.gravity.exchange.cache.RateSnapshotStore;
+import com.gravity.exchange.cache.RateTriangulator;
+import com.gravity.exchange.entity.ExchangeRate;
+import com.gravity.exchange.repository.ExchangeRateRepository;
+import com.gravity.exchange.repository.RateSourceCheckRepository;
+import com.gravity.exchange.repository.RateSourceCheckRepository.LatestRate;
+import com.gravity.exchange.repository.RateSourceCheckRepository.SourceCheck;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CacheCoherenceServiceTest {
+
+    private static final LocalDateTime CYCLE_START = LocalDateTime.of(2026, 10, 16, 12, 0);
+
+    @Mock
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Mock
+    private RateSnapshotStore rateSnapshotStore;
+
+    @Mock
+    private RateHistoryStore rateHistoryStore;
+
+    @Mock
+    private RateSourceCheckRepository rateSourceCheckRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final TrendCache trendCache = new TrendCache(100);
+
+    private ExchangeRateCache cache;
+    private CacheCoherenceService coherence;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ExchangeRateCache(new CurrencyCodeRegistry());
+        coherence = new CacheCoherenceService(exchangeRateRepository, cache,
+                new RateTriangulator(true, false, List.of("USD")), rateSnapshotStore, rateHistoryStore,
+                rateSourceCheckRepository, trendCache, jdbcTemplate, true, "exchange_rates", Duration.ofHours(2),
+                Duration.ofHours(24));
+    }
+
+    @Test
+    @DisplayName("Should reload the best announced rates, adopt the peer version and move trends on to it")
+    void onNotification_peerCycle_reloadsBestRates() {
+        when(exchangeRateRepository.findRatesFetchedSince(List.of("USD"), CYCLE_START)).thenReturn(List.of(
+                row("USD", "EUR", "0.91", "FRANKFURTER"),
+                row("USD", "EUR", "0.93", "MOCK_PROVIDER_1")));
+        LocalDateTime now = LocalDateTime.now();
+        when(rateSourceCheckRepository.findLatestRates(eq(List.of("USD")), any())).thenReturn(List.of(
+                new LatestRate("USD", "EUR", "FRANKFURTER", new BigDecimal("0.91"), now),
+                new LatestRate("USD", "EUR", "MOCK_PROVIDER_1", new BigDecimal("0.93"), now)));
+
+        boolean reloaded = coherence.onNotification("42|other-node|" + CYCLE_START + "|USD");
+
+        assertThat(reloaded).isTrue();
+        RateEntry best = cache.getRateEntry("USD", "EUR").orElseThrow();
+        assertThat(best.rate()).isEqualByComparingTo("0.93");
+        assertThat(best.source()).isEqualTo("MOCK_PROVIDER_1");
+        assertThat(cache.getRateEntry("EUR", "USD")).isPresent();
+        assertThat(cache.getSnapshot().getVersion()).isEqualTo(42);
+        assertThat(coherence.hasRecentPeerCycle(Duration.ofMinutes(1))).isTrue();
+        verify(rateSnapshotStore).save(cache.getSnapshot());
+        verify(rateHistoryStore, times(2)).append(eq("USD"), eq("EUR"), any(), any(), any());
+        assertThat(trendCache.currentVersion()).isEqualTo(42);
+    }
+
+    @Test
+    @DisplayName("Should pick among the latest rate of every source like the leader, keeping confirmed rates fresh")
+    void onNotification_sourceCadences_selectsLikeLeader() {
+        LocalDateTime now = LocalDateTime.now();
+        // DAILY wrote its row hours ago but answered 304 since; SILENT has not answered within the max age
+        when(rateSourceCheckRepository.findLatestRates(eq(List.of("USD")), any())).thenReturn(List.of(
+                new LatestRate("USD", "EUR", "DAILY", new BigDecimal("0.95"), now.minusMinutes(5)),
+                new LatestRate("USD", "EUR", "FREQUENT", new BigDecimal("0.92"), now),
+                new LatestRate("USD", "GBP", "SILENT", new BigDecimal("0.90"), now.minusHours(3))));
+
+        boolean reloaded = coherence.onNotification("7|other-node|" + CYCLE_START + "|USD");
+
+        assertThat(reloaded).isTrue();
+        RateEntry best = cache.getRateEntry("USD", "EUR").orElseThrow();
+        assertThat(best.rate()).isEqualByComparingTo("0.95");
+        assertThat(best.source()).isEqualTo("DAILY");
+        assertThat(best.fetchedAt()).isEqualTo(now.minusMinutes(5));
+        assertThat(cache.getRateEntry("USD", "GBP")).isEmpty();
+        verify(rateSourceCheckRepository).findLatestRates(eq(List.of("USD")),
+                argThat(since -> since.isBefore(now.minusHours(25))));
+    }
+
+    @Test
+    @DisplayName("Should record the answers of a cycle before announcing it")
+    @SuppressWarnings("unchecked")
+    void announce_recordsChecksThenNotifies() {
+        cache.putRate("USD", "EUR", new BigDecimal("0.92"));
+        List<SourceCheck> checks = List.of(new SourceCheck("FRANKFURTER", "USD", CYCLE_START.plusSeconds(1)));
+
+        coherence.announce(cache.getSnapshot(), List.of("USD"), checks, CYCLE_START);
+
+        InOrder inOrder = inOrder(rateSourceCheckRepository, jdbcTemplate);
+        inOrder.verify(rateSourceCheckRepository).recordChecks(checks);
+        inOrder.verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq("exchange_rates"), any());
+    }
+
+    @Test
+    @DisplayName("Should ignore its own announcements")
+    @SuppressWarnings("unchecked")
+    void onNotification_ownCycle_ignored() {
+        cache.putRate("USD", "EUR", new BigDecimal("0.92"));
+        coherence.announce(cache.getSnapshot(), List.of("USD"), List.of(), CYCLE_START);
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq("exchange_rates"), payload.capture());
+
+        boolean reloaded = coherence.onNotification((String) payload.getValue());
+
+        assertThat(reloaded).isFalse();
+        assertThat(coherence.hasRecentPeerCycle(Duration.ofMinutes(1))).isFalse();
+        verify(exchangeRateRepository, never()).findRatesFetchedSince(anyCollection(), any());
+    }
+
+    @Test
+    @DisplayName("Should ignore malformed notifications")
+    void onNotification_malformed_ignored() {
+        assertThat(coherence.onNotification("garbage")).isFalse();
+        assertThat(coherence.onNotification("x|other-node|" + CYCLE_START + "|USD")).isFalse();
+        verify(exchangeRateRepository, never()).findRatesFetchedSince(anyCollection(), any());
+    }
+
+    @Test
+    @DisplayName("Should warm the cache from recently written rates as a new local snapshot")
+    void reloadRecent_loadsBestRates() {
+        when(rateSourceCheckRepository.findLatestRates(List.of("USD", "EUR"), CYCLE_START.minusHours(24)))
+                .thenReturn(List.of(new LatestRate("USD", "EUR", "FRANKFURTER", new BigDecimal("0.92"),
+                        CYCLE_START.plusSeconds(5))));
+
+        boolean loaded = coherence.reloadRecent(List.of("USD", "EUR"), CYCLE_START);
+
+        assertThat(loaded).isTrue();
+        assertThat(cache.getRateEntry("USD", "EUR").orElseThrow().source()).isEqualTo("FRANKFURTER");
+        assertThat(cache.getSnapshot().getVersion()).isEqualTo(1);
+        assertThat(coherence.hasRecentPeerCycle(Duration.ofMinutes(1))).isFalse();
+    }
+
+    private ExchangeRate row(String base, String target, String rate, String source) {
+        return ExchangeRate.builder()
+                .baseCurrency(base)
+                .targetCurrency(target)
+                .rate(new BigDecimal(rate))
+                .source(source)
+                .timestamp(CYCLE_START.plusSeconds(5))
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.gravity.exchange.service;
 
+import com.gravity.exchange.cache.ExchangeRateCache;
 import com.gravity.exchange.dto.CurrencyDto;
 import com.gravity.exchange.entity.Currency;
 import com.gravity.exchange.exception.CurrencyAlreadyExistsException;
@@ -28,6 +29,9 @@ class CurrencyServiceTest {
     @Mock
     private CurrencyRepository currencyRepository;
 
+    @Mock
+    private ExchangeRateCache exchangeRateCache;
+
     @InjectMocks
     private CurrencyService currencyService;
 
@@ -71,6 +75,7 @@ class CurrencyServiceTest {
         assertThat(result.getCode()).isEqualTo("USD");
         assertThat(result.getName()).isEqualTo("US Dollar");
         verify(currencyRepository).save(any(Currency.class));
+        verify(exchangeRateCache).registerCurrency("USD");
     }
 
     @Test
@@ -83,6 +88,7 @@ class CurrencyServiceTest {
                 .hasMessageContaining("USD");
 
         verify(currencyRepository, never()).save(any());
+        verify(exchangeRateCache, never()).registerCurrency(any());
     }
 
     @Test
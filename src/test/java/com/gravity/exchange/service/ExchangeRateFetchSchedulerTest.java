@@ -1,28 +1,48 @@
 package com.gravity.exchange.service;
 
+import com.gravity.exchange.cache.CurrencyCodeRegistry;
 import com.gravity.exchange.cache.ExchangeRateCache;
+import com.gravity.exchange.cache.RateEntry;
+import com.gravity.exchange.cache.RateSnapshotStore;
+import com.gravity.exchange.cache.RateTriangulator;
 import com.gravity.exchange.client.ExchangeRateProvider;
+import com.gravity.exchange.client.ProviderCapabilities;
+import com.gravity.exchange.client.ProviderResponse;
+import com.gravity.exchange.dto.RefreshJobStatus;
 import com.gravity.exchange.entity.Currency;
 import com.gravity.exchange.entity.ExchangeRate;
-import com.gravity.exchange.repository.ExchangeRateRepository;
+import com.gravity.exchange.repository.RateSourceCheckRepository.SourceCheck;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,7 +53,7 @@ class ExchangeRateFetchSchedulerTest {
     private List<ExchangeRateProvider> providers;
 
     @Mock
-    private ExchangeRateRepository exchangeRateRepository;
+    private RateWriteBehindQueue rateWriteBehindQueue;
 
     @Mock
     private ExchangeRateCache exchangeRateCache;
@@ -41,17 +61,352 @@ class ExchangeRateFetchSchedulerTest {
     @Mock
     private CurrencyService currencyService;
 
+    @Mock
+    private RateTriangulator rateTriangulator;
+
+    @Mock
+    private RateSnapshotStore rateSnapshotStore;
+
+    @Mock
+    private CacheCoherenceService cacheCoherenceService;
+
+    @Mock
+    private FetchPlanner fetchPlanner;
+
+    @Mock
+    private RateTableRebaser rateTableRebaser;
+
+    @Mock
+    private RateChangeFilter rateChangeFilter;
+
+    @Mock
+    private ProviderCircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Mock
+    private SchedulerLeadership schedulerLeadership;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ExchangeRateFetchScheduler scheduler;
 
+    private static final ProviderCapabilities WHOLE_TABLE = new ProviderCapabilities(true, Set.of());
+
+    private final ExchangeRateCache realCache = new ExchangeRateCache(new CurrencyCodeRegistry());
+    private final ProviderCircuitBreakerRegistry circuitBreakers = new ProviderCircuitBreakerRegistry(
+            true, 2, 2, 0.5, Duration.ofSeconds(5), Duration.ofMinutes(1), Duration.ofMinutes(10));
+
     @Test
     @DisplayName("Should skip fetch when no active currencies")
-    void refreshRates_noActiveCurrencies_skips() {
+    void requestRefresh_noActiveCurrencies_skips() {
         when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of());
 
-        scheduler.refreshRates();
+        scheduler.requestRefresh().await();
 
-        verify(exchangeRateRepository, never()).saveAll(any());
+        verify(rateWriteBehindQueue, never()).enqueue(any());
         verify(exchangeRateCache, never()).updateRates(anyString(), anyMap());
+        verify(exchangeRateCache, never()).publish(any());
+    }
+
+    @Test
+    @DisplayName("Should publish the best rate per target with its provider when revalidating one base")
+    void refreshBase_publishesBestRatesWithSource() {
+        ExchangeRateProvider slow = mock(ExchangeRateProvider.class);
+        ExchangeRateProvider generous = mock(ExchangeRateProvider.class);
+        when(slow.getProviderName()).thenReturn("SLOW");
+        when(generous.getProviderName()).thenReturn("GENEROUS");
+        when(slow.fetchRatesIfModified(eq("USD"), anySet()))
+                .thenReturn(ProviderResponse.of(Map.of("EUR", new BigDecimal("0.91"))));
+        when(generous.fetchRatesIfModified(eq("USD"), anySet()))
+                .thenReturn(ProviderResponse.of(Map.of("EUR", new BigDecimal("0.93"))));
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR"));
+
+        when(slow.getCapabilities()).thenReturn(ProviderCapabilities.DEFAULT);
+        when(generous.getCapabilities()).thenReturn(ProviderCapabilities.DEFAULT);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(rateWriteBehindQueue).afterPersisted(any());
+
+        ExchangeRateFetchScheduler realScheduler = newScheduler(List.of(slow, generous));
+
+        realScheduler.refreshBase("USD");
+
+        RateEntry best = realCache.getRateEntry("USD", "EUR").orElseThrow();
+        assertThat(best.rate()).isEqualByComparingTo("0.93");
+        assertThat(best.source()).isEqualTo("GENEROUS");
+        assertThat(best.fetchedAt()).isNotNull();
+        assertThat(realCache.getRateEntry("EUR", "USD").orElseThrow().source()).isEqualTo("GENEROUS");
+        verify(rateWriteBehindQueue, times(2)).enqueue(any());
+        verify(cacheCoherenceService).announce(any(), eq(Set.of("USD")), anyCollection(), any());
+        verify(eventPublisher).publishEvent(any(RatesPersistedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should cancel a provider call that misses its deadline and keep the other results")
+    void refreshBase_slowProvider_cancelledAtDeadline() {
+        ExchangeRateProvider hanging = mock(ExchangeRateProvider.class);
+        ExchangeRateProvider fast = mock(ExchangeRateProvider.class);
+        when(hanging.getProviderName()).thenReturn("HANGING");
+        when(fast.getProviderName()).thenReturn("FAST");
+        when(hanging.fetchRatesIfModified(eq("USD"), anySet())).thenAnswer(invocation -> {
+            Thread.sleep(Duration.ofSeconds(30));
+            return ProviderResponse.of(Map.of("EUR", new BigDecimal("0.99")));
+        });
+        when(fast.fetchRatesIfModified(eq("USD"), anySet()))
+                .thenReturn(ProviderResponse.of(Map.of("EUR", new BigDecimal("0.92"))));
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR"));
+
+        when(hanging.getCapabilities()).thenReturn(ProviderCapabilities.DEFAULT);
+        when(fast.getCapabilities()).thenReturn(ProviderCapabilities.DEFAULT);
+
+        ExchangeRateFetchScheduler realScheduler = newScheduler(List.of(hanging, fast));
+        ReflectionTestUtils.setField(realScheduler, "callTimeout", Duration.ofMillis(300));
+
+        long startedAt = System.nanoTime();
+        realScheduler.refreshBase("USD");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofSeconds(5));
+        RateEntry best = realCache.getRateEntry("USD", "EUR").orElseThrow();
+        assertThat(best.rate()).isEqualByComparingTo("0.92");
+        assertThat(best.source()).isEqualTo("FAST");
+        verify(rateWriteBehindQueue, times(1)).enqueue(any());
+    }
+
+    @Test
+    @DisplayName("Should return within the cycle budget when a provider ignores cancellation")
+    void refreshBase_providerIgnoresInterrupt_returnsWithinBudget() {
+        CountDownLatch release = new CountDownLatch(1);
+        ExchangeRateProvider stuck = mock(ExchangeRateProvider.class);
+        when(stuck.getProviderName()).thenReturn("STUCK");
+        when(stuck.getCapabilities()).thenReturn(ProviderCapabilities.DEFAULT);
+        when(stuck.fetchRatesIfModified(eq("USD"), anySet())).thenAnswer(invocation -> {
+            long giveUpAt = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (release.getCount() > 0 && System.nanoTime() < giveUpAt) {
+                try {
+                    release.await(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ignored) {
+                    // deliberately swallowed, like a blocking client that cannot be interrupted
+                }
+            }
+            return ProviderResponse.of(Map.of("EUR", new BigDecimal("0.99")));
+        });
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR"));
+
+        ExchangeRateFetchScheduler realScheduler = newScheduler(List.of(stuck));
+        ReflectionTestUtils.setField(realScheduler, "callTimeout", Duration.ofMillis(300));
+        ReflectionTestUtils.setField(realScheduler, "cycleBudget", Duration.ofMillis(600));
+
+        long startedAt = System.nanoTime();
+        try {
+            realScheduler.refreshBase("USD");
+
+            assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofSeconds(2));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should skip the scheduled fetch when a peer node announced a recent cycle")
+    void scheduledFetch_recentPeerCycle_skips() {
+        when(schedulerLeadership.isLeader()).thenReturn(true);
+        when(cacheCoherenceService.hasRecentPeerCycle(any())).thenReturn(true);
+
+        scheduler.scheduledFetch();
+
+        verify(currencyService, never()).getActiveCurrencyCodes();
+        verify(exchangeRateCache, never()).publish(any());
+    }
+
+    @Test
+    @DisplayName("Should fetch a whole-table provider once per cycle and derive the other bases")
+    void requestRefresh_wholeTableProvider_fetchesAnchorOnly() {
+        ExchangeRateProvider wholeTable = mock(ExchangeRateProvider.class);
+        when(wholeTable.getProviderName()).thenReturn("WHOLE_TABLE");
+        when(wholeTable.getCapabilities()).thenReturn(new ProviderCapabilities(true, Set.of()));
+        when(wholeTable.fetchRatesIfModified(eq("USD"), anySet())).thenReturn(ProviderResponse.of(Map.of(
+                "EUR", new BigDecimal("0.90"), "JPY", new BigDecimal("150"))));
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR", "JPY"));
+
+        newScheduler(List.of(wholeTable)).requestRefresh().await();
+
+        verify(wholeTable).fetchRatesIfModified(eq("USD"), anySet());
+        verify(wholeTable, never()).fetchRatesIfModified(eq("EUR"), anySet());
+        verify(wholeTable, never()).fetchRatesIfModified(eq("JPY"), anySet());
+        assertThat(realCache.getRateEntry("EUR", "JPY").orElseThrow().derivation()).isEqualTo("EUR->USD->JPY");
+
+        // The rebased tables are persisted too, so the history of EUR and JPY pairs keeps growing
+        ArgumentCaptor<List<ExchangeRate>> rows = ArgumentCaptor.captor();
+        verify(rateWriteBehindQueue).enqueue(rows.capture());
+        assertThat(rows.getValue())
+                .extracting(ExchangeRate::getBaseCurrency, ExchangeRate::getTargetCurrency, ExchangeRate::getRate,
+                        ExchangeRate::getSource, ExchangeRate::getDerivation)
+                .containsExactlyInAnyOrder(
+                        tuple("USD", "EUR", new BigDecimal("0.90"), "WHOLE_TABLE", null),
+                        tuple("USD", "JPY", new BigDecimal("150"), "WHOLE_TABLE", null),
+                        tuple("EUR", "USD", new BigDecimal("1.11111111"), "WHOLE_TABLE", "1/(USD->EUR)"),
+                        tuple("EUR", "JPY", new BigDecimal("166.66666667"), "WHOLE_TABLE", "EUR->USD->JPY"),
+                        tuple("JPY", "USD", new BigDecimal("0.00666667"), "WHOLE_TABLE", "1/(USD->JPY)"),
+                        tuple("JPY", "EUR", new BigDecimal("0.00600000"), "WHOLE_TABLE", "JPY->USD->EUR"));
+    }
+
+    @Test
+    @DisplayName("Should stop calling a provider once its circuit opens")
+    void refreshBase_failingProvider_skippedWhenCircuitOpen() {
+        ExchangeRateProvider down = mock(ExchangeRateProvider.class);
+        when(down.getProviderName()).thenReturn("DOWN");
+        when(down.getCapabilities()).thenReturn(ProviderCapabilities.DEFAULT);
+        when(down.fetchRatesIfModified(eq("USD"), anySet()))
+                .thenThrow(new IllegalStateException("connection refused"));
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR"));
+        ExchangeRateFetchScheduler realScheduler = newScheduler(List.of(down));
+
+        realScheduler.refreshBase("USD");
+        realScheduler.refreshBase("USD");
+        realScheduler.refreshBase("USD");
+
+        verify(down, times(2)).fetchRatesIfModified(eq("USD"), anySet());
+        assertThat(circuitBreakers.getStatuses()).singleElement()
+                .satisfies(status -> assertThat(status.getState()).isEqualTo("OPEN"));
+    }
+
+    @Test
+    @DisplayName("Should re-stamp remembered rates on 304 without persisting them and announce the check")
+    void requestRefresh_notModified_restampsWithoutPersisting() {
+        ExchangeRateProvider provider = mock(ExchangeRateProvider.class);
+        when(provider.getProviderName()).thenReturn("ETAG");
+        // One request per cycle, so no failing EUR call opens the circuit before the 304
+        when(provider.getCapabilities()).thenReturn(WHOLE_TABLE);
+        when(provider.fetchRatesIfModified(eq("USD"), anySet()))
+                .thenReturn(ProviderResponse.of(Map.of("EUR", new BigDecimal("0.92"))))
+                .thenReturn(ProviderResponse.unchanged());
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR"));
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(rateWriteBehindQueue).afterPersisted(any());
+        ExchangeRateFetchScheduler realScheduler = newScheduler(List.of(provider));
+
+        realScheduler.requestRefresh().await();
+        RateEntry first = realCache.getRateEntry("USD", "EUR").orElseThrow();
+        realScheduler.requestRefresh().await();
+
+        RateEntry second = realCache.getRateEntry("USD", "EUR").orElseThrow();
+        assertThat(second.rate()).isEqualByComparingTo("0.92");
+        assertThat(second.fetchedAt()).isAfterOrEqualTo(first.fetchedAt());
+        assertThat(realCache.getSnapshot().getVersion()).isEqualTo(2);
+        verify(rateWriteBehindQueue, times(1)).enqueue(any());
+        verify(rateSnapshotStore, times(1)).save(any());
+
+        // Followers re-stamp the same rates from the recorded check instead of letting them expire
+        ArgumentCaptor<Set<String>> bases = ArgumentCaptor.captor();
+        ArgumentCaptor<Collection<SourceCheck>> checks = ArgumentCaptor.captor();
+        verify(cacheCoherenceService, times(2)).announce(any(), bases.capture(), checks.capture(), any());
+        assertThat(bases.getAllValues()).containsExactly(Set.of("USD", "EUR"), Set.of("USD"));
+        assertThat(checks.getAllValues().get(1)).singleElement().satisfies(check -> {
+            assertThat(check.source()).isEqualTo("ETAG");
+            assertThat(check.baseCurrency()).isEqualTo("USD");
+            assertThat(check.checkedAt()).isEqualTo(second.fetchedAt());
+        });
+    }
+
+    @Test
+    @DisplayName("Should call only the providers whose refresh interval has passed on a scheduled cycle")
+    void scheduledFetch_callsOnlyDueProviders() {
+        ExchangeRateProvider daily = mock(ExchangeRateProvider.class);
+        ExchangeRateProvider frequent = mock(ExchangeRateProvider.class);
+        when(daily.getProviderName()).thenReturn("DAILY");
+        when(frequent.getProviderName()).thenReturn("FREQUENT");
+        when(daily.getRefreshInterval()).thenReturn(Duration.ofHours(1));
+        when(frequent.getRefreshInterval()).thenReturn(Duration.ZERO);
+        when(daily.getCapabilities()).thenReturn(WHOLE_TABLE);
+        when(frequent.getCapabilities()).thenReturn(WHOLE_TABLE);
+        when(daily.fetchRatesIfModified(eq("USD"), anySet()))
+                .thenReturn(ProviderResponse.of(Map.of("EUR", new BigDecimal("0.95"))));
+        when(frequent.fetchRatesIfModified(eq("USD"), anySet()))
+                .thenReturn(ProviderResponse.of(Map.of("EUR", new BigDecimal("0.91"))));
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR"));
+        ExchangeRateFetchScheduler realScheduler = newScheduler(List.of(daily, frequent));
+        ReflectionTestUtils.setField(realScheduler, "fixedRateMs", 300_000L);
+
+        realScheduler.scheduledFetch();
+        realScheduler.scheduledFetch();
+
+        verify(daily, times(1)).fetchRatesIfModified(eq("USD"), anySet());
+        verify(frequent, times(2)).fetchRatesIfModified(eq("USD"), anySet());
+        RateEntry best = realCache.getRateEntry("USD", "EUR").orElseThrow();
+        assertThat(best.rate()).isEqualByComparingTo("0.95");
+        assertThat(best.source()).isEqualTo("DAILY");
+    }
+
+    @Test
+    @DisplayName("Should not fetch on a node that is not the scheduler leader")
+    void scheduledFetch_follower_skips() {
+        when(schedulerLeadership.isLeader()).thenReturn(false);
+
+        scheduler.scheduledFetch();
+        scheduler.refreshBase("USD");
+
+        verify(currencyService, never()).getActiveCurrencyCodes();
+        verify(exchangeRateCache, never()).publish(any());
+    }
+
+    @Test
+    @DisplayName("Should load recent rates from the database instead of fetching when starting as a follower")
+    void onStartup_follower_reloadsFromDatabase() {
+        when(schedulerLeadership.isLeader()).thenReturn(false);
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR"));
+
+        scheduler.onStartup();
+
+        verify(cacheCoherenceService).reloadRecent(eq(List.of("USD", "EUR")), any());
+        verify(rateWriteBehindQueue, never()).enqueue(any());
+    }
+
+    @Test
+    @DisplayName("Should coalesce refreshes and revalidations into the cycle in flight and report its progress")
+    void requestRefresh_cycleInFlight_joinsIt() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExchangeRateProvider gated = mock(ExchangeRateProvider.class);
+        when(gated.getProviderName()).thenReturn("GATED");
+        when(gated.getCapabilities()).thenReturn(WHOLE_TABLE);
+        when(gated.fetchRatesIfModified(eq("USD"), anySet())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return ProviderResponse.of(Map.of("EUR", new BigDecimal("0.92")));
+        });
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR"));
+        ExchangeRateFetchScheduler realScheduler = newScheduler(List.of(gated));
+
+        RefreshJob first = realScheduler.requestRefresh();
+        RefreshJob second = realScheduler.requestRefresh();
+        realScheduler.scheduledFetch();
+        realScheduler.refreshBase("USD");
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getState()).isEqualTo(RefreshJob.State.RUNNING);
+        release.countDown();
+        first.await();
+
+        RefreshJobStatus status = realScheduler.getJob(first.getId()).orElseThrow().toStatus();
+        assertThat(status.getState()).isEqualTo("SUCCEEDED");
+        assertThat(status.getProviders()).singleElement().satisfies(progress -> {
+            assertThat(progress.getProvider()).isEqualTo("GATED");
+            assertThat(progress.getPlannedCalls()).isEqualTo(1);
+            assertThat(progress.getFetchedCalls()).isEqualTo(1);
+            assertThat(progress.getPendingCalls()).isZero();
+        });
+        verify(gated, times(1)).fetchRatesIfModified(eq("USD"), anySet());
+        assertThat(realScheduler.requestRefresh()).isNotSameAs(first);
+    }
+
+    private ExchangeRateFetchScheduler newScheduler(List<ExchangeRateProvider> providerList) {
+        RateTriangulator triangulator = new RateTriangulator(true, false, List.of("USD"));
+        return new ExchangeRateFetchScheduler(providerList, rateWriteBehindQueue, realCache, currencyService,
+                triangulator, rateSnapshotStore, cacheCoherenceService, new FetchPlanner(triangulator, true),
+                new RateTableRebaser(), new RateChangeFilter(true, BigDecimal.ZERO, List.of(), Duration.ofHours(24)),
+                circuitBreakers,
+                new SchedulerLeadership(null, false, "test", Duration.ofSeconds(30)), eventPublisher);
     }
 }
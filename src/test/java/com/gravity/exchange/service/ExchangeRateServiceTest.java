@@ -1,27 +1,46 @@
 package com.gravity.exchange.service;
 
 import com.gravity.exchange.cache.ExchangeRateCache;
+import com.gravity.exchange.cache.RateEntry;
+import com.gravity.exchange.cache.RateHistoryStore;
+import com.gravity.exchange.dto.BatchTrendResponse;
 import com.gravity.exchange.dto.ConversionResponse;
 import com.gravity.exchange.dto.TrendResponse;
 import com.gravity.exchange.entity.ExchangeRate;
+import com.gravity.exchange.exception.ExchangeRateExpiredException;
 import com.gravity.exchange.exception.ExchangeRateNotFoundException;
 import com.gravity.exchange.exception.InvalidPeriodException;
 import com.gravity.exchange.repository.ExchangeRateRepository;
+import com.gravity.exchange.repository.RateRollupRepository;
+import com.gravity.exchange.repository.RateRollupRepository.Granularity;
+import com.gravity.exchange.repository.RateTrendRepository;
+import com.gravity.exchange.repository.RateTrendRepository.TrendRates;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,14 +52,29 @@ class ExchangeRateServiceTest {
     @Mock
     private ExchangeRateCache exchangeRateCache;
 
+    @Mock
+    private StaleRateRevalidator staleRateRevalidator;
+
+    @Mock
+    private RateRollupRepository rateRollupRepository;
+
+    @Mock
+    private RateHistoryStore rateHistoryStore;
+
+    @Mock
+    private RateTrendRepository rateTrendRepository;
+
+    @Spy
+    private TrendCache trendCache = new TrendCache(100);
+
     @InjectMocks
     private ExchangeRateService exchangeRateService;
 
     @Test
     @DisplayName("Should convert amount successfully")
     void convert_success() {
-        when(exchangeRateCache.getBestRate("USD", "EUR"))
-                .thenReturn(Optional.of(new BigDecimal("0.92000000")));
+        when(exchangeRateCache.getRateEntry("USD", "EUR"))
+                .thenReturn(Optional.of(new RateEntry(new BigDecimal("0.92000000"), null)));
 
         ConversionResponse result = exchangeRateService.convert(
                 new BigDecimal("100"), "USD", "EUR");
@@ -52,10 +86,63 @@ class ExchangeRateServiceTest {
         assertThat(result.getRate()).isEqualByComparingTo(new BigDecimal("0.92000000"));
     }
 
+    @Test
+    @DisplayName("Should return the same converted amount on the fixed-point path")
+    void convert_fixedPoint_matchesBigDecimal() {
+        ReflectionTestUtils.setField(exchangeRateService, "fixedPointEnabled", true);
+        when(exchangeRateCache.getRateEntry("USD", "JPY"))
+                .thenReturn(Optional.of(new RateEntry(new BigDecimal("149.55000000"), null)));
+
+        ConversionResponse result = exchangeRateService.convert(
+                new BigDecimal("12.345"), "USD", "JPY");
+
+        assertThat(result.getConvertedAmount()).isEqualTo(new BigDecimal("1846.19475000"));
+    }
+
+    @Test
+    @DisplayName("Should report the fetch time and provider of the rate used")
+    void convert_freshRate_reportsMetadata() {
+        LocalDateTime fetchedAt = LocalDateTime.now().minusMinutes(5);
+        when(exchangeRateCache.getRateEntry("USD", "EUR"))
+                .thenReturn(Optional.of(RateEntry.fetched(new BigDecimal("0.92"), "FRANKFURTER", fetchedAt)));
+
+        ConversionResponse result = exchangeRateService.convert(new BigDecimal("10"), "USD", "EUR");
+
+        assertThat(result.getTimestamp()).isEqualTo(fetchedAt);
+        assertThat(result.getSource()).isEqualTo("FRANKFURTER");
+        assertThat(result.isStale()).isFalse();
+        verify(staleRateRevalidator, never()).requestRefresh(any());
+    }
+
+    @Test
+    @DisplayName("Should serve a stale rate and trigger a background refresh of its base")
+    void convert_staleRate_servedAndRevalidated() {
+        when(exchangeRateCache.getRateEntry("USD", "EUR"))
+                .thenReturn(Optional.of(RateEntry.fetched(new BigDecimal("0.92"), "FRANKFURTER",
+                        LocalDateTime.now().minusHours(3))));
+
+        ConversionResponse result = exchangeRateService.convert(new BigDecimal("10"), "USD", "EUR");
+
+        assertThat(result.isStale()).isTrue();
+        assertThat(result.getConvertedAmount()).isEqualByComparingTo("9.2");
+        verify(staleRateRevalidator).requestRefresh("USD");
+    }
+
+    @Test
+    @DisplayName("Should reject a rate past the stale-while-revalidate window")
+    void convert_expiredRate_throws() {
+        when(exchangeRateCache.getRateEntry("USD", "EUR"))
+                .thenReturn(Optional.of(RateEntry.fetched(new BigDecimal("0.92"), "FRANKFURTER",
+                        LocalDateTime.now().minusDays(2))));
+
+        assertThatThrownBy(() -> exchangeRateService.convert(new BigDecimal("10"), "USD", "EUR"))
+                .isInstanceOf(ExchangeRateExpiredException.class);
+    }
+
     @Test
     @DisplayName("Should throw exception when exchange rate not found for conversion")
     void convert_throwsWhenRateNotFound() {
-        when(exchangeRateCache.getBestRate("USD", "XYZ")).thenReturn(Optional.empty());
+        when(exchangeRateCache.getRateEntry("USD", "XYZ")).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> exchangeRateService.convert(
                 new BigDecimal("100"), "USD", "XYZ"))
@@ -65,8 +152,8 @@ class ExchangeRateServiceTest {
     @Test
     @DisplayName("Should handle lowercase currency codes in conversion")
     void convert_handlesLowercase() {
-        when(exchangeRateCache.getBestRate("USD", "EUR"))
-                .thenReturn(Optional.of(new BigDecimal("0.92")));
+        when(exchangeRateCache.getRateEntry("USD", "EUR"))
+                .thenReturn(Optional.of(new RateEntry(new BigDecimal("0.92"), null)));
 
         ConversionResponse result = exchangeRateService.convert(
                 new BigDecimal("50"), "usd", "eur");
@@ -91,7 +178,7 @@ class ExchangeRateServiceTest {
 
         when(exchangeRateRepository.findOldestRateSince(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
                 .thenReturn(Optional.of(oldRate));
-        when(exchangeRateRepository.findLatestRate("USD", "EUR"))
+        when(exchangeRateRepository.findLatestRateSince(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
                 .thenReturn(Optional.of(latestRate));
 
         TrendResponse result = exchangeRateService.getTrend("USD", "EUR", "12H");
@@ -104,6 +191,129 @@ class ExchangeRateServiceTest {
         assertThat(result.getPercentageChange()).isPositive();
     }
 
+    @Test
+    @DisplayName("Should serve a computed trend from the cache until the next snapshot is published")
+    void getTrend_cachedUntilNextSnapshot() {
+        ExchangeRate latestRate = ExchangeRate.builder()
+                .baseCurrency("USD").targetCurrency("EUR")
+                .rate(new BigDecimal("0.92000000"))
+                .timestamp(LocalDateTime.now())
+                .build();
+        when(exchangeRateRepository.findOldestRateSince(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(latestRate));
+        when(exchangeRateRepository.findLatestRateSince(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(latestRate));
+
+        TrendResponse first = exchangeRateService.getTrend("usd", "eur", "7d");
+        TrendResponse second = exchangeRateService.getTrend("USD", "EUR", "7D");
+
+        assertThat(second).isSameAs(first);
+        verify(exchangeRateRepository, times(1)).findLatestRateSince(eq("USD"), eq("EUR"), any());
+
+        trendCache.onRatesPersisted(new RatesPersistedEvent(1));
+        exchangeRateService.getTrend("USD", "EUR", "7D");
+
+        verify(exchangeRateRepository, times(2)).findLatestRateSince(eq("USD"), eq("EUR"), any());
+    }
+
+    @Test
+    @DisplayName("Should answer cached batch trends from the cache and read only the other targets in one query")
+    void getTrends_batch_readsOnlyUncachedTargets() {
+        long version = trendCache.currentVersion();
+        trendCache.put(version, TrendResponse.builder().from("USD").to("EUR").period("12H")
+                .rateAtStart(new BigDecimal("0.90")).currentRate(new BigDecimal("0.92"))
+                .percentageChange(new BigDecimal("2.22")).build());
+        trendCache.put(version, TrendResponse.builder().from("USD").to("EUR").period("7D")
+                .rateAtStart(new BigDecimal("0.80")).currentRate(new BigDecimal("0.92"))
+                .percentageChange(new BigDecimal("15.00")).build());
+        when(rateTrendRepository.findTrendRates(eq("USD"), eq(List.of("GBP", "JPY")), anyList()))
+                .thenReturn(Map.of("GBP", new TrendRates(new BigDecimal("0.80"),
+                        List.of(new BigDecimal("0.80"), new BigDecimal("0.64")))));
+
+        BatchTrendResponse result = exchangeRateService.getTrends("usd",
+                List.of("eur", "GBP", "USD", "JPY"), List.of("12h", "7D", "12H"));
+
+        assertThat(result.getBase()).isEqualTo("USD");
+        assertThat(result.getPeriods()).containsExactly("12H", "7D");
+        assertThat(result.getTrends()).containsOnlyKeys("EUR", "GBP");
+        assertThat(result.getTrends().get("EUR").getPercentageChanges())
+                .containsExactly(new BigDecimal("2.22"), new BigDecimal("15.00"));
+        assertThat(result.getTrends().get("GBP").getPercentageChanges())
+                .containsExactly(new BigDecimal("0.00"), new BigDecimal("25.00"));
+        assertThat(trendCache.find(version, "USD", "GBP", "7D")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Should compute batch trends of targets the history store covers without querying them")
+    void getTrends_batch_historyStoreCovers_computedInMemory() {
+        when(rateHistoryStore.covers(eq("USD"), eq("EUR"), any())).thenReturn(true);
+        when(rateHistoryStore.findRateAtOrBefore(eq("USD"), eq("EUR"), any()))
+                .thenReturn(Optional.of(new BigDecimal("0.80")));
+        when(rateHistoryStore.findLatestRate("USD", "EUR")).thenReturn(Optional.of(new BigDecimal("0.88")));
+
+        BatchTrendResponse result = exchangeRateService.getTrends("USD", List.of("EUR", "GBP"), List.of("1D"));
+
+        assertThat(result.getTrends().get("EUR").getPercentageChanges())
+                .containsExactly(new BigDecimal("10.00"));
+        verify(rateTrendRepository).findTrendRates(eq("USD"), eq(List.of("GBP")), anyList());
+        assertThat(trendCache.find(trendCache.currentVersion(), "USD", "EUR", "1D")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Should reject a batch with an invalid period before querying")
+    void getTrends_batch_invalidPeriod_throws() {
+        assertThatThrownBy(() -> exchangeRateService.getTrends("USD", List.of("EUR"), List.of("1D", "5H")))
+                .isInstanceOf(InvalidPeriodException.class);
+        verifyNoInteractions(rateTrendRepository);
+    }
+
+    @Test
+    @DisplayName("Should use the rate in effect at the period start when no row was written inside the period")
+    void getTrend_rateCarriedForward_usesLastRowBeforeStart() {
+        ExchangeRate carried = ExchangeRate.builder()
+                .baseCurrency("USD").targetCurrency("EUR")
+                .rate(new BigDecimal("0.80000000"))
+                .timestamp(LocalDateTime.now().minusDays(3))
+                .build();
+        ExchangeRate latestRate = ExchangeRate.builder()
+                .baseCurrency("USD").targetCurrency("EUR")
+                .rate(new BigDecimal("0.88000000"))
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        when(exchangeRateRepository.findLatestRateBetween(eq("USD"), eq("EUR"), any(LocalDateTime.class),
+                any(LocalDateTime.class)))
+                .thenReturn(Optional.of(carried));
+        when(exchangeRateRepository.findLatestRateSince(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(latestRate));
+
+        TrendResponse result = exchangeRateService.getTrend("USD", "EUR", "1D");
+
+        assertThat(result.getRateAtStart()).isEqualByComparingTo("0.80000000");
+        assertThat(result.getPercentageChange()).isEqualByComparingTo("10.00");
+        verify(exchangeRateRepository, never()).findOldestRateSince(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should bound raw rate lookups by the start of the retention window")
+    void getTrend_rawLookups_boundedByRetentionWindow() {
+        ReflectionTestUtils.setField(exchangeRateService, "retentionMonths", 6);
+        LocalDateTime windowStart = YearMonth.now().minusMonths(6).atDay(1).atStartOfDay();
+        ExchangeRate latestRate = ExchangeRate.builder()
+                .baseCurrency("USD").targetCurrency("EUR")
+                .rate(new BigDecimal("0.88000000"))
+                .timestamp(LocalDateTime.now())
+                .build();
+        when(exchangeRateRepository.findLatestRateBetween(eq("USD"), eq("EUR"), eq(windowStart),
+                any(LocalDateTime.class))).thenReturn(Optional.of(latestRate));
+        when(exchangeRateRepository.findLatestRateSince("USD", "EUR", windowStart))
+                .thenReturn(Optional.of(latestRate));
+
+        TrendResponse result = exchangeRateService.getTrend("USD", "EUR", "1M");
+
+        assertThat(result.getPercentageChange()).isEqualByComparingTo("0.00");
+    }
+
     @Test
     @DisplayName("Should throw exception for invalid period format")
     void getTrend_invalidPeriod_throws() {
@@ -145,7 +355,7 @@ class ExchangeRateServiceTest {
 
         when(exchangeRateRepository.findOldestRateSince(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
                 .thenReturn(Optional.of(oldRate));
-        when(exchangeRateRepository.findLatestRate("USD", "EUR"))
+        when(exchangeRateRepository.findLatestRateSince(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
                 .thenReturn(Optional.of(latestRate));
 
         TrendResponse result = exchangeRateService.getTrend("USD", "EUR", "10D");
@@ -170,7 +380,7 @@ class ExchangeRateServiceTest {
 
         when(exchangeRateRepository.findOldestRateSince(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
                 .thenReturn(Optional.of(oldRate));
-        when(exchangeRateRepository.findLatestRate("USD", "EUR"))
+        when(exchangeRateRepository.findLatestRateSince(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
                 .thenReturn(Optional.of(latestRate));
 
         TrendResponse result = exchangeRateService.getTrend("USD", "EUR", "3M");
@@ -194,11 +404,90 @@ class ExchangeRateServiceTest {
 
         when(exchangeRateRepository.findOldestRateSince(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
                 .thenReturn(Optional.of(oldRate));
-        when(exchangeRateRepository.findLatestRate("USD", "EUR"))
+        when(exchangeRateRepository.findLatestRateSince(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
                 .thenReturn(Optional.of(latestRate));
 
         TrendResponse result = exchangeRateService.getTrend("USD", "EUR", "1Y");
 
         assertThat(result.getPeriod()).isEqualTo("1Y");
     }
+
+    @Test
+    @DisplayName("Should read the start rate from the rollups when no raw row falls in its hour")
+    void getTrend_rollups_startFromDailyClose() {
+        ReflectionTestUtils.setField(exchangeRateService, "rollupsEnabled", true);
+        when(exchangeRateRepository.findLatestRateBetween(eq("USD"), eq("EUR"), any(), any()))
+                .thenReturn(Optional.empty());
+        when(rateRollupRepository.findLastClose(eq("USD"), eq("EUR"), eq(Granularity.HOUR), any(), any()))
+                .thenReturn(Optional.empty());
+        when(rateRollupRepository.findLastClose(eq("USD"), eq("EUR"), eq(Granularity.DAY), isNull(), any()))
+                .thenReturn(Optional.of(new BigDecimal("0.80000000")));
+        when(rateRollupRepository.findLastClose("USD", "EUR", Granularity.DAY, null, null))
+                .thenReturn(Optional.of(new BigDecimal("0.88000000")));
+
+        TrendResponse result = exchangeRateService.getTrend("USD", "EUR", "1Y");
+
+        assertThat(result.getRateAtStart()).isEqualByComparingTo("0.80000000");
+        assertThat(result.getCurrentRate()).isEqualByComparingTo("0.88000000");
+        assertThat(result.getPercentageChange()).isEqualByComparingTo("10.00");
+        verify(exchangeRateRepository, never()).findLatestRateSince(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should prefer raw rows in the hour of the period start over the rollups")
+    void getTrend_rollups_rawRowInStartHour() {
+        ReflectionTestUtils.setField(exchangeRateService, "rollupsEnabled", true);
+        ExchangeRate inHour = ExchangeRate.builder()
+                .baseCurrency("USD").targetCurrency("EUR")
+                .rate(new BigDecimal("0.90000000"))
+                .timestamp(LocalDateTime.now().minusDays(1))
+                .build();
+        when(exchangeRateRepository.findLatestRateBetween(eq("USD"), eq("EUR"), any(), any()))
+                .thenReturn(Optional.of(inHour));
+        when(rateRollupRepository.findLastClose("USD", "EUR", Granularity.DAY, null, null))
+                .thenReturn(Optional.of(new BigDecimal("0.90000000")));
+
+        TrendResponse result = exchangeRateService.getTrend("USD", "EUR", "1D");
+
+        assertThat(result.getRateAtStart()).isEqualByComparingTo("0.90000000");
+        assertThat(result.getPercentageChange()).isEqualByComparingTo("0.00");
+        verify(rateRollupRepository, never()).findLastClose(any(), any(), eq(Granularity.HOUR), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the first rollup open when the history begins inside the period")
+    void getTrend_rollups_historyStartsInsidePeriod() {
+        ReflectionTestUtils.setField(exchangeRateService, "rollupsEnabled", true);
+        when(exchangeRateRepository.findLatestRateBetween(eq("USD"), eq("EUR"), any(), any()))
+                .thenReturn(Optional.empty());
+        when(rateRollupRepository.findLastClose(eq("USD"), eq("EUR"), eq(Granularity.HOUR), any(), any()))
+                .thenReturn(Optional.empty());
+        when(rateRollupRepository.findLastClose(eq("USD"), eq("EUR"), eq(Granularity.DAY), isNull(), any()))
+                .thenReturn(Optional.empty());
+        when(exchangeRateRepository.findOldestRateBetween(eq("USD"), eq("EUR"), any(), any()))
+                .thenReturn(Optional.empty());
+        when(rateRollupRepository.findFirstOpen(eq("USD"), eq("EUR"), eq(Granularity.HOUR), any(), any()))
+                .thenReturn(Optional.of(new BigDecimal("0.50000000")));
+        when(rateRollupRepository.findLastClose("USD", "EUR", Granularity.DAY, null, null))
+                .thenReturn(Optional.of(new BigDecimal("0.55000000")));
+
+        TrendResponse result = exchangeRateService.getTrend("USD", "EUR", "1M");
+
+        assertThat(result.getRateAtStart()).isEqualByComparingTo("0.50000000");
+        assertThat(result.getPercentageChange()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    @DisplayName("Should answer a trend inside the in-memory horizon without touching the database")
+    void getTrend_inMemoryHorizon_skipsDatabase() {
+        when(rateHistoryStore.covers(eq("USD"), eq("EUR"), any(LocalDateTime.class))).thenReturn(true);
+        when(rateHistoryStore.findRateAtOrBefore(eq("USD"), eq("EUR"), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(new BigDecimal("0.80000000")));
+        when(rateHistoryStore.findLatestRate("USD", "EUR")).thenReturn(Optional.of(new BigDecimal("0.84000000")));
+
+        TrendResponse result = exchangeRateService.getTrend("USD", "EUR", "7D");
+
+        assertThat(result.getPercentageChange()).isEqualByComparingTo("5.00");
+        verifyNoInteractions(exchangeRateRepository, rateRollupRepository);
+    }
 }
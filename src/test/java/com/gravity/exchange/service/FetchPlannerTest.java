@@ -0,0 +1,90 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.cache.RateTriangulator;
+import com.gravity.exchange.client.ExchangeRateProvider;
+import com.gravity.exchange.client.ProviderCapabilities;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class FetchPlannerTest {
+
+    private static final List<String> ACTIVE = List.of("EUR", "USD", "JPY", "XAU");
+
+    private final RateTriangulator triangulator = new RateTriangulator(true, false, List.of("USD", "EUR"));
+
+    @Test
+    @DisplayName("Should ask a whole-table provider once, for the first active pivot, standing in for the other bases")
+    void plan_wholeTableProvider_singleAnchorRequest() {
+        ExchangeRateProvider provider = provider("WHOLE", new ProviderCapabilities(true, Set.of()));
+
+        List<FetchPlanner.PlannedFetch> plan = new FetchPlanner(triangulator, true)
+                .plan(List.of(provider), ACTIVE, ACTIVE);
+
+        assertThat(plan).extracting(FetchPlanner.PlannedFetch::baseCurrency, FetchPlanner.PlannedFetch::targets,
+                        FetchPlanner.PlannedFetch::derivedBases)
+                .containsExactly(tuple("USD", Set.of("EUR", "JPY", "XAU"), Set.of("EUR", "JPY", "XAU")));
+    }
+
+    @Test
+    @DisplayName("Should ask a per-base provider once per base")
+    void plan_perBaseProvider_requestPerBase() {
+        ExchangeRateProvider provider = provider("PER_BASE", ProviderCapabilities.DEFAULT);
+
+        List<FetchPlanner.PlannedFetch> plan = new FetchPlanner(triangulator, true)
+                .plan(List.of(provider), ACTIVE, ACTIVE);
+
+        assertThat(plan).extracting(FetchPlanner.PlannedFetch::baseCurrency)
+                .containsExactlyElementsOf(ACTIVE);
+        assertThat(plan).allSatisfy(fetch -> assertThat(fetch.derivedBases()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should limit bases and targets to the currencies a provider supports")
+    void plan_supportedCurrencies_filtersBasesAndTargets() {
+        ExchangeRateProvider provider = provider("LIMITED",
+                new ProviderCapabilities(false, Set.of("EUR", "USD", "JPY")));
+
+        List<FetchPlanner.PlannedFetch> plan = new FetchPlanner(triangulator, true)
+                .plan(List.of(provider), ACTIVE, ACTIVE);
+
+        assertThat(plan).extracting(FetchPlanner.PlannedFetch::baseCurrency).containsExactly("EUR", "USD", "JPY");
+        assertThat(plan).allSatisfy(fetch -> assertThat(fetch.targets()).doesNotContain("XAU"));
+    }
+
+    @Test
+    @DisplayName("Should fall back to one request per base when the planner or triangulation is off")
+    void plan_disabled_requestPerBase() {
+        ExchangeRateProvider provider = provider("WHOLE", new ProviderCapabilities(true, Set.of()));
+        RateTriangulator noTriangulation = new RateTriangulator(false, false, List.of("USD"));
+
+        assertThat(new FetchPlanner(triangulator, false).plan(List.of(provider), ACTIVE, ACTIVE)).hasSize(4);
+        assertThat(new FetchPlanner(noTriangulation, true).plan(List.of(provider), ACTIVE, ACTIVE)).hasSize(4);
+    }
+
+    private ExchangeRateProvider provider(String name, ProviderCapabilities capabilities) {
+        return new ExchangeRateProvider() {
+            @Override
+            public Map<String, BigDecimal> fetchRates(String baseCurrency, Set<String> targetCurrencies) {
+                return Map.of();
+            }
+
+            @Override
+            public String getProviderName() {
+                return name;
+            }
+
+            @Override
+            public ProviderCapabilities getCapabilities() {
+                return capabilities;
+            }
+        };
+    }
+}
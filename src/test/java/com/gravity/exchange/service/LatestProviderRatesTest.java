@@ -0,0 +1,45 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.cache.RateEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatestProviderRatesTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 16, 12, 0);
+
+    private final LatestProviderRates latestRates = new LatestProviderRates();
+
+    @Test
+    @DisplayName("Should pick the highest rate per pair among the providers fresh enough")
+    void selectBest_highestFreshRate() {
+        latestRates.update("A", "USD", Map.of("EUR", new BigDecimal("0.91")), START);
+        latestRates.update("B", "USD", Map.of("EUR", new BigDecimal("0.93")), START.minusHours(3));
+        latestRates.update("C", "USD", Map.of("EUR", new BigDecimal("0.92")), START);
+
+        Map<String, Map<String, RateEntry>> best = latestRates.selectBest(List.of("USD", "GBP"),
+                START.minusHours(2));
+
+        assertThat(best).containsOnlyKeys("USD");
+        assertThat(best.get("USD").get("EUR").source()).isEqualTo("C");
+    }
+
+    @Test
+    @DisplayName("Should keep the remembered rates of a 304 fresh under the new check time")
+    void restamp_notModified_movesFetchTime() {
+        latestRates.update("A", "USD", Map.of("EUR", new BigDecimal("0.91")), START.minusHours(3));
+
+        latestRates.restamp("A", "USD", START);
+
+        RateEntry entry = latestRates.selectBest(List.of("USD"), START.minusHours(2)).get("USD").get("EUR");
+        assertThat(entry.rate()).isEqualByComparingTo("0.91");
+        assertThat(entry.fetchedAt()).isEqualTo(START);
+    }
+}
@@ -0,0 +1,144 @@
+package com.gravity.exchange.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LttbDownsamplerTest {
+
+    @Test
+    @DisplayName("Should return the points unchanged when there are no more than the threshold")
+    void finish_fewPoints_returnsAll() {
+        LttbDownsampler<Integer> downsampler = new LttbDownsampler<>(5, 0, 100);
+        for (int i = 0; i < 5; i++) {
+            downsampler.add(i * 10, i % 2, i);
+        }
+
+        assertThat(downsampler.finish()).containsExactly(0, 1, 2, 3, 4);
+        assertThat(downsampler.count()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should keep the first and last points and the spikes of a flat series")
+    void finish_keepsEndpointsAndSpikes() {
+        LttbDownsampler<Integer> downsampler = new LttbDownsampler<>(4, 0, 1000);
+        for (int i = 0; i < 1000; i++) {
+            double y = i == 250 ? 5 : i == 750 ? -5 : 1;
+            downsampler.add(i, y, i);
+        }
+
+        assertThat(downsampler.finish()).containsExactly(0, 250, 750, 999);
+    }
+
+    @Test
+    @DisplayName("Should skip empty buckets when the history has gaps")
+    void finish_gaps_skipsEmptyBuckets() {
+        LttbDownsampler<Integer> downsampler = new LttbDownsampler<>(12, 0, 1000);
+        for (int i = 0; i < 50; i++) {
+            downsampler.add(i, i, i);
+        }
+        for (int i = 0; i < 50; i++) {
+            downsampler.add(950 + i, i, 50 + i);
+        }
+
+        // Only the first and last of the ten inner buckets have points
+        assertThat(downsampler.finish()).hasSize(4).startsWith(0).endsWith(99);
+    }
+
+    @Test
+    @DisplayName("Should select the same points as LTTB over fully buffered buckets")
+    void finish_matchesBufferedLttb() {
+        Random random = new Random(7);
+        for (int run = 0; run < 200; run++) {
+            int size = 1 + random.nextInt(3000);
+            int threshold = 3 + random.nextInt(300);
+            long[] xs = new long[size];
+            double[] ys = new double[size];
+            long x = random.nextInt(100);
+            double y = 1;
+            for (int i = 0; i < size; i++) {
+                // Rates of several sources often share a timestamp
+                x += random.nextInt(3) == 0 ? 0 : random.nextInt(1000);
+                y += random.nextGaussian() * 0.01;
+                xs[i] = x;
+                ys[i] = y;
+            }
+            long end = x + 1;
+
+            LttbDownsampler<Integer> downsampler = new LttbDownsampler<>(threshold, 0, end);
+            for (int i = 0; i < size; i++) {
+                downsampler.add(xs[i], ys[i], i);
+            }
+
+            assertThat(downsampler.finish()).isEqualTo(bufferedLttb(xs, ys, threshold, end));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject thresholds below three")
+    void constructor_smallThreshold_throws() {
+        assertThatThrownBy(() -> new LttbDownsampler<>(2, 0, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Reference implementation holding every point of each bucket.
+     */
+    private static List<Integer> bufferedLttb(long[] xs, double[] ys, int threshold, long end) {
+        List<Integer> result = new ArrayList<>();
+        if (xs.length <= threshold) {
+            for (int i = 0; i < xs.length; i++) {
+                result.add(i);
+            }
+            return result;
+        }
+        double width = Math.max(1.0, (double) end / (threshold - 2));
+        List<List<Integer>> buckets = new ArrayList<>();
+        int current = -1;
+        for (int i = 1; i < xs.length - 1; i++) {
+            int index = (int) Math.min(threshold - 3, Math.floor(xs[i] / width));
+            if (index != current) {
+                buckets.add(new ArrayList<>());
+                current = index;
+            }
+            buckets.get(buckets.size() - 1).add(i);
+        }
+        int last = xs.length - 1;
+        int anchor = 0;
+        result.add(0);
+        for (int b = 0; b < buckets.size(); b++) {
+            double nextX = xs[last];
+            double nextY = ys[last];
+            if (b + 1 < buckets.size()) {
+                double sumX = 0;
+                double sumY = 0;
+                for (int i : buckets.get(b + 1)) {
+                    sumX += xs[i];
+                    sumY += ys[i];
+                }
+                nextX = sumX / buckets.get(b + 1).size();
+                nextY = sumY / buckets.get(b + 1).size();
+            }
+            int best = -1;
+            double bestArea = -1;
+            for (int i : buckets.get(b)) {
+                double area = Math.abs((xs[anchor] - nextX) * (ys[i] - ys[anchor])
+                        - (xs[anchor] - xs[i]) * (nextY - ys[anchor]));
+                if (area > bestArea) {
+                    best = i;
+                    bestArea = area;
+                }
+            }
+            result.add(best);
+            anchor = best;
+        }
+        result.add(last);
+        return result;
+    }
+}
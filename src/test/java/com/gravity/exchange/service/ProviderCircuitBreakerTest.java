@@ -0,0 +1,103 @@
+package com.gravity.exchange.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProviderCircuitBreakerTest {
+
+    private static final Duration FAST = Duration.ofMillis(100);
+
+    private final MutableClock clock = new MutableClock();
+    private final ProviderCircuitBreaker breaker = new ProviderCircuitBreaker("TEST", clock, 4, 4, 0.5,
+            Duration.ofSeconds(2), Duration.ofSeconds(30), Duration.ofSeconds(100));
+
+    @Test
+    @DisplayName("Should open once the failure rate over the window reaches the threshold")
+    void failures_openCircuit() {
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onFailure(FAST);
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+
+        breaker.onSuccess(Duration.ofSeconds(3));
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getStatus().getFailureRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("Should let exactly one probe through after the open period and close on success")
+    void openPeriodElapsed_singleProbe_closesOnSuccess() {
+        open();
+        clock.advance(Duration.ofSeconds(30));
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.HALF_OPEN);
+
+        breaker.onSuccess(FAST);
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getStatus().getRecordedCalls()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should double the open period after each failed probe, up to the maximum")
+    void failedProbes_backOffExponentially() {
+        open();
+
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure(FAST);
+        assertThat(breaker.getStatus().getOpenDurationSeconds()).isEqualTo(60);
+
+        clock.advance(Duration.ofSeconds(59));
+        assertThat(breaker.tryAcquire()).isFalse();
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure(FAST);
+
+        assertThat(breaker.getStatus().getOpenDurationSeconds()).isEqualTo(100);
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(FAST);
+        }
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-10-16T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.entity.ExchangeRate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateChangeFilterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 16, 0, 0);
+
+    @Test
+    @DisplayName("Should skip exact duplicates per pair and source with the default epsilon")
+    void retainChanged_duplicates_skipped() {
+        RateChangeFilter filter = new RateChangeFilter(true, BigDecimal.ZERO, List.of(), Duration.ofHours(24));
+
+        assertThat(filter.retainChanged(List.of(rate("USD", "EUR", "0.92", "A", 0)))).hasSize(1);
+        assertThat(filter.retainChanged(List.of(rate("USD", "EUR", "0.92", "A", 1)))).isEmpty();
+        assertThat(filter.retainChanged(List.of(rate("USD", "EUR", "0.92", "B", 1)))).hasSize(1);
+        assertThat(filter.retainChanged(List.of(rate("USD", "EUR", "0.9201", "A", 2)))).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should write only moves larger than the relative epsilon, with per-pair overrides")
+    void retainChanged_epsilon_appliesPerPair() {
+        RateChangeFilter filter = new RateChangeFilter(true, new BigDecimal("0.001"),
+                List.of("usd/jpy=0.01", "garbage"), Duration.ofHours(24));
+        filter.retainChanged(List.of(rate("USD", "EUR", "1.0000", "A", 0), rate("USD", "JPY", "100", "A", 0)));
+
+        List<ExchangeRate> written = filter.retainChanged(List.of(
+                rate("USD", "EUR", "1.0005", "A", 1),
+                rate("USD", "JPY", "100.5", "A", 1)));
+        assertThat(written).isEmpty();
+
+        written = filter.retainChanged(List.of(
+                rate("USD", "EUR", "1.0020", "A", 2),
+                rate("USD", "JPY", "101.5", "A", 2)));
+        assertThat(written).extracting(ExchangeRate::getTargetCurrency).containsExactly("EUR", "JPY");
+    }
+
+    @Test
+    @DisplayName("Should write an unchanged rate again once the heartbeat is due")
+    void retainChanged_heartbeat_writesAgain() {
+        RateChangeFilter filter = new RateChangeFilter(true, BigDecimal.ZERO, List.of(), Duration.ofHours(6));
+        filter.retainChanged(List.of(rate("USD", "EUR", "0.92", "A", 0)));
+
+        assertThat(filter.retainChanged(List.of(rate("USD", "EUR", "0.92", "A", 5)))).isEmpty();
+        assertThat(filter.retainChanged(List.of(rate("USD", "EUR", "0.92", "A", 6)))).hasSize(1);
+        assertThat(filter.retainChanged(List.of(rate("USD", "EUR", "0.92", "A", 7)))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should write a dropped rate again on the next fetch, unless a newer one was let through since")
+    void forget_droppedRates_writtenAgain() {
+        RateChangeFilter filter = new RateChangeFilter(true, BigDecimal.ZERO, List.of(), Duration.ofHours(24));
+        List<ExchangeRate> dropped = filter.retainChanged(List.of(
+                rate("USD", "EUR", "0.92", "A", 0),
+                rate("USD", "GBP", "0.79", "A", 0)));
+        filter.retainChanged(List.of(rate("USD", "GBP", "0.80", "A", 1)));
+
+        filter.forget(dropped);
+
+        List<ExchangeRate> written = filter.retainChanged(List.of(
+                rate("USD", "EUR", "0.92", "A", 2),
+                rate("USD", "GBP", "0.80", "A", 2)));
+        assertThat(written).extracting(ExchangeRate::getTargetCurrency).containsExactly("EUR");
+    }
+
+    @Test
+    @DisplayName("Should pass every rate through when disabled")
+    void retainChanged_disabled_passesAll() {
+        RateChangeFilter filter = new RateChangeFilter(false, BigDecimal.ZERO, List.of(), Duration.ofHours(24));
+        List<ExchangeRate> rates = List.of(rate("USD", "EUR", "0.92", "A", 0));
+
+        filter.retainChanged(rates);
+
+        assertThat(filter.retainChanged(rates)).hasSize(1);
+    }
+
+    private ExchangeRate rate(String base, String target, String rate, String source, int hoursAfterStart) {
+        return ExchangeRate.builder()
+                .baseCurrency(base)
+                .targetCurrency(target)
+                .rate(new BigDecimal(rate))
+                .source(source)
+                .timestamp(START.plusHours(hoursAfterStart))
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.gravity.exchange.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gravity.exchange.exception.InvalidHistoryQueryException;
+import com.gravity.exchange.repository.RateHistoryRepository;
+import com.gravity.exchange.repository.RateHistoryRepository.CurrencyPair;
+import com.gravity.exchange.repository.RateHistoryRepository.RateRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RateExportServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 7, 1, 0, 0);
+
+    @Mock
+    private RateHistoryRepository rateHistoryRepository;
+
+    private RateExportService service() {
+        return new RateExportService(rateHistoryRepository, new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("Should write one JSON object per line with plain rates")
+    void write_ndjson() throws Exception {
+        streamRows(new RateRow("USD", "EUR", "FRANKFURTER", new BigDecimal("0.92000000"),
+                        LocalDateTime.of(2026, 3, 1, 12, 0)),
+                new RateRow("USD", "EUR", "MOCK", new BigDecimal("0.00000001"), LocalDateTime.of(2026, 3, 1, 13, 0)));
+        RateExportService service = service();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = service.write(service.prepare(List.of("usd/eur"), FROM, TO, "NDJSON"), out);
+
+        assertThat(rows).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"base\":\"USD\",\"target\":\"EUR\",\"source\":\"FRANKFURTER\",\"rate\":0.92000000,"
+                        + "\"timestamp\":\"2026-03-01T12:00\"}\n"
+                        + "{\"base\":\"USD\",\"target\":\"EUR\",\"source\":\"MOCK\",\"rate\":0.00000001,"
+                        + "\"timestamp\":\"2026-03-01T13:00\"}\n");
+    }
+
+    @Test
+    @DisplayName("Should write a header and quote fields that need it in CSV")
+    void write_csv() throws Exception {
+        streamRows(new RateRow("USD", "GBP", "ACME, INC", new BigDecimal("0.79000000"),
+                LocalDateTime.of(2026, 2, 1, 8, 30)));
+        RateExportService service = service();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        RateExportService.ExportRequest request = service.prepare(List.of("USD/GBP"), FROM, TO, "csv");
+        service.write(request, out);
+
+        assertThat(request.filename()).isEqualTo("exchange-rates-2026-01-01-2026-07-01.csv");
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "base_currency,target_currency,source,rate,timestamp\n"
+                        + "USD,GBP,\"ACME, INC\",0.79000000,2026-02-01T08:30\n");
+    }
+
+    @Test
+    @DisplayName("Should reject malformed pairs, empty ranges and unknown formats")
+    void prepare_invalid_throws() {
+        RateExportService service = service();
+
+        assertThatThrownBy(() -> service.prepare(List.of("USDEUR"), FROM, TO, "csv"))
+                .isInstanceOf(InvalidHistoryQueryException.class);
+        assertThatThrownBy(() -> service.prepare(List.of("USD/EUR"), TO, FROM, "csv"))
+                .isInstanceOf(InvalidHistoryQueryException.class);
+        assertThatThrownBy(() -> service.prepare(List.of("USD/EUR"), FROM, TO, "xml"))
+                .isInstanceOf(InvalidHistoryQueryException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streamRows(RateRow... rows) {
+        when(rateHistoryRepository.streamRates(any(), eq(FROM), eq(TO), any())).thenAnswer(invocation -> {
+            List<CurrencyPair> pairs = invocation.getArgument(0);
+            assertThat(pairs).hasSize(1);
+            Consumer<RateRow> handler = invocation.getArgument(3);
+            for (RateRow row : rows) {
+                handler.accept(row);
+            }
+            return (long) rows.length;
+        });
+    }
+}
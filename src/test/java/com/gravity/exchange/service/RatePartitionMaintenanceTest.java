@@ -0,0 +1,97 @@
+package com.gravity.exchange.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RatePartitionMaintenanceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SchedulerLeadership schedulerLeadership;
+
+    @Test
+    @DisplayName("Should ask for the current month and every month ahead")
+    void createUpcomingPartitions_coversMonthsAhead() {
+        // Only the partition for December is still missing
+        when(jdbcTemplate.queryForObject(eq("SELECT create_exchange_rate_partition(?)"), eq(Boolean.class),
+                any(LocalDate.class))).thenReturn(false, false, true, false);
+        RatePartitionMaintenance maintenance = maintenance(RatePartitionMaintenance.RetentionAction.DROP);
+
+        int created = maintenance.createUpcomingPartitions(YearMonth.of(2026, 10));
+
+        assertThat(created).isEqualTo(1);
+        verify(jdbcTemplate).queryForObject("SELECT create_exchange_rate_partition(?)", Boolean.class,
+                LocalDate.of(2026, 10, 1));
+        verify(jdbcTemplate).queryForObject("SELECT create_exchange_rate_partition(?)", Boolean.class,
+                LocalDate.of(2027, 1, 1));
+        verify(jdbcTemplate, times(4)).queryForObject(eq("SELECT create_exchange_rate_partition(?)"),
+                eq(Boolean.class), any(LocalDate.class));
+    }
+
+    @Test
+    @DisplayName("Should drop only monthly partitions older than the oldest kept month")
+    void applyRetention_drop_removesExpiredPartitions() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "exchange_rate_p202409", "exchange_rate_default", "exchange_rate_p202410", "exchange_rate_p202408"));
+        RatePartitionMaintenance maintenance = maintenance(RatePartitionMaintenance.RetentionAction.DROP);
+
+        List<String> removed = maintenance.applyRetention(YearMonth.of(2024, 10));
+
+        assertThat(removed).containsExactly("exchange_rate_p202408", "exchange_rate_p202409");
+        verify(jdbcTemplate).execute("DROP TABLE exchange_rate_p202408");
+        verify(jdbcTemplate).execute("DROP TABLE exchange_rate_p202409");
+        verify(jdbcTemplate, never()).execute("DROP TABLE exchange_rate_p202410");
+    }
+
+    @Test
+    @DisplayName("Should detach instead of dropping when configured to")
+    void applyRetention_detach_keepsTables() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("exchange_rate_p202301"));
+        RatePartitionMaintenance maintenance = maintenance(RatePartitionMaintenance.RetentionAction.DETACH);
+
+        maintenance.applyRetention(YearMonth.of(2024, 10));
+
+        verify(jdbcTemplate).execute("ALTER TABLE exchange_rate DETACH PARTITION exchange_rate_p202301");
+    }
+
+    @Test
+    @DisplayName("Should skip maintenance on a node that is not the scheduler leader")
+    void maintain_notLeader_skips() {
+        when(schedulerLeadership.isLeader()).thenReturn(false);
+
+        maintenance(RatePartitionMaintenance.RetentionAction.DROP).maintain();
+
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class));
+    }
+
+    @Test
+    @DisplayName("Should read the month from partition names and ignore the default partition")
+    void partitionMonth_parsesName() {
+        assertThat(RatePartitionMaintenance.partitionMonth("exchange_rate_p202610")).contains(YearMonth.of(2026, 10));
+        assertThat(RatePartitionMaintenance.partitionMonth("exchange_rate_default")).isEmpty();
+    }
+
+    private RatePartitionMaintenance maintenance(RatePartitionMaintenance.RetentionAction action) {
+        return new RatePartitionMaintenance(jdbcTemplate, schedulerLeadership, 3, true, 24, action);
+    }
+}
@@ -0,0 +1,95 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.dto.RateSeriesResponse;
+import com.gravity.exchange.exception.InvalidHistoryQueryException;
+import com.gravity.exchange.repository.RateHistoryRepository;
+import com.gravity.exchange.repository.RateHistoryRepository.CurrencyPair;
+import com.gravity.exchange.repository.RateHistoryRepository.RateRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RateSeriesServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 1, 2, 0, 0);
+
+    @Mock
+    private RateHistoryRepository rateHistoryRepository;
+
+    @InjectMocks
+    private RateSeriesService rateSeriesService;
+
+    @Test
+    @DisplayName("Should downsample the history of the pair to the requested number of points")
+    void getSeries_downsamples() {
+        // One rate a minute, flat apart from a spike at noon
+        streamRows(IntStream.range(0, 1440)
+                .mapToObj(minute -> row(START.plusMinutes(minute), minute == 720 ? "0.95" : "0.92"))
+                .toArray(RateRow[]::new));
+
+        RateSeriesResponse series = rateSeriesService.getSeries(" usd", "eur ", START, END, 50);
+
+        assertThat(series.getFrom()).isEqualTo("USD");
+        assertThat(series.getTo()).isEqualTo("EUR");
+        assertThat(series.getSourcePoints()).isEqualTo(1440);
+        assertThat(series.getTimestamps()).hasSize(50).isSorted()
+                .startsWith(START).endsWith(START.plusMinutes(1439));
+        assertThat(series.getRates()).hasSize(50).contains(new BigDecimal("0.95"));
+    }
+
+    @Test
+    @DisplayName("Should return short histories as stored")
+    void getSeries_shortHistory_returnsAllRows() {
+        streamRows(row(START.plusHours(1), "0.91"), row(START.plusHours(2), "0.92"));
+
+        RateSeriesResponse series = rateSeriesService.getSeries("USD", "EUR", START, END, 500);
+
+        assertThat(series.getTimestamps()).containsExactly(START.plusHours(1), START.plusHours(2));
+        assertThat(series.getRates()).containsExactly(new BigDecimal("0.91"), new BigDecimal("0.92"));
+    }
+
+    @Test
+    @DisplayName("Should reject empty ranges and point counts out of bounds")
+    void getSeries_invalid_throws() {
+        assertThatThrownBy(() -> rateSeriesService.getSeries("USD", "EUR", END, START, 500))
+                .isInstanceOf(InvalidHistoryQueryException.class);
+        assertThatThrownBy(() -> rateSeriesService.getSeries("USD", "EUR", START, END, 2))
+                .isInstanceOf(InvalidHistoryQueryException.class);
+        assertThatThrownBy(() -> rateSeriesService.getSeries("USD", "EUR", START, END, 10_001))
+                .isInstanceOf(InvalidHistoryQueryException.class);
+        verifyNoInteractions(rateHistoryRepository);
+    }
+
+    private static RateRow row(LocalDateTime timestamp, String rate) {
+        return new RateRow("USD", "EUR", "TEST", new BigDecimal(rate), timestamp);
+    }
+
+    private void streamRows(RateRow... rows) {
+        when(rateHistoryRepository.streamRates(eq(List.of(new CurrencyPair("USD", "EUR"))), eq(START), eq(END),
+                any())).thenAnswer(invocation -> {
+                    Consumer<RateRow> handler = invocation.getArgument(3);
+                    for (RateRow row : rows) {
+                        handler.accept(row);
+                    }
+                    return (long) rows.length;
+                });
+    }
+}
@@ -0,0 +1,55 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.entity.ExchangeRate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class RateTableRebaserTest {
+
+    private static final LocalDateTime FETCHED_AT = LocalDateTime.of(2026, 10, 16, 12, 0);
+
+    private final RateTableRebaser rebaser = new RateTableRebaser();
+
+    @Test
+    @DisplayName("Should persist the fetched table and rebase it onto every derived base")
+    void toRows_anchorTable_rebasedOntoDerivedBases() {
+        FetchPlanner.PlannedFetch fetch = new FetchPlanner.PlannedFetch(null, "USD", Set.of("EUR", "JPY"),
+                Set.of("EUR"));
+
+        List<ExchangeRate> rows = rebaser.toRows(fetch, Map.of("EUR", new BigDecimal("0.80"),
+                "JPY", new BigDecimal("150")), "A", FETCHED_AT);
+
+        assertThat(rows)
+                .extracting(ExchangeRate::getBaseCurrency, ExchangeRate::getTargetCurrency, ExchangeRate::getRate,
+                        ExchangeRate::getDerivation)
+                .containsExactlyInAnyOrder(
+                        tuple("USD", "EUR", new BigDecimal("0.80"), null),
+                        tuple("USD", "JPY", new BigDecimal("150"), null),
+                        tuple("EUR", "USD", new BigDecimal("1.25000000"), "1/(USD->EUR)"),
+                        tuple("EUR", "JPY", new BigDecimal("187.50000000"), "EUR->USD->JPY"));
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.getSource()).isEqualTo("A");
+            assertThat(row.getTimestamp()).isEqualTo(FETCHED_AT);
+        });
+    }
+
+    @Test
+    @DisplayName("Should skip a derived base the anchor table has no usable rate for")
+    void toRows_missingAnchorRate_skipsBase() {
+        FetchPlanner.PlannedFetch fetch = new FetchPlanner.PlannedFetch(null, "USD", Set.of("EUR", "GBP"),
+                Set.of("EUR", "GBP"));
+
+        List<ExchangeRate> rows = rebaser.toRows(fetch, Map.of("EUR", BigDecimal.ZERO), "A", FETCHED_AT);
+
+        assertThat(rows).extracting(ExchangeRate::getBaseCurrency).containsExactly("USD");
+    }
+}
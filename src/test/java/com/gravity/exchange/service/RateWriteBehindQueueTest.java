@@ -0,0 +1,181 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.cache.RateHistoryStore;
+import com.gravity.exchange.entity.ExchangeRate;
+import com.gravity.exchange.repository.ExchangeRateIngestionWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RateWriteBehindQueueTest {
+
+    @Mock
+    private ExchangeRateIngestionWriter exchangeRateIngestionWriter;
+
+    @Mock
+    private RateHistoryStore rateHistoryStore;
+
+    @Mock
+    private RateChangeFilter rateChangeFilter;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should write queued rates in the background and run callbacks once they are persisted")
+    void enqueue_drainsAndRunsCallback() throws Exception {
+        when(exchangeRateIngestionWriter.write(anyList())).thenAnswer(invocation -> (long) invocation
+                .<List<?>>getArgument(0).size());
+        RateWriteBehindQueue queue = newQueue(3);
+        queue.start();
+        CountDownLatch persisted = new CountDownLatch(1);
+
+        queue.enqueue(rates(7));
+        queue.afterPersisted(persisted::countDown);
+
+        assertThat(persisted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queue.getDepth()).isZero();
+        assertThat(meterRegistry.get("exchange.ingestion.rows.written").counter().count()).isEqualTo(7);
+        queue.stop();
+    }
+
+    @Test
+    @DisplayName("Should retry a failed batch and drop it after the last attempt")
+    void writeFails_retriesThenDrops() throws Exception {
+        when(exchangeRateIngestionWriter.write(anyList())).thenThrow(new IllegalStateException("db down"));
+        // The writer reuses its batch list, so copy what is handed back
+        List<ExchangeRate> forgotten = new ArrayList<>();
+        doAnswer(invocation -> forgotten.addAll(invocation.getArgument(0))).when(rateChangeFilter).forget(anyList());
+        RateWriteBehindQueue queue = newQueue(10);
+        queue.start();
+        CountDownLatch processed = new CountDownLatch(1);
+
+        // A single rate always forms one batch, however the writer thread races the producer
+        queue.enqueue(rates(1));
+        queue.afterPersisted(processed::countDown);
+
+        assertThat(processed.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(exchangeRateIngestionWriter, times(3)).write(anyList());
+        assertThat(forgotten).hasSize(1);
+        assertThat(meterRegistry.get("exchange.ingestion.rows.dropped").counter().count()).isEqualTo(1);
+        queue.stop();
+    }
+
+    @Test
+    @DisplayName("Should flush pending rates on shutdown")
+    void stop_flushesQueue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(exchangeRateIngestionWriter.write(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return (long) invocation.<List<?>>getArgument(0).size();
+        });
+        RateWriteBehindQueue queue = newQueue(2);
+        queue.start();
+
+        queue.enqueue(rates(6));
+        assertThat(queue.getLag()).isGreaterThanOrEqualTo(Duration.ZERO);
+        release.countDown();
+        queue.stop();
+
+        assertThat(queue.getDepth()).isZero();
+        assertThat(meterRegistry.get("exchange.ingestion.rows.written").counter().count()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Should drop rows that do not fit a full queue instead of writing them on the producer thread")
+    void enqueue_queueFull_dropsOverflow() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(exchangeRateIngestionWriter.write(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return (long) invocation.<List<?>>getArgument(0).size();
+        });
+        RateWriteBehindQueue queue = new RateWriteBehindQueue(exchangeRateIngestionWriter, rateHistoryStore,
+                rateChangeFilter, meterRegistry, true, 1, 1, Duration.ofMillis(50), 1, Duration.ofMillis(1));
+        queue.start();
+        queue.enqueue(rates(1));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<ExchangeRate> overflow = rates(3);
+        queue.enqueue(overflow);
+
+        assertThat(meterRegistry.get("exchange.ingestion.rows.dropped").counter().count()).isEqualTo(2);
+        verify(rateChangeFilter).forget(overflow.subList(1, 3));
+        verify(exchangeRateIngestionWriter, times(1)).write(anyList());
+        release.countDown();
+        queue.stop();
+        assertThat(meterRegistry.get("exchange.ingestion.rows.written").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should stop retrying and keep the interrupt when the writing thread is interrupted")
+    void writeFails_interrupted_stopsRetrying() {
+        when(exchangeRateIngestionWriter.write(anyList())).thenThrow(new IllegalStateException("db down"));
+        RateWriteBehindQueue queue = new RateWriteBehindQueue(exchangeRateIngestionWriter, rateHistoryStore,
+                rateChangeFilter, meterRegistry, false, 10, 10, Duration.ofSeconds(1), 5, Duration.ofSeconds(10));
+
+        Thread.currentThread().interrupt();
+        try {
+            queue.enqueue(rates(2));
+        } finally {
+            assertThat(Thread.interrupted()).isTrue();
+        }
+
+        verify(exchangeRateIngestionWriter, times(1)).write(anyList());
+        assertThat(meterRegistry.get("exchange.ingestion.rows.dropped").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should write directly when write-behind is disabled")
+    void enqueue_disabled_writesDirectly() {
+        RateWriteBehindQueue queue = new RateWriteBehindQueue(exchangeRateIngestionWriter, rateHistoryStore,
+                rateChangeFilter, meterRegistry, false, 10, 10, Duration.ofSeconds(1), 1, Duration.ofMillis(1));
+        List<ExchangeRate> rates = rates(2);
+        when(exchangeRateIngestionWriter.write(rates)).thenReturn(2L);
+
+        queue.enqueue(rates);
+
+        verify(exchangeRateIngestionWriter).write(rates);
+        verify(rateHistoryStore, times(2)).append(eq("USD"), eq("EUR"), eq("TEST"), any(), any());
+        assertThat(queue.getDepth()).isZero();
+    }
+
+    private RateWriteBehindQueue newQueue(int batchSize) {
+        return new RateWriteBehindQueue(exchangeRateIngestionWriter, rateHistoryStore, rateChangeFilter,
+                meterRegistry, true, 100, batchSize, Duration.ofSeconds(1), 3, Duration.ofMillis(10));
+    }
+
+    private List<ExchangeRate> rates(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> ExchangeRate.builder()
+                        .baseCurrency("USD")
+                        .targetCurrency("EUR")
+                        .rate(BigDecimal.valueOf(i))
+                        .source("TEST")
+                        .timestamp(LocalDateTime.now())
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,124 @@
+package com.gravity.exchange.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RefreshJobsTest {
+
+    private final RefreshJobs refreshJobs = new RefreshJobs();
+
+    @Test
+    @DisplayName("Should hand back the cycle in flight instead of starting another")
+    void start_cycleInFlight_joinsIt() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Executor async = runnable -> CompletableFuture.runAsync(runnable);
+
+        RefreshJob first = refreshJobs.start(RefreshJob.Trigger.SCHEDULED, async, job -> {
+            runs.incrementAndGet();
+            awaitQuietly(release);
+        });
+        RefreshJob second = refreshJobs.start(RefreshJob.Trigger.MANUAL, async, job -> runs.incrementAndGet());
+        release.countDown();
+        first.await();
+
+        assertThat(second).isSameAs(first);
+        assertThat(runs).hasValue(1);
+        assertThat(first.getState()).isEqualTo(RefreshJob.State.SUCCEEDED);
+        assertThat(refreshJobs.find(first.getId())).contains(first);
+    }
+
+    @Test
+    @DisplayName("Should start a new cycle once the previous one has finished")
+    void start_previousCycleDone_startsNewOne() {
+        RefreshJob first = refreshJobs.start(RefreshJob.Trigger.STARTUP, Runnable::run, job -> { });
+        RefreshJob second = refreshJobs.start(RefreshJob.Trigger.SCHEDULED, Runnable::run, job -> { });
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getState()).isEqualTo(RefreshJob.State.SUCCEEDED);
+    }
+
+    @Test
+    @DisplayName("Should fail the job and free the slot when the cycle throws")
+    void start_cycleThrows_failsJobAndFreesSlot() {
+        RefreshJob failed = refreshJobs.start(RefreshJob.Trigger.SCHEDULED, Runnable::run, job -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertThat(failed.getState()).isEqualTo(RefreshJob.State.FAILED);
+        assertThat(refreshJobs.runIfIdle(RefreshJob.Trigger.REVALIDATION, job -> { })).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should fail the job and free the slot when the executor rejects the cycle")
+    void start_executorRejects_failsJobAndFreesSlot() {
+        RefreshJob rejected = refreshJobs.start(RefreshJob.Trigger.MANUAL, runnable -> {
+            throw new RejectedExecutionException("shut down");
+        }, job -> { });
+
+        assertThat(rejected.getState()).isEqualTo(RefreshJob.State.FAILED);
+        assertThat(refreshJobs.runIfIdle(RefreshJob.Trigger.REVALIDATION, job -> { })).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should wait for a revalidation to finish and then start its own cycle")
+    void start_revalidationInFlight_waitsThenStarts() throws Exception {
+        CountDownLatch revalidating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> revalidation = CompletableFuture.supplyAsync(() ->
+                refreshJobs.runIfIdle(RefreshJob.Trigger.REVALIDATION, job -> {
+                    revalidating.countDown();
+                    awaitQuietly(release);
+                }));
+        assertThat(revalidating.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<RefreshJob> cycle = CompletableFuture.supplyAsync(() ->
+                refreshJobs.start(RefreshJob.Trigger.MANUAL, Runnable::run, job -> { }));
+        release.countDown();
+
+        assertThat(revalidation.get(5, TimeUnit.SECONDS)).isTrue();
+        RefreshJob job = cycle.get(5, TimeUnit.SECONDS);
+        assertThat(job.getTrigger()).isEqualTo(RefreshJob.Trigger.MANUAL);
+        assertThat(job.getState()).isEqualTo(RefreshJob.State.SUCCEEDED);
+    }
+
+    @Test
+    @DisplayName("Should skip a revalidation while a cycle is in flight")
+    void runIfIdle_cycleInFlight_skips() {
+        AtomicInteger revalidations = new AtomicInteger();
+
+        refreshJobs.start(RefreshJob.Trigger.SCHEDULED, Runnable::run, job ->
+                assertThat(refreshJobs.runIfIdle(RefreshJob.Trigger.REVALIDATION,
+                        revalidation -> revalidations.incrementAndGet())).isFalse());
+
+        assertThat(revalidations).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Should rethrow a failed revalidation after failing its job and freeing the slot")
+    void runIfIdle_workThrows_rethrowsAndFreesSlot() {
+        assertThatThrownBy(() -> refreshJobs.runIfIdle(RefreshJob.Trigger.REVALIDATION, job -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(refreshJobs.runIfIdle(RefreshJob.Trigger.REVALIDATION, job -> { })).isTrue();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.gravity.exchange.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs several leadership instances, one per simulated replica, against one PostgreSQL server.
+ * Needs Docker, so it runs in CI.
+ */
+@Testcontainers
+class SchedulerLeadershipIntegrationTest {
+
+    private static final Duration LEASE = Duration.ofSeconds(3);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("exchange_db_test")
+            .withUsername("test")
+            .withPassword("test");
+
+    private final List<SchedulerLeadership> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (SchedulerLeadership node : nodes) {
+            node.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should elect exactly one leader among several nodes")
+    void start_severalNodes_oneLeader() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            startNode();
+        }
+
+        assertThat(awaitTrue(() -> leaderCount() == 1, LEASE.multipliedBy(2))).isTrue();
+        Thread.sleep(LEASE.toMillis());
+        assertThat(leaderCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fail over to another node within the lease when the leader stops")
+    void stop_leader_followerTakesOver() throws InterruptedException {
+        SchedulerLeadership first = startNode();
+        SchedulerLeadership second = startNode();
+        assertThat(first.isLeader()).isTrue();
+        assertThat(second.isLeader()).isFalse();
+
+        first.stop();
+
+        assertThat(awaitTrue(second::isLeader, LEASE.multipliedBy(2))).isTrue();
+        assertThat(first.isLeader()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should step down and fail over when the leader's session loses the lock")
+    void check_lockLost_leaderStepsDown() throws Exception {
+        SchedulerLeadership first = startNode();
+        SchedulerLeadership second = startNode();
+        assertThat(first.isLeader()).isTrue();
+
+        try (Connection admin = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(),
+                postgres.getPassword());
+             Statement statement = admin.createStatement()) {
+            statement.execute("SELECT pg_terminate_backend(pid) FROM pg_locks"
+                    + " WHERE locktype = 'advisory' AND granted");
+        }
+
+        assertThat(awaitTrue(() -> second.isLeader() && !first.isLeader(), LEASE.multipliedBy(2))).isTrue();
+    }
+
+    private SchedulerLeadership startNode() {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(postgres.getJdbcUrl());
+        properties.setUsername(postgres.getUsername());
+        properties.setPassword(postgres.getPassword());
+        SchedulerLeadership node = new SchedulerLeadership(properties, true, "exchange-rate-scheduler", LEASE);
+        node.start();
+        nodes.add(node);
+        return node;
+    }
+
+    private long leaderCount() {
+        return nodes.stream().filter(SchedulerLeadership::isLeader).count();
+    }
+
+    private boolean awaitTrue(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return condition.getAsBoolean();
+    }
+}
@@ -0,0 +1,119 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.dto.TrendResponse;
+import com.gravity.exchange.exception.ExchangeRateNotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrendCacheTest {
+
+    private final TrendCache trendCache = new TrendCache(100);
+
+    @Test
+    @DisplayName("Should run one computation for concurrent requests of the same trend")
+    void get_concurrentMisses_computeOnce() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<TrendResponse>> results = new ArrayList<>();
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> trendCache.get("USD", "EUR", "1D", () -> {
+                    computations.incrementAndGet();
+                    await(release);
+                    return trend("USD", "EUR", "1D");
+                })));
+            }
+            // Give every caller time to reach the cache before the computation finishes
+            Thread.sleep(200);
+            release.countDown();
+        }
+
+        assertThat(computations).hasValue(1);
+        TrendResponse first = results.get(0).get();
+        for (Future<TrendResponse> result : results) {
+            assertThat(result.get()).isSameAs(first);
+        }
+    }
+
+    @Test
+    @DisplayName("Should compute again once the rows of a newer cycle are persisted, not before")
+    void get_newerVersionPersisted_recomputes() {
+        AtomicInteger computations = new AtomicInteger();
+
+        trendCache.get("USD", "EUR", "1D", () -> trend("USD", "EUR", "1D", computations));
+        trendCache.get("USD", "EUR", "1D", () -> trend("USD", "EUR", "1D", computations));
+        trendCache.onRatesPersisted(new RatesPersistedEvent(2));
+        trendCache.get("USD", "EUR", "1D", () -> trend("USD", "EUR", "1D", computations));
+        trendCache.markPersisted(1);
+        trendCache.get("USD", "EUR", "1D", () -> trend("USD", "EUR", "1D", computations));
+
+        assertThat(trendCache.currentVersion()).isEqualTo(2);
+        assertThat(computations).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should serve a precomputed trend and not cache failures")
+    void get_precomputedAndFailures() {
+        TrendResponse precomputed = trend("USD", "EUR", "7D");
+        trendCache.put(trendCache.currentVersion(), precomputed);
+
+        assertThat(trendCache.get("USD", "EUR", "7D", () -> {
+            throw new IllegalStateException("should not compute");
+        })).isSameAs(precomputed);
+
+        assertThatThrownBy(() -> trendCache.get("USD", "JPY", "7D", () -> {
+            throw new ExchangeRateNotFoundException("USD", "JPY");
+        })).isInstanceOf(ExchangeRateNotFoundException.class);
+        assertThat(trendCache.get("USD", "JPY", "7D", () -> trend("USD", "JPY", "7D")).getTo()).isEqualTo("JPY");
+    }
+
+    @Test
+    @DisplayName("Should not replace a trend of a newer snapshot with an older one")
+    void put_olderVersion_ignored() {
+        trendCache.markPersisted(1);
+        TrendResponse current = trend("USD", "EUR", "1M");
+        trendCache.put(trendCache.currentVersion(), current);
+        trendCache.put(trendCache.currentVersion() - 1, trend("USD", "EUR", "1M"));
+
+        assertThat(trendCache.get("USD", "EUR", "1M", () -> trend("USD", "EUR", "1M"))).isSameAs(current);
+        assertThat(trendCache.size()).isEqualTo(1);
+    }
+
+    private static TrendResponse trend(String from, String to, String period, AtomicInteger computations) {
+        computations.incrementAndGet();
+        return trend(from, to, period);
+    }
+
+    private static TrendResponse trend(String from, String to, String period) {
+        return TrendResponse.builder()
+                .from(from)
+                .to(to)
+                .period(period)
+                .rateAtStart(new BigDecimal("0.90"))
+                .currentRate(new BigDecimal("0.92"))
+                .percentageChange(new BigDecimal("2.22"))
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.gravity.exchange.service;
+
+import com.gravity.exchange.dto.TrendResponse;
+import com.gravity.exchange.exception.ExchangeRateNotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrendPrecomputerTest {
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
+
+    @Mock
+    private CurrencyService currencyService;
+
+    @Mock
+    private TrendCache trendCache;
+
+    @Test
+    @DisplayName("Should compute every standard period of every pair once per snapshot")
+    void precomputeLatest_allPairsAndPeriods() {
+        when(trendCache.currentVersion()).thenReturn(7L);
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR", "GBP"));
+        when(exchangeRateService.computeTrend(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> TrendResponse.builder()
+                        .from(invocation.getArgument(0))
+                        .to(invocation.getArgument(1))
+                        .period(invocation.getArgument(2))
+                        .build());
+        TrendPrecomputer precomputer = precomputer(List.of("12h", "1D"));
+
+        assertThat(precomputer.precomputeLatest()).isEqualTo(12);
+        assertThat(precomputer.precomputeLatest()).isZero();
+
+        verify(exchangeRateService).computeTrend("USD", "EUR", "12H");
+        verify(exchangeRateService, never()).computeTrend(eq("USD"), eq("USD"), anyString());
+        verify(trendCache, times(12)).put(eq(7L), any(TrendResponse.class));
+    }
+
+    @Test
+    @DisplayName("Should skip the remaining periods of a pair without history")
+    void precomputeLatest_pairWithoutHistory_skipped() {
+        when(trendCache.currentVersion()).thenReturn(3L);
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR"));
+        when(exchangeRateService.computeTrend(anyString(), anyString(), anyString()))
+                .thenThrow(new ExchangeRateNotFoundException("USD", "EUR"));
+
+        assertThat(precomputer(List.of("1D", "7D", "1Y")).precomputeLatest()).isZero();
+
+        verify(exchangeRateService, times(2)).computeTrend(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should stop once a newer snapshot is published")
+    void precomputeLatest_superseded_stops() {
+        when(trendCache.currentVersion()).thenReturn(4L, 4L, 5L);
+        when(currencyService.getActiveCurrencyCodes()).thenReturn(List.of("USD", "EUR"));
+        when(exchangeRateService.computeTrend(anyString(), anyString(), anyString()))
+                .thenReturn(TrendResponse.builder().build());
+
+        assertThat(precomputer(List.of("1D", "7D")).precomputeLatest()).isEqualTo(1);
+    }
+
+    private TrendPrecomputer precomputer(List<String> periods) {
+        return new TrendPrecomputer(exchangeRateService, currencyService, trendCache, true, periods);
+    }
+}